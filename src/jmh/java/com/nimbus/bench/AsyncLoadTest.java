@@ -0,0 +1,77 @@
+package com.nimbus.bench;
+
+import com.nimbus.jdbc.PoolConfig;
+import com.nimbus.jdbc.PooledDataSource;
+import com.nimbus.partc.AsyncStudentController;
+import com.nimbus.partc.StudentController;
+
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test for AsyncStudentController against the embedded database
+ *
+ * For each concurrency level keeps that many getStudentById calls in
+ * flight (closed loop) for a fixed time and prints lookups/sec and mean
+ * end-to-end latency. The pool is smaller than the higher levels, so the
+ * table also shows how the connection budget caps throughput.
+ *
+ * Usage: java -cp target/benchmarks.jar com.nimbus.bench.AsyncLoadTest [seconds] [poolSize] [tableSize]
+ */
+public class AsyncLoadTest {
+
+    private static final int[] CONCURRENCY_LEVELS = {1, 10, 100, 1000};
+
+    public static void main(String[] args) throws SQLException, InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int poolSize = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int tableSize = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+
+        BenchmarkDatabase db = BenchmarkDatabase.create(tableSize);
+        PoolConfig config = new PoolConfig(poolSize, poolSize);
+        PooledDataSource pool = new PooledDataSource(db.getUrl(), BenchmarkDatabase.USER,
+                BenchmarkDatabase.PASSWORD, config);
+        StudentController controller = new StudentController(pool);
+        try (AsyncStudentController async = new AsyncStudentController(controller)) {
+            System.out.println("Executor: " + (async.isUsingVirtualThreads() ? "virtual threads" : "bounded platform pool")
+                    + ", connection budget: " + async.getMaxConcurrency());
+            System.out.printf("%-12s %15s %18s%n", "concurrency", "lookups/sec", "mean latency (us)");
+            run(async, tableSize, 1, 1);
+            for (int concurrency : CONCURRENCY_LEVELS) {
+                double[] result = run(async, tableSize, concurrency, seconds);
+                System.out.printf("%-12d %15.0f %18.1f%n", concurrency, result[0], result[1]);
+            }
+        } finally {
+            pool.close();
+            db.close();
+        }
+    }
+
+    /**
+     * @return {operations per second, mean latency in microseconds}
+     */
+    private static double[] run(AsyncStudentController async, int tableSize, int concurrency, int seconds)
+            throws InterruptedException {
+        Semaphore window = new Semaphore(concurrency);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong latencyNanos = new AtomicLong();
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            window.acquire();
+            long issued = System.nanoTime();
+            int id = ThreadLocalRandom.current().nextInt(1, tableSize + 1);
+            async.getStudentById(id).whenComplete((student, error) -> {
+                latencyNanos.addAndGet(System.nanoTime() - issued);
+                completed.incrementAndGet();
+                window.release();
+            });
+        }
+        window.acquire(concurrency);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long ops = completed.get();
+        return new double[]{ops / elapsed, ops == 0 ? 0 : latencyNanos.get() / 1_000.0 / ops};
+    }
+}
@@ -0,0 +1,108 @@
+package com.nimbus.bench;
+
+import com.nimbus.schema.SchemaBootstrap;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process H2 database in MySQL compatibility mode for the benchmarks
+ * Creates the schema with SchemaBootstrap and fills Employee, Product and Student with
+ * tableSize rows keyed 1..tableSize, so no MySQL server is needed.
+ */
+public final class BenchmarkDatabase {
+    public static final String USER = "sa";
+    public static final String PASSWORD = "";
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    private static final String[] DEPARTMENTS = {"CSE", "ECE", "ME", "CE", "EE", "IT", "BT", "CH"};
+
+    private final String url;
+    // Keeps the in-memory database alive between benchmark connections
+    private final Connection keepAlive;
+
+    private BenchmarkDatabase(String url, Connection keepAlive) {
+        this.url = url;
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * Create a fresh, populated database
+     * @param tableSize rows per table
+     */
+    public static BenchmarkDatabase create(int tableSize) throws SQLException {
+        String url = "jdbc:h2:mem:nimbus_bench_" + SEQUENCE.incrementAndGet()
+                + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        Connection keepAlive = DriverManager.getConnection(url, USER, PASSWORD);
+        BenchmarkDatabase db = new BenchmarkDatabase(url, keepAlive);
+        db.createSchema();
+        db.populate(tableSize);
+        return db;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Connection connect() throws SQLException {
+        return DriverManager.getConnection(url, USER, PASSWORD);
+    }
+
+    public static String departmentOf(int id) {
+        return DEPARTMENTS[id % DEPARTMENTS.length];
+    }
+
+    private void createSchema() throws SQLException {
+        SchemaBootstrap.apply(keepAlive);
+    }
+
+    private void populate(int tableSize) throws SQLException {
+        keepAlive.setAutoCommit(false);
+        try (PreparedStatement emp = keepAlive.prepareStatement("INSERT INTO Employee VALUES (?, ?, ?)");
+             PreparedStatement prod = keepAlive.prepareStatement("INSERT INTO Product VALUES (?, ?, ?, ?)");
+             PreparedStatement stu = keepAlive.prepareStatement(
+                     "INSERT INTO Student (StudentID, Name, Department, Marks) VALUES (?, ?, ?, ?)")) {
+            for (int id = 1; id <= tableSize; id++) {
+                emp.setInt(1, id);
+                emp.setString(2, "Employee " + id);
+                emp.setDouble(3, 30_000 + (id % 1000) * 100);
+                emp.addBatch();
+
+                prod.setInt(1, id);
+                prod.setString(2, "Product " + id);
+                prod.setDouble(3, 1 + (id % 500));
+                prod.setInt(4, id % 100);
+                prod.addBatch();
+
+                stu.setInt(1, id);
+                stu.setString(2, "Student " + id);
+                stu.setString(3, departmentOf(id));
+                stu.setDouble(4, id % 101);
+                stu.addBatch();
+
+                if (id % 5_000 == 0 || id == tableSize) {
+                    emp.executeBatch();
+                    prod.executeBatch();
+                    stu.executeBatch();
+                    keepAlive.commit();
+                }
+            }
+        }
+        keepAlive.setAutoCommit(true);
+    }
+
+    /**
+     * Drop the database
+     */
+    public void close() throws SQLException {
+        try (Statement st = keepAlive.createStatement()) {
+            st.execute("SHUTDOWN");
+        } finally {
+            keepAlive.close();
+        }
+    }
+}
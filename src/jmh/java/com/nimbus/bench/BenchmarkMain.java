@@ -0,0 +1,61 @@
+package com.nimbus.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Entry point of benchmarks.jar
+ *
+ * Runs the selected benchmarks once per thread count and writes one JSON
+ * result file per run, e.g. target/jmh/results-t4.json, for regression tracking.
+ *
+ * Usage: java -jar target/benchmarks.jar [-threads 1,4,16] [-rf dir] [-p tableSize=10000] [regex]
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException {
+        String[] threadCounts = {"1", "4"};
+        String resultDir = "target/jmh";
+        String include = "com\\.nimbus\\.bench\\..*";
+        String tableSizes = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-threads":
+                    threadCounts = args[++i].split(",");
+                    break;
+                case "-rf":
+                    resultDir = args[++i];
+                    break;
+                case "-p":
+                    String param = args[++i];
+                    if (!param.startsWith("tableSize=")) {
+                        throw new IllegalArgumentException("Only tableSize can be overridden: " + param);
+                    }
+                    tableSizes = param.substring("tableSize=".length());
+                    break;
+                default:
+                    include = args[i];
+            }
+        }
+
+        new File(resultDir).mkdirs();
+        for (String threads : threadCounts) {
+            int t = Integer.parseInt(threads.trim());
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .threads(t)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultDir, "results-t" + t + ".json").getPath());
+            if (tableSizes != null) {
+                options.param("tableSize", tableSizes.split(","));
+            }
+            new Runner(options.build()).run();
+        }
+    }
+}
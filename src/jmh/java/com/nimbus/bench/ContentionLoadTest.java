@@ -0,0 +1,154 @@
+package com.nimbus.bench;
+
+import com.nimbus.jdbc.PoolConfig;
+import com.nimbus.jdbc.PooledDataSource;
+import com.nimbus.partc.StudentController;
+import com.nimbus.partc.UpdateResult;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Contention test: optimistic version-checked updates vs SELECT ... FOR UPDATE
+ *
+ * Every thread repeatedly adds 1 to the marks of a random student drawn
+ * from a small hot set, spending thinkMicros between reading the row and
+ * writing it back (application work, validation, a remote call). The
+ * pessimistic variant holds the row lock across that gap; the optimistic
+ * variant holds nothing and retries when its version check fails.
+ * After each run the total marks added is checked against the number of
+ * completed increments, so a lost update would show up as a mismatch.
+ *
+ * Usage: java -cp target/benchmarks.jar com.nimbus.bench.ContentionLoadTest
+ *            [seconds] [threads] [hotRows] [thinkMicros]
+ */
+public class ContentionLoadTest {
+
+    private static final String LOCK_SQL = "SELECT Marks FROM Student WHERE StudentID = ? FOR UPDATE";
+    private static final String UPDATE_SQL = "UPDATE Student SET Marks = ?, Version = Version + 1 WHERE StudentID = ?";
+    private static final String SUM_SQL = "SELECT SUM(Marks) FROM Student WHERE StudentID <= ?";
+
+    private interface Increment {
+        // @return write attempts used
+        int apply(int studentID) throws SQLException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int hotRows = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        long thinkMicros = args.length > 3 ? Long.parseLong(args[3]) : 200;
+
+        BenchmarkDatabase db = BenchmarkDatabase.create(Math.max(hotRows, 1_000));
+        PoolConfig config = new PoolConfig(threads, threads);
+        PooledDataSource pool = new PooledDataSource(db.getUrl(), BenchmarkDatabase.USER,
+                BenchmarkDatabase.PASSWORD, config);
+        StudentController controller = new StudentController(pool);
+        try {
+            System.out.printf("threads=%d hotRows=%d think=%dus%n", threads, hotRows, thinkMicros);
+            System.out.printf("%-12s %12s %14s %10s%n", "strategy", "updates/sec", "attempts/upd", "lost");
+
+            Increment pessimistic = id -> {
+                try (Connection conn = pool.getConnection()) {
+                    conn.setAutoCommit(false);
+                    double marks;
+                    try (PreparedStatement lock = conn.prepareStatement(LOCK_SQL)) {
+                        lock.setInt(1, id);
+                        try (ResultSet rs = lock.executeQuery()) {
+                            rs.next();
+                            marks = rs.getDouble(1);
+                        }
+                    }
+                    think(thinkMicros);
+                    try (PreparedStatement update = conn.prepareStatement(UPDATE_SQL)) {
+                        update.setDouble(1, marks + 1);
+                        update.setInt(2, id);
+                        update.executeUpdate();
+                    }
+                    conn.commit();
+                    return 1;
+                }
+            };
+            Increment optimistic = id -> {
+                UpdateResult result = controller.updateStudent(id, s -> {
+                    think(thinkMicros);
+                    s.setMarks(s.getMarks() + 1);
+                    return s;
+                }, Integer.MAX_VALUE);
+                if (!result.isUpdated()) {
+                    throw new SQLException("Increment failed: " + result);
+                }
+                return result.getAttempts();
+            };
+
+            run("warm-up", pool, pessimistic, threads, hotRows, 1, false);
+            run("warm-up", pool, optimistic, threads, hotRows, 1, false);
+            run("FOR UPDATE", pool, pessimistic, threads, hotRows, seconds, true);
+            run("optimistic", pool, optimistic, threads, hotRows, seconds, true);
+        } finally {
+            pool.close();
+            db.close();
+        }
+    }
+
+    private static void run(String name, PooledDataSource pool, Increment increment, int threads, int hotRows,
+                            int seconds, boolean print) throws Exception {
+        double before = sumMarks(pool, hotRows);
+        AtomicLong updates = new AtomicLong();
+        AtomicLong attempts = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        int id = ThreadLocalRandom.current().nextInt(1, hotRows + 1);
+                        try {
+                            attempts.addAndGet(increment.apply(id));
+                            updates.incrementAndGet();
+                        } catch (SQLException e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.start();
+        }
+        done.await();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long lost = updates.get() - Math.round(sumMarks(pool, hotRows) - before);
+        if (print) {
+            System.out.printf("%-12s %12.0f %14.2f %10d%s%n", name, updates.get() / elapsed,
+                    updates.get() == 0 ? 0 : (double) attempts.get() / updates.get(), lost,
+                    errors.get() == 0 ? "" : "  (" + errors.get() + " errors)");
+        }
+    }
+
+    private static double sumMarks(PooledDataSource pool, int hotRows) throws SQLException {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SUM_SQL)) {
+            ps.setInt(1, hotRows);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getDouble(1);
+            }
+        }
+    }
+
+    private static void think(long micros) {
+        if (micros > 0) {
+            LockSupport.parkNanos(micros * 1_000);
+        }
+    }
+}
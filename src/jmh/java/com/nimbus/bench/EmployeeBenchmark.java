@@ -0,0 +1,85 @@
+package com.nimbus.bench;
+
+import com.nimbus.parta.Employee;
+import com.nimbus.parta.EmployeeStreamReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Part A Employee fetch against the embedded database
+ * H2 rejects Connector/J's Integer.MIN_VALUE streaming hint, so the
+ * reader runs in cursor mode with a fixed fetch size here.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmployeeBenchmark {
+
+    @Param({"10000", "100000"})
+    public int tableSize;
+
+    @Param({"1000"})
+    public int fetchSize;
+
+    private BenchmarkDatabase db;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        db = BenchmarkDatabase.create(tableSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        db.close();
+    }
+
+    /**
+     * One connection per benchmark thread
+     */
+    @State(Scope.Thread)
+    public static class Session {
+        Connection con;
+
+        @Setup(Level.Trial)
+        public void open(EmployeeBenchmark bench) throws SQLException {
+            con = bench.db.connect();
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            con.close();
+        }
+    }
+
+    @Benchmark
+    public long fetchAll(Session session, Blackhole bh) throws SQLException {
+        long rows = 0;
+        try (EmployeeStreamReader.EmployeeCursor cursor = new EmployeeStreamReader(fetchSize).open(session.con)) {
+            while (cursor.hasNext()) {
+                Employee employee = cursor.next();
+                bh.consume(employee);
+                rows++;
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,121 @@
+package com.nimbus.bench;
+
+import com.nimbus.partb.Product;
+import com.nimbus.partb.ProductStatements;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Part B Product CRUD statements against the embedded database
+ * Each benchmark thread owns one auto-commit connection and its ProductStatements,
+ * mirroring the one-connection-per-session CLI.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductBenchmark {
+
+    @Param({"10000", "100000"})
+    public int tableSize;
+
+    private BenchmarkDatabase db;
+    private AtomicInteger nextInsertId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        db = BenchmarkDatabase.create(tableSize);
+        nextInsertId = new AtomicInteger(tableSize * 10);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        db.close();
+    }
+
+    /**
+     * One session per benchmark thread
+     */
+    @State(Scope.Thread)
+    public static class Session {
+        Connection con;
+        ProductStatements stmts;
+
+        @Setup(Level.Trial)
+        public void open(ProductBenchmark bench) throws SQLException {
+            con = bench.db.connect();
+            stmts = new ProductStatements(con);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            stmts.close();
+            con.close();
+        }
+    }
+
+    /**
+     * Row inserted before each delete invocation so every delete hits a real row
+     */
+    @State(Scope.Thread)
+    public static class DeleteTarget {
+        int id;
+
+        @Setup(Level.Invocation)
+        public void insert(ProductBenchmark bench, Session session) throws SQLException {
+            id = bench.nextInsertId.incrementAndGet();
+            session.stmts.insert(id, "Doomed " + id, 1.0, 1);
+        }
+    }
+
+    private int randomId() {
+        return ThreadLocalRandom.current().nextInt(1, tableSize + 1);
+    }
+
+    @Benchmark
+    public int insert(Session session) throws SQLException {
+        int id = nextInsertId.incrementAndGet();
+        return session.stmts.insert(id, "Product " + id, 9.99, 10);
+    }
+
+    @Benchmark
+    public Product lookupById(Session session) throws SQLException {
+        return session.stmts.findById(randomId());
+    }
+
+    @Benchmark
+    public int fullScan(Session session, Blackhole bh) throws SQLException {
+        return session.stmts.forEach(bh::consume);
+    }
+
+    @Benchmark
+    public int update(Session session) throws SQLException {
+        int id = randomId();
+        return session.stmts.update(id, "Product " + id, ThreadLocalRandom.current().nextInt(1, 500), 5);
+    }
+
+    @Benchmark
+    public int delete(Session session, DeleteTarget target) throws SQLException {
+        return session.stmts.delete(target.id);
+    }
+}
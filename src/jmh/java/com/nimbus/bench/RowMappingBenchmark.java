@@ -0,0 +1,101 @@
+package com.nimbus.bench;
+
+import com.nimbus.jdbc.InstrumentedDataSource;
+import com.nimbus.jdbc.SqlMetrics;
+import com.nimbus.partc.Student;
+import com.nimbus.partc.StudentRowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row mapping cost of a 1M-row Student scan
+ * byName is the old path (SELECT * and a column lookup by name per field per row);
+ * byIndex is the explicit projection read through StudentRowMapper;
+ * byIndexInstrumented is the same scan through an InstrumentedDataSource
+ * connection, so its difference from byIndex is the metrics overhead per row.
+ * Scores are nanoseconds per row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class RowMappingBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    private BenchmarkDatabase db;
+    private Connection con;
+    private Connection instrumented;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        db = BenchmarkDatabase.create(ROWS);
+        con = db.connect();
+        // Its own registry, with a slow-query threshold no scan reaches
+        instrumented = InstrumentedDataSource.wrap(db.connect(), new SqlMetrics(Long.MAX_VALUE / 1_000_000));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        con.close();
+        instrumented.close();
+        db.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void byName(Blackhole bh) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT * FROM Student");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(new Student(
+                        rs.getInt("StudentID"),
+                        rs.getString("Name"),
+                        rs.getString("Department"),
+                        rs.getDouble("Marks")));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void byIndex(Blackhole bh) throws SQLException {
+        scanByIndex(con, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void byIndexInstrumented(Blackhole bh) throws SQLException {
+        scanByIndex(instrumented, bh);
+    }
+
+    private static void scanByIndex(Connection connection, Blackhole bh) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT " + StudentRowMapper.COLUMNS.columnList() + " FROM Student");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(StudentRowMapper.INSTANCE.map(rs));
+            }
+        }
+    }
+}
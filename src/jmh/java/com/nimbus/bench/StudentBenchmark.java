@@ -0,0 +1,106 @@
+package com.nimbus.bench;
+
+import com.nimbus.jdbc.PoolConfig;
+import com.nimbus.jdbc.PooledDataSource;
+import com.nimbus.partc.Student;
+import com.nimbus.partc.StudentController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * StudentController CRUD paths against the embedded database
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StudentBenchmark {
+
+    @Param({"10000", "100000"})
+    public int tableSize;
+
+    private BenchmarkDatabase db;
+    private PooledDataSource pool;
+    private StudentController controller;
+    private AtomicInteger nextInsertId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        db = BenchmarkDatabase.create(tableSize);
+        PoolConfig config = new PoolConfig(4, 256);
+        pool = new PooledDataSource(db.getUrl(), BenchmarkDatabase.USER, BenchmarkDatabase.PASSWORD, config);
+        controller = new StudentController(pool);
+        nextInsertId = new AtomicInteger(tableSize * 10);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        pool.close();
+        db.close();
+    }
+
+    /**
+     * Row inserted before each delete invocation so every delete hits a real row
+     */
+    @State(Scope.Thread)
+    public static class DeleteTarget {
+        int id;
+
+        @Setup(Level.Invocation)
+        public void insert(StudentBenchmark bench) {
+            id = bench.nextInsertId.incrementAndGet();
+            bench.controller.addStudent(new Student(id, "Doomed " + id, "CSE", 50));
+        }
+    }
+
+    private int randomId() {
+        return ThreadLocalRandom.current().nextInt(1, tableSize + 1);
+    }
+
+    @Benchmark
+    public boolean insert() {
+        int id = nextInsertId.incrementAndGet();
+        return controller.addStudent(new Student(id, "Student " + id, BenchmarkDatabase.departmentOf(id), 75));
+    }
+
+    @Benchmark
+    public Student lookupById() {
+        return controller.getStudentById(randomId());
+    }
+
+    @Benchmark
+    public List<Student> fullScan() {
+        return controller.getAllStudents();
+    }
+
+    @Benchmark
+    public boolean update() {
+        int id = randomId();
+        return controller.updateStudent(new Student(id, "Student " + id, BenchmarkDatabase.departmentOf(id),
+                ThreadLocalRandom.current().nextInt(101)));
+    }
+
+    @Benchmark
+    public boolean delete(DeleteTarget target) {
+        return controller.deleteStudent(target.id);
+    }
+}
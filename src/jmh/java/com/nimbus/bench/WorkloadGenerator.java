@@ -0,0 +1,585 @@
+package com.nimbus.bench;
+
+import com.nimbus.jdbc.LatencyHistogram;
+import com.nimbus.jdbc.PoolConfig;
+import com.nimbus.jdbc.PooledDataSource;
+import com.nimbus.partb.ProductStatements;
+import com.nimbus.partc.Student;
+import com.nimbus.partc.StudentController;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Multi-threaded Student/Product traffic generator for capacity planning
+ *
+ * Worker threads draw an operation from the read/insert/update/delete mix
+ * and a key from a uniform or Zipfian distribution, then call
+ * StudentController or ProductStatements. Reads and updates target the
+ * preloaded keys 1..keyspace; inserts append new keys and deletes remove
+ * the oldest appended ones, so the table size stays steady over a long run.
+ *
+ * Closed loop (no --rate): every thread issues its next call as soon as
+ * the last one returns, which finds maximum throughput. Open loop
+ * (--rate N): calls are scheduled at a fixed total rate and latency is
+ * measured from the scheduled time, so queueing delay shows up in the
+ * percentiles instead of silently lowering the request rate.
+ *
+ * Every interval prints ops/sec and p50/p95/p99/p999 per operation type;
+ * a summary of the measured period (after warm-up) follows at the end.
+ * The errors column counts calls that threw a database error and updates
+ * or inserts that wrote no row.
+ *
+ * Usage: java -cp target/benchmarks.jar com.nimbus.bench.WorkloadGenerator
+ *            [--url jdbc:mysql://localhost:3306/nimbusdb --user root --password 1234 [--populate]]
+ *            [--target student|product|both] [--threads 16] [--mix read=70,insert=10,update=15,delete=5]
+ *            [--keys uniform|zipf[:theta]] [--keyspace 100000] [--rate opsPerSec]
+ *            [--warmup 5] [--duration 30] [--interval 5]
+ * Without --url an embedded H2 database (MySQL mode) is created and populated.
+ */
+public class WorkloadGenerator {
+
+    private enum Op { READ, INSERT, UPDATE, DELETE }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        int keyspace = Integer.parseInt(options.getOrDefault("keyspace", "100000"));
+        long rate = Long.parseLong(options.getOrDefault("rate", "0"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int interval = Integer.parseInt(options.getOrDefault("interval", "5"));
+        int[] mix = parseMix(options.getOrDefault("mix", "read=70,insert=10,update=15,delete=5"));
+        KeyChooser keys = KeyChooser.parse(options.getOrDefault("keys", "uniform"), keyspace);
+        String targetName = options.getOrDefault("target", "student");
+
+        BenchmarkDatabase embedded = null;
+        String url = options.get("url");
+        String user = options.getOrDefault("user", BenchmarkDatabase.USER);
+        String password = options.getOrDefault("password", BenchmarkDatabase.PASSWORD);
+        if (url == null) {
+            embedded = BenchmarkDatabase.create(keyspace);
+            url = embedded.getUrl();
+        }
+        // Product workers pin one connection each; Student calls borrow per call
+        PooledDataSource pool = new PooledDataSource(url, user, password, new PoolConfig(threads, 2 * threads));
+        StudentController controller = new StudentController(pool);
+        try {
+            if (options.containsKey("populate")) {
+                populate(pool, controller, keyspace);
+            }
+            List<Target> targets = new ArrayList<>();
+            if (targetName.equals("student") || targetName.equals("both")) {
+                targets.add(new StudentTarget(controller, keyspace));
+            }
+            if (targetName.equals("product") || targetName.equals("both")) {
+                targets.add(new ProductTarget(pool, keyspace));
+            }
+            if (targets.isEmpty()) {
+                throw new IllegalArgumentException("Unknown --target: " + targetName);
+            }
+            System.out.printf("threads=%d mix=%s keys=%s keyspace=%d %s warmup=%ds duration=%ds%n",
+                    threads, options.getOrDefault("mix", "read=70,insert=10,update=15,delete=5"), keys,
+                    keyspace, rate > 0 ? "open-loop rate=" + rate + "/s" : "closed-loop", warmup, duration);
+            new WorkloadGenerator(targets, threads, mix, keys, rate).run(warmup, duration, interval);
+        } finally {
+            pool.close();
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+    }
+
+    private final List<Target> targets;
+    private final int threads;
+    private final int[] cumulativeMix;
+    private final KeyChooser keys;
+    private final long rate;
+    // Interval histograms are reset by the reporter; total histograms only after warm-up
+    private final Map<String, OpStats> stats = new LinkedHashMap<>();
+    private volatile boolean running = true;
+
+    private WorkloadGenerator(List<Target> targets, int threads, int[] mix, KeyChooser keys, long rate) {
+        this.targets = targets;
+        this.threads = threads;
+        this.keys = keys;
+        this.rate = rate;
+        this.cumulativeMix = new int[mix.length];
+        int sum = 0;
+        for (int i = 0; i < mix.length; i++) {
+            sum += mix[i];
+            cumulativeMix[i] = sum;
+        }
+        for (Target target : targets) {
+            for (Op op : Op.values()) {
+                stats.put(key(target, op), new OpStats());
+            }
+        }
+    }
+
+    private void run(int warmupSeconds, int durationSeconds, int intervalSeconds) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    work();
+                } finally {
+                    done.countDown();
+                }
+            }, "workload-" + t);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmupSeconds * 1_000_000_000L;
+        long end = measureFrom + durationSeconds * 1_000_000_000L;
+        boolean measuring = warmupSeconds == 0;
+        long lastReport = start;
+        printHeader();
+        while (true) {
+            long now = System.nanoTime();
+            long nextReport = Math.min(lastReport + intervalSeconds * 1_000_000_000L, measuring ? end : measureFrom);
+            if (now < nextReport) {
+                Thread.sleep(Math.max(1, (nextReport - now) / 1_000_000));
+                continue;
+            }
+            report((now - start) / 1_000_000_000L, (now - lastReport) / 1e9, measuring ? "" : " warmup");
+            lastReport = now;
+            if (!measuring) {
+                measuring = true;
+                for (OpStats s : stats.values()) {
+                    s.startMeasuring();
+                }
+            } else if (now >= end) {
+                break;
+            }
+        }
+        running = false;
+        done.await();
+
+        System.out.println();
+        System.out.println("Summary over " + durationSeconds + "s after warm-up:");
+        printHeader();
+        for (Map.Entry<String, OpStats> entry : stats.entrySet()) {
+            OpStats s = entry.getValue();
+            print("total", entry.getKey(), s.total, s.totalErrors.get(), durationSeconds);
+        }
+    }
+
+    private void work() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long periodNanos = rate > 0 ? Math.max(1, 1_000_000_000L * threads / rate) : 0;
+        // Stagger open-loop threads so they do not fire in lockstep
+        long intended = System.nanoTime() + (periodNanos > 0 ? random.nextLong(periodNanos) : 0);
+        while (running) {
+            long issued;
+            if (periodNanos > 0) {
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                issued = intended;
+                intended += periodNanos;
+            } else {
+                issued = System.nanoTime();
+            }
+            Target target = targets.get(targets.size() == 1 ? 0 : random.nextInt(targets.size()));
+            Op op = chooseOp(random);
+            OpStats s = stats.get(key(target, op));
+            try {
+                switch (op) {
+                    case READ -> target.read(keys.next(random));
+                    case UPDATE -> target.update(keys.next(random), random);
+                    case INSERT -> target.insert(random);
+                    default -> target.delete();
+                }
+            } catch (SQLException | RuntimeException e) {
+                s.error();
+            }
+            s.record(System.nanoTime() - issued);
+        }
+        for (Target target : targets) {
+            target.closeThread();
+        }
+    }
+
+    private Op chooseOp(ThreadLocalRandom random) {
+        int roll = random.nextInt(cumulativeMix[cumulativeMix.length - 1]);
+        for (int i = 0; i < cumulativeMix.length; i++) {
+            if (roll < cumulativeMix[i]) {
+                return Op.values()[i];
+            }
+        }
+        return Op.READ;
+    }
+
+    private void report(long elapsedSeconds, double seconds, String phase) {
+        for (Map.Entry<String, OpStats> entry : stats.entrySet()) {
+            OpStats s = entry.getValue();
+            print(elapsedSeconds + "s" + phase, entry.getKey(), s.interval, s.errors.getAndSet(0), seconds);
+            s.interval.reset();
+        }
+    }
+
+    private static void printHeader() {
+        System.out.printf("%-12s %-16s %10s %9s %9s %9s %9s %9s %7s%n",
+                "time", "operation", "ops/sec", "p50(us)", "p95(us)", "p99(us)", "p999(us)", "max(us)", "errors");
+    }
+
+    private static void print(String time, String operation, LatencyHistogram h, long errors, double seconds) {
+        if (h.getCount() == 0 && errors == 0) {
+            return;
+        }
+        System.out.printf("%-12s %-16s %10.0f %9d %9d %9d %9d %9d %7d%n", time, operation, h.getCount() / seconds,
+                h.getPercentileNanos(0.50) / 1_000, h.getPercentileNanos(0.95) / 1_000,
+                h.getPercentileNanos(0.99) / 1_000, h.getPercentileNanos(0.999) / 1_000,
+                h.getMaxNanos() / 1_000, errors);
+    }
+
+    private static String key(Target target, Op op) {
+        return target.name() + "." + op.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String name = args[i].substring(2);
+            if (name.equals("populate")) {
+                options.put(name, "true");
+            } else if (i + 1 < args.length) {
+                options.put(name, args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+        }
+        return options;
+    }
+
+    /**
+     * @return weights in Op order
+     */
+    private static int[] parseMix(String spec) {
+        int[] mix = new int[Op.values().length];
+        for (String part : spec.split(",")) {
+            String[] kv = part.split("=");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Bad --mix entry: " + part);
+            }
+            mix[Op.valueOf(kv[0].trim().toUpperCase(Locale.ROOT)).ordinal()] = Integer.parseInt(kv[1].trim());
+        }
+        if (java.util.Arrays.stream(mix).sum() <= 0) {
+            throw new IllegalArgumentException("--mix needs at least one positive weight");
+        }
+        return mix;
+    }
+
+    /**
+     * Insert keyspace rows into an external database whose tables are empty
+     */
+    private static void populate(PooledDataSource pool, StudentController controller, int keyspace)
+            throws SQLException {
+        List<Student> students = new ArrayList<>(StudentController.DEFAULT_BATCH_SIZE);
+        try (Connection conn = pool.getConnection();
+             PreparedStatement product = conn.prepareStatement(ProductStatements.INSERT_SQL)) {
+            conn.setAutoCommit(false);
+            for (int id = 1; id <= keyspace; id++) {
+                students.add(new Student(id, "Student " + id, BenchmarkDatabase.departmentOf(id), id % 101));
+                product.setInt(1, id);
+                product.setString(2, "Product " + id);
+                product.setDouble(3, 1 + (id % 500));
+                product.setInt(4, id % 100);
+                product.addBatch();
+                if (students.size() == StudentController.DEFAULT_BATCH_SIZE || id == keyspace) {
+                    controller.addStudents(students);
+                    students.clear();
+                    product.executeBatch();
+                    conn.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Latency and errors for one operation type
+     */
+    private static final class OpStats {
+        private final LatencyHistogram interval = new LatencyHistogram();
+        private final LatencyHistogram total = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong totalErrors = new AtomicLong();
+        private volatile boolean measuring;
+
+        private void record(long nanos) {
+            interval.record(nanos);
+            if (measuring) {
+                total.record(nanos);
+            }
+        }
+
+        private void error() {
+            errors.incrementAndGet();
+            if (measuring) {
+                totalErrors.incrementAndGet();
+            }
+        }
+
+        private void startMeasuring() {
+            total.reset();
+            totalErrors.set(0);
+            measuring = true;
+        }
+    }
+
+    /**
+     * Picks keys in 1..keyspace
+     */
+    private abstract static class KeyChooser {
+        abstract int next(ThreadLocalRandom random);
+
+        static KeyChooser parse(String spec, int keyspace) {
+            if (spec.equals("uniform")) {
+                return new KeyChooser() {
+                    @Override
+                    int next(ThreadLocalRandom random) {
+                        return 1 + random.nextInt(keyspace);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "uniform";
+                    }
+                };
+            }
+            if (spec.startsWith("zipf")) {
+                double theta = spec.contains(":") ? Double.parseDouble(spec.substring(spec.indexOf(':') + 1)) : 0.99;
+                return new Zipfian(keyspace, theta);
+            }
+            throw new IllegalArgumentException("Unknown --keys: " + spec);
+        }
+    }
+
+    /**
+     * Zipfian ranks (Gray et al., "Quickly Generating Billion-Record Synthetic Databases")
+     * Rank 0 is the hottest key; ranks are spread over the keyspace by a multiplicative
+     * hash so the hot keys are not all on neighbouring index pages.
+     */
+    private static final class Zipfian extends KeyChooser {
+        private final int n;
+        private final double theta;
+        private final double alpha;
+        private final double zetan;
+        private final double eta;
+
+        private Zipfian(int n, double theta) {
+            if (theta <= 0 || theta >= 1) {
+                throw new IllegalArgumentException("Zipf theta must be in (0, 1): " + theta);
+            }
+            this.n = n;
+            this.theta = theta;
+            this.alpha = 1 / (1 - theta);
+            this.zetan = zeta(n, theta);
+            this.eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+        }
+
+        private static double zeta(int n, double theta) {
+            double sum = 0;
+            for (int i = 1; i <= n; i++) {
+                sum += 1 / Math.pow(i, theta);
+            }
+            return sum;
+        }
+
+        @Override
+        int next(ThreadLocalRandom random) {
+            double u = random.nextDouble();
+            double uz = u * zetan;
+            long rank;
+            if (uz < 1) {
+                rank = 0;
+            } else if (uz < 1 + Math.pow(0.5, theta)) {
+                rank = 1;
+            } else {
+                rank = Math.min(n - 1, (long) (n * Math.pow(eta * u - eta + 1, alpha)));
+            }
+            return 1 + (int) Math.floorMod(rank * 0x9E3779B97F4A7C15L, (long) n);
+        }
+
+        @Override
+        public String toString() {
+            return "zipf(theta=" + theta + ")";
+        }
+    }
+
+    /**
+     * One table's CRUD calls
+     * Inserts use keys above the preloaded range; deletes remove the oldest inserted key.
+     */
+    private abstract static class Target {
+        private final AtomicInteger nextInsert;
+        private final AtomicInteger nextDelete;
+
+        Target(int keyspace) {
+            this.nextInsert = new AtomicInteger(keyspace + 1);
+            this.nextDelete = new AtomicInteger(keyspace + 1);
+        }
+
+        abstract String name();
+
+        abstract void read(int id) throws SQLException;
+
+        abstract void update(int id, ThreadLocalRandom random) throws SQLException;
+
+        abstract void insert(int id, ThreadLocalRandom random) throws SQLException;
+
+        abstract void delete(int id) throws SQLException;
+
+        void insert(ThreadLocalRandom random) throws SQLException {
+            insert(nextInsert.getAndIncrement(), random);
+        }
+
+        /**
+         * Delete the oldest inserted row; a no-op miss when every inserted row is gone already
+         */
+        void delete() throws SQLException {
+            int id = nextDelete.get();
+            if (id < nextInsert.get() && nextDelete.compareAndSet(id, id + 1)) {
+                delete(id);
+            } else {
+                delete(Integer.MAX_VALUE);
+            }
+        }
+
+        void closeThread() {
+        }
+
+        /**
+         * Updates hit preloaded keys that are never deleted and inserts use fresh keys, so writing no row is an error
+         */
+        static void expectRow(boolean written, String op, int id) {
+            if (!written) {
+                throw new IllegalStateException(op + " of key " + id + " wrote no row");
+            }
+        }
+    }
+
+    private static final class StudentTarget extends Target {
+        private final StudentController controller;
+
+        StudentTarget(StudentController controller, int keyspace) {
+            super(keyspace);
+            this.controller = controller;
+        }
+
+        @Override
+        String name() {
+            return "student";
+        }
+
+        // The *Checked calls throw instead of printing, so failures are counted and stay out of the table
+        @Override
+        void read(int id) throws SQLException {
+            controller.getStudentByIdChecked(id);
+        }
+
+        @Override
+        void update(int id, ThreadLocalRandom random) throws SQLException {
+            expectRow(controller.updateStudentChecked(new Student(id, "Student " + id,
+                    BenchmarkDatabase.departmentOf(id), random.nextInt(101))), "update", id);
+        }
+
+        @Override
+        void insert(int id, ThreadLocalRandom random) throws SQLException {
+            expectRow(controller.addStudentChecked(new Student(id, "Student " + id,
+                    BenchmarkDatabase.departmentOf(id), random.nextInt(101))), "insert", id);
+        }
+
+        @Override
+        void delete(int id) throws SQLException {
+            // A miss is expected: the oldest inserted row may be gone already or its insert may have failed
+            controller.deleteStudentChecked(id);
+        }
+    }
+
+    /**
+     * Each worker thread keeps one pooled connection with its statements prepared once
+     */
+    private static final class ProductTarget extends Target {
+        private final PooledDataSource pool;
+        private final ThreadLocal<ProductStatements> statements = new ThreadLocal<>();
+        private final List<ProductStatements> opened = new CopyOnWriteArrayList<>();
+
+        ProductTarget(PooledDataSource pool, int keyspace) {
+            super(keyspace);
+            this.pool = pool;
+        }
+
+        private ProductStatements statements() throws SQLException {
+            ProductStatements stmts = statements.get();
+            if (stmts == null) {
+                stmts = new ProductStatements(pool.getConnection());
+                statements.set(stmts);
+                opened.add(stmts);
+            }
+            return stmts;
+        }
+
+        @Override
+        String name() {
+            return "product";
+        }
+
+        @Override
+        void read(int id) throws SQLException {
+            statements().findById(id);
+        }
+
+        @Override
+        void update(int id, ThreadLocalRandom random) throws SQLException {
+            expectRow(statements().update(id, "Product " + id, 1 + random.nextInt(500), random.nextInt(100)) > 0,
+                    "update", id);
+        }
+
+        @Override
+        void insert(int id, ThreadLocalRandom random) throws SQLException {
+            expectRow(statements().insert(id, "Product " + id, 1 + random.nextInt(500), random.nextInt(100)) > 0,
+                    "insert", id);
+        }
+
+        @Override
+        void delete(int id) throws SQLException {
+            statements().delete(id);
+        }
+
+        @Override
+        void closeThread() {
+            ProductStatements stmts = statements.get();
+            if (stmts == null) {
+                return;
+            }
+            statements.remove();
+            opened.remove(stmts);
+            try {
+                stmts.close();
+                stmts.getConnection().close();
+            } catch (SQLException e) {
+                System.out.println("Error closing product statements: " + e.getMessage());
+            }
+        }
+    }
+}
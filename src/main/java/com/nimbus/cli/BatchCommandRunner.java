@@ -0,0 +1,609 @@
+package com.nimbus.cli;
+
+import com.nimbus.io.Csv;
+import com.nimbus.jdbc.CommitPolicy;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Non-interactive command mode for the Product and Student tools
+ *
+ * Reads one command per line (CSV fields, blank lines and lines starting
+ * with # are skipped):
+ *   create,&lt;fields...&gt;   update,&lt;fields...&gt;   delete,&lt;id&gt;   get,&lt;id&gt;   list
+ *
+ * Consecutive writes of the same kind are sent as one JDBC batch of up to
+ * batchSize rows. A read, a different kind of write or the end of input
+ * sends the pending batch first, so reads always see earlier writes. A
+ * batch that fails is rolled back to the savepoint taken before it and
+ * replayed row by row so that only the bad rows fail. After each batch a
+ * CommitPolicy commits once commitEvery writes, commitMillis since the
+ * first uncommitted write or commitBytes of command text have accumulated,
+ * whichever comes first (0 disables a limit; all 0 = only at the end).
+ *
+ * Every command produces one JSON line on the output (list produces one
+ * per row plus a final status line), followed by a summary line. Write
+ * results carry "committed":false because they are printed before the
+ * commit that covers them; each commit then prints a commit line naming
+ * the last input line it covers. If the run fails, the uncommitted writes
+ * are rolled back and a final rolledBack line lists the input lines whose
+ * "ok" writes were undone, in place of the summary.
+ */
+public class BatchCommandRunner<T> {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_COMMIT_EVERY = 1000;
+    public static final long DEFAULT_COMMIT_MILLIS = 0;
+    public static final long DEFAULT_COMMIT_BYTES = 0;
+
+    private enum Op { CREATE, UPDATE, DELETE, GET, LIST }
+
+    private final Connection con;
+    private final EntityCommands<T> entity;
+    private final int batchSize;
+    private final int commitEvery;
+    private final long commitMillis;
+    private final long commitBytes;
+
+    // Prepared once per run and reused for every batch
+    private PreparedStatement insert;
+    private PreparedStatement update;
+    private PreparedStatement delete;
+    private PreparedStatement tombstone;
+
+    // Writes waiting to be sent
+    private Op pendingOp;
+    private final List<PendingWrite<T>> pending = new ArrayList<>();
+    private CommitPolicy policy;
+
+    // Input lines of "ok" writes not yet committed, in order
+    private long[] uncommittedLines = new long[64];
+    private int uncommitted;
+    private long lastWriteLine;
+
+    private final Summary summary = new Summary();
+    private Writer out;
+
+    public BatchCommandRunner(Connection con, EntityCommands<T> entity) {
+        this(con, entity, DEFAULT_BATCH_SIZE, DEFAULT_COMMIT_EVERY);
+    }
+
+    public BatchCommandRunner(Connection con, EntityCommands<T> entity, int batchSize, int commitEvery) {
+        this(con, entity, batchSize, commitEvery, DEFAULT_COMMIT_MILLIS, DEFAULT_COMMIT_BYTES);
+    }
+
+    /**
+     * @param con connection to run on; switched to manual commit for the run and restored afterwards
+     * @param batchSize maximum rows per executeBatch
+     * @param commitEvery writes per commit, or 0 for no limit
+     * @param commitMillis age of the oldest uncommitted write before a commit, or 0 for no limit
+     * @param commitBytes command bytes per commit, or 0 for no limit
+     */
+    public BatchCommandRunner(Connection con, EntityCommands<T> entity, int batchSize, int commitEvery,
+                              long commitMillis, long commitBytes) {
+        if (batchSize <= 0 || commitEvery < 0 || commitMillis < 0 || commitBytes < 0) {
+            throw new IllegalArgumentException("batchSize must be positive and the commit limits not negative");
+        }
+        this.con = con;
+        this.entity = entity;
+        this.batchSize = batchSize;
+        this.commitEvery = commitEvery;
+        this.commitMillis = commitMillis;
+        this.commitBytes = commitBytes;
+    }
+
+    /**
+     * Run every command from the reader, writing JSON lines to out
+     * Uncommitted work is rolled back if the connection fails.
+     * @return counts for the whole run
+     */
+    public Summary run(Reader commands, Writer out) throws IOException, SQLException {
+        this.out = out;
+        BufferedReader reader = commands instanceof BufferedReader
+                ? (BufferedReader) commands : new BufferedReader(commands, 1 << 16);
+        boolean autoCommit = con.getAutoCommit();
+        // Limits are checked after each batch; no timer, since this thread is never idle
+        policy = new CommitPolicy(con, commitEvery, commitMillis, commitBytes);
+        try {
+            long lineNo = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                summary.commands++;
+                execute(lineNo, trimmed);
+            }
+            flushBatch();
+            if (policy.commit()) {
+                committed();
+            }
+        } catch (SQLException | IOException | RuntimeException e) {
+            policy.rollback();
+            reportRolledBack(e);
+            throw e;
+        } finally {
+            closeStatements();
+            policy.close();
+            summary.commitStats = policy.getStats();
+            con.setAutoCommit(autoCommit);
+        }
+        summary.elapsedNanos = System.nanoTime() - summary.startNanos;
+        out.write(summary.toJson());
+        out.write('\n');
+        out.flush();
+        return summary;
+    }
+
+    /**
+     * Entry point shared by the command-line tools:
+     * args = --batch &lt;file|-&gt; [--batch-size N] [--commit-every N] [--commit-millis T] [--commit-bytes B]
+     * Results go to stdout; the summary is repeated on stderr.
+     */
+    public static <T> Summary runCommandLine(String[] args, Connection con, EntityCommands<T> entity)
+            throws IOException, SQLException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: --batch <file|-> [--batch-size N] [--commit-every N]"
+                    + " [--commit-millis T] [--commit-bytes B]");
+        }
+        int batchSize = DEFAULT_BATCH_SIZE;
+        int commitEvery = DEFAULT_COMMIT_EVERY;
+        long commitMillis = DEFAULT_COMMIT_MILLIS;
+        long commitBytes = DEFAULT_COMMIT_BYTES;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--batch-size") && i + 1 < args.length) {
+                batchSize = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--commit-every") && i + 1 < args.length) {
+                commitEvery = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--commit-millis") && i + 1 < args.length) {
+                commitMillis = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--commit-bytes") && i + 1 < args.length) {
+                commitBytes = Long.parseLong(args[++i]);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        Reader in = args[1].equals("-")
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        try (in) {
+            Summary summary = new BatchCommandRunner<>(con, entity, batchSize, commitEvery, commitMillis, commitBytes)
+                    .run(in, out);
+            System.err.println(summary);
+            return summary;
+        }
+    }
+
+    private void execute(long lineNo, String line) throws IOException, SQLException {
+        List<String> fields = Csv.split(line);
+        Op op;
+        try {
+            op = Op.valueOf(fields.get(0).trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            error(lineNo, fields.get(0).trim(), null, "Unknown command");
+            return;
+        }
+        List<String> args = fields.subList(1, fields.size());
+
+        if (op == Op.CREATE || op == Op.UPDATE || op == Op.DELETE) {
+            PendingWrite<T> write;
+            try {
+                if (op == Op.DELETE) {
+                    write = new PendingWrite<>(lineNo, parseId(args), null, line.length());
+                } else {
+                    T row = entity.parse(args);
+                    write = new PendingWrite<>(lineNo, entity.idOf(row), row, line.length());
+                }
+            } catch (IllegalArgumentException e) {
+                error(lineNo, name(op), null, e.getMessage());
+                return;
+            }
+            if (pendingOp != op) {
+                flushBatch();
+                pendingOp = op;
+            }
+            pending.add(write);
+            if (pending.size() == batchSize) {
+                flushBatch();
+            }
+            return;
+        }
+
+        // Reads see every earlier write
+        flushBatch();
+        if (op == Op.GET) {
+            int id;
+            try {
+                id = parseId(args);
+            } catch (IllegalArgumentException e) {
+                error(lineNo, "get", null, e.getMessage());
+                return;
+            }
+            get(lineNo, id);
+        } else {
+            list(lineNo);
+        }
+    }
+
+    private static int parseId(List<String> args) {
+        if (args.size() != 1) {
+            throw new IllegalArgumentException("Expected 1 field but found " + args.size());
+        }
+        try {
+            return Integer.parseInt(args.get(0).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Send the pending writes as one batch inside a savepoint
+     */
+    private void flushBatch() throws IOException, SQLException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        PreparedStatement ps = statementFor(pendingOp);
+        Savepoint savepoint = con.setSavepoint();
+        try {
+            for (PendingWrite<T> write : pending) {
+                bind(ps, pendingOp, write);
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            if (pendingOp == Op.DELETE && entity.tombstoneSql() != null) {
+                writeTombstones(counts);
+            }
+            con.releaseSavepoint(savepoint);
+            summary.batches++;
+            for (int i = 0; i < pending.size(); i++) {
+                // Rewritten multi-row inserts report SUCCESS_NO_INFO instead of per-row counts
+                int count = i < counts.length ? counts[i] : Statement.SUCCESS_NO_INFO;
+                result(pending.get(i), count);
+            }
+        } catch (BatchUpdateException e) {
+            ps.clearBatch();
+            if (tombstone != null) {
+                tombstone.clearBatch();
+            }
+            con.rollback(savepoint);
+            replayRowByRow(ps);
+        }
+        long bytes = 0;
+        for (PendingWrite<T> write : pending) {
+            bytes += write.bytes;
+        }
+        int ops = pending.size();
+        lastWriteLine = pending.get(ops - 1).lineNo;
+        pending.clear();
+        if (policy.recordOps(ops, bytes)) {
+            committed();
+        }
+    }
+
+    /**
+     * Tell the reader that every write printed so far is durable
+     */
+    private void committed() throws IOException {
+        writeLine(new StringBuilder(64).append("{\"commit\":{\"throughLine\":").append(lastWriteLine)
+                .append(",\"writes\":").append(uncommitted).append("}}"));
+        uncommitted = 0;
+    }
+
+    /**
+     * Last line of a failed run: the "ok" writes the rollback undid
+     */
+    private void reportRolledBack(Exception failure) {
+        StringBuilder json = new StringBuilder(32 + uncommitted * 8)
+                .append("{\"rolledBack\":{\"writes\":").append(uncommitted).append(",\"lines\":[");
+        for (int i = 0; i < uncommitted; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(uncommittedLines[i]);
+        }
+        json.append("],\"error\":").append(quote(failure.getMessage())).append("}}");
+        uncommitted = 0;
+        try {
+            writeLine(json);
+            out.flush();
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private void replayRowByRow(PreparedStatement ps) throws IOException, SQLException {
+        boolean withTombstone = pendingOp == Op.DELETE && entity.tombstoneSql() != null;
+        for (PendingWrite<T> write : pending) {
+            // A delete and its tombstone succeed or fail together
+            Savepoint savepoint = withTombstone ? con.setSavepoint() : null;
+            try {
+                bind(ps, pendingOp, write);
+                int count = ps.executeUpdate();
+                if (withTombstone && count != 0) {
+                    PreparedStatement ts = tombstoneStatement();
+                    ts.setInt(1, write.id);
+                    ts.executeUpdate();
+                }
+                if (savepoint != null) {
+                    con.releaseSavepoint(savepoint);
+                }
+                result(write, count);
+            } catch (SQLException e) {
+                if (savepoint != null) {
+                    con.rollback(savepoint);
+                }
+                error(write.lineNo, name(pendingOp), write.id, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Record a tombstone for every pending delete that removed a row
+     */
+    private void writeTombstones(int[] counts) throws SQLException {
+        PreparedStatement ts = tombstoneStatement();
+        boolean any = false;
+        for (int i = 0; i < pending.size(); i++) {
+            int count = i < counts.length ? counts[i] : Statement.SUCCESS_NO_INFO;
+            if (count != 0) {
+                ts.setInt(1, pending.get(i).id);
+                ts.addBatch();
+                any = true;
+            }
+        }
+        if (any) {
+            ts.executeBatch();
+        }
+    }
+
+    private void bind(PreparedStatement ps, Op op, PendingWrite<T> write) throws SQLException {
+        if (op == Op.CREATE) {
+            entity.bindInsert(ps, write.row);
+        } else if (op == Op.UPDATE) {
+            entity.bindUpdate(ps, write.row);
+        } else {
+            ps.setInt(1, write.id);
+        }
+    }
+
+    private void result(PendingWrite<T> write, int count) throws IOException {
+        if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+            summary.succeeded++;
+            if (uncommitted == uncommittedLines.length) {
+                uncommittedLines = Arrays.copyOf(uncommittedLines, uncommitted * 2);
+            }
+            uncommittedLines[uncommitted++] = write.lineNo;
+            writeLine(start(write.lineNo, name(pendingOp), write.id)
+                    .append(",\"status\":\"ok\",\"committed\":false}"));
+        } else {
+            summary.failed++;
+            writeLine(start(write.lineNo, name(pendingOp), write.id)
+                    .append(",\"status\":\"not_found\",\"committed\":false}"));
+        }
+    }
+
+    private void get(long lineNo, int id) throws IOException, SQLException {
+        try (PreparedStatement ps = con.prepareStatement(entity.selectByIdSql())) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                StringBuilder json = start(lineNo, "get", id);
+                if (rs.next()) {
+                    summary.succeeded++;
+                    json.append(",\"status\":\"ok\",\"row\":");
+                    entity.appendJson(json, entity.mapper().map(rs));
+                    writeLine(json.append('}'));
+                } else {
+                    summary.failed++;
+                    writeLine(json.append(",\"status\":\"not_found\"}"));
+                }
+            }
+        }
+    }
+
+    private void list(long lineNo) throws IOException, SQLException {
+        long rows = 0;
+        try (PreparedStatement ps = con.prepareStatement(entity.selectAllSql());
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                StringBuilder json = start(lineNo, "list", null).append(",\"row\":");
+                entity.appendJson(json, entity.mapper().map(rs));
+                writeLine(json.append('}'));
+                rows++;
+            }
+        }
+        summary.succeeded++;
+        writeLine(start(lineNo, "list", null).append(",\"status\":\"ok\",\"rows\":").append(rows).append('}'));
+    }
+
+    private void error(long lineNo, String op, Integer id, String message) throws IOException {
+        summary.failed++;
+        writeLine(start(lineNo, op, id).append(",\"status\":\"error\",\"message\":")
+                .append(quote(message)).append('}'));
+    }
+
+    private StringBuilder start(long lineNo, String op, Integer id) {
+        StringBuilder json = new StringBuilder(96);
+        json.append("{\"line\":").append(lineNo).append(",\"op\":").append(quote(op));
+        if (id != null) {
+            json.append(",\"").append(entity.idName()).append("\":").append(id);
+        }
+        return json;
+    }
+
+    private void writeLine(StringBuilder json) throws IOException {
+        out.append(json).append('\n');
+    }
+
+    private PreparedStatement statementFor(Op op) throws SQLException {
+        switch (op) {
+            case CREATE:
+                if (insert == null) {
+                    insert = con.prepareStatement(entity.insertSql());
+                }
+                return insert;
+            case UPDATE:
+                if (update == null) {
+                    update = con.prepareStatement(entity.updateSql());
+                }
+                return update;
+            default:
+                if (delete == null) {
+                    delete = con.prepareStatement(entity.deleteSql());
+                }
+                return delete;
+        }
+    }
+
+    private PreparedStatement tombstoneStatement() throws SQLException {
+        if (tombstone == null) {
+            tombstone = con.prepareStatement(entity.tombstoneSql());
+        }
+        return tombstone;
+    }
+
+    private void closeStatements() throws SQLException {
+        for (PreparedStatement ps : new PreparedStatement[]{insert, update, delete, tombstone}) {
+            if (ps != null) {
+                ps.close();
+            }
+        }
+        insert = update = delete = tombstone = null;
+    }
+
+    private static String name(Op op) {
+        return op.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * JSON string literal, or null
+     */
+    public static String quote(String s) {
+        if (s == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * One queued write; row is null for a delete, bytes is the command length
+     */
+    private static final class PendingWrite<T> {
+        private final long lineNo;
+        private final int id;
+        private final T row;
+        private final int bytes;
+
+        private PendingWrite(long lineNo, int id, T row, int bytes) {
+            this.lineNo = lineNo;
+            this.id = id;
+            this.row = row;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Counts for one run
+     */
+    public static class Summary {
+        private final long startNanos = System.nanoTime();
+        private long elapsedNanos;
+        private long commands;
+        private long succeeded;
+        private long failed;
+        private long batches;
+        private CommitPolicy.Stats commitStats;
+
+        public long getCommands() {
+            return commands;
+        }
+
+        public long getSucceeded() {
+            return succeeded;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getBatches() {
+            return batches;
+        }
+
+        public long getCommits() {
+            return commitStats == null ? 0 : commitStats.getCommits();
+        }
+
+        /**
+         * @return commit counts by trigger and commit latency; null before the run ends
+         */
+        public CommitPolicy.Stats getCommitStats() {
+            return commitStats;
+        }
+
+        public double getElapsedSeconds() {
+            return elapsedNanos / 1e9;
+        }
+
+        public double getCommandsPerSecond() {
+            return elapsedNanos == 0 ? 0 : commands / getElapsedSeconds();
+        }
+
+        String toJson() {
+            return String.format(Locale.ROOT,
+                    "{\"summary\":{\"commands\":%d,\"ok\":%d,\"failed\":%d,\"batches\":%d,\"commits\":%d,"
+                            + "\"commitP99Micros\":%d,\"seconds\":%.3f,\"commandsPerSecond\":%.0f}}",
+                    commands, succeeded, failed, batches, getCommits(),
+                    commitStats == null ? 0 : commitStats.getCommitP99Micros(),
+                    getElapsedSeconds(), getCommandsPerSecond());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d commands, %d ok, %d failed, %d batches, %d commits in %.2f s (%.0f/sec)%n%s",
+                    commands, succeeded, failed, batches, getCommits(), getElapsedSeconds(), getCommandsPerSecond(),
+                    commitStats);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.nimbus.cli;
+
+import com.nimbus.jdbc.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Table-specific half of the batch command mode
+ * Supplies the SQL, parsing, binding and JSON rendering that
+ * BatchCommandRunner needs for one table.
+ */
+public interface EntityCommands<T> {
+
+    /**
+     * @return name of the ID field in results, e.g. "ProductID"
+     */
+    String idName();
+
+    String insertSql();
+
+    String updateSql();
+
+    /**
+     * @return DELETE with the ID as its only parameter
+     */
+    String deleteSql();
+
+    /**
+     * @return statement run with the ID after each row a delete removed, in the
+     *         same transaction; null if the table keeps no tombstones
+     */
+    default String tombstoneSql() {
+        return null;
+    }
+
+    /**
+     * @return SELECT with the ID as its only parameter
+     */
+    String selectByIdSql();
+
+    String selectAllSql();
+
+    RowMapper<T> mapper();
+
+    /**
+     * Parse the fields that follow "create" or "update" on a command line
+     * @throws IllegalArgumentException if the fields do not describe a row
+     */
+    T parse(List<String> fields);
+
+    int idOf(T row);
+
+    void bindInsert(PreparedStatement ps, T row) throws SQLException;
+
+    void bindUpdate(PreparedStatement ps, T row) throws SQLException;
+
+    /**
+     * Append the row as a JSON object
+     */
+    void appendJson(StringBuilder json, T row);
+}
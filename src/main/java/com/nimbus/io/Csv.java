@@ -0,0 +1,58 @@
+package com.nimbus.io;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal CSV helpers shared by the importers and sync tools
+ * Fields may be wrapped in double quotes; "" inside quotes is a literal quote.
+ */
+public final class Csv {
+
+    private Csv() {
+    }
+
+    /**
+     * Split one CSV line into its fields
+     */
+    public static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    /**
+     * Quote a field if it contains a comma, quote or line break
+     */
+    public static String escape(String field) {
+        if (field == null) {
+            return "";
+        }
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
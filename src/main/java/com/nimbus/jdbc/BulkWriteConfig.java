@@ -0,0 +1,89 @@
+package com.nimbus.jdbc;
+
+/**
+ * Configuration Class: BulkWriteConfig
+ * Chunking, throttling, progress and checkpoint settings for a ChunkedBulkWrite.
+ */
+public class BulkWriteConfig {
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    // Width of BulkWriteCheckpoint.Name
+    public static final int MAX_CHECKPOINT_NAME = 100;
+
+    // Rows per chunk; each chunk is one transaction
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    // Throttling: sleep between chunks so replicas and other writers keep up
+    private long pauseMillis;
+
+    // Resume: name of the BulkWriteCheckpoint row that holds the last committed key, or null for no checkpoint
+    private String checkpoint;
+
+    // Called after every committed chunk, or null
+    private ChunkedBulkWrite.ProgressListener progressListener;
+
+    // Default Constructor
+    public BulkWriteConfig() {
+    }
+
+    // Parameterized Constructor
+    public BulkWriteConfig(int chunkSize, long pauseMillis) {
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    /**
+     * @throws IllegalArgumentException if any setting is out of range
+     */
+    public void validate() {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        if (pauseMillis < 0) {
+            throw new IllegalArgumentException("pauseMillis must not be negative: " + pauseMillis);
+        }
+        if (checkpoint != null && (checkpoint.isBlank() || checkpoint.length() > MAX_CHECKPOINT_NAME)) {
+            throw new IllegalArgumentException("checkpoint name must be 1-" + MAX_CHECKPOINT_NAME + " characters");
+        }
+    }
+
+    // Getters and Setters
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public long getPauseMillis() {
+        return pauseMillis;
+    }
+
+    public void setPauseMillis(long pauseMillis) {
+        this.pauseMillis = pauseMillis;
+    }
+
+    public String getCheckpoint() {
+        return checkpoint;
+    }
+
+    public void setCheckpoint(String checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public ChunkedBulkWrite.ProgressListener getProgressListener() {
+        return progressListener;
+    }
+
+    public void setProgressListener(ChunkedBulkWrite.ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkWriteConfig{chunkSize=" + chunkSize +
+                ", pauseMillis=" + pauseMillis +
+                ", checkpoint=" + checkpoint +
+                '}';
+    }
+}
@@ -0,0 +1,359 @@
+package com.nimbus.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * DELETE or UPDATE by predicate in key-ordered chunks
+ *
+ * Each chunk is one transaction: the next chunkSize matching keys after the
+ * last processed key are selected and locked (SELECT ... ORDER BY key LIMIT
+ * n FOR UPDATE), then the write covers exactly that key range with the
+ * predicate re-applied, and the chunk commits. Row locks are therefore
+ * held for one chunk at a time instead of for the whole purge, and every
+ * chunk is one short scan of the key index.
+ *
+ * With a checkpoint name configured, the last key is saved to a row of the
+ * BulkWriteCheckpoint table inside each chunk's transaction, so the row and
+ * the chunk commit or roll back together. A run that stops early, through
+ * requestStop(), an interrupt, an error or a crash, leaves the row in
+ * place; running the same operation again resumes after the saved key and
+ * never repeats a committed chunk, so relative updates (Price = Price * ?)
+ * are applied exactly once. The row is deleted with the last chunk. The
+ * table is created by SchemaBootstrap.
+ *
+ * The progress listener is called after each commit.
+ *
+ * The key column must be an integer primary key the SET clause does not change.
+ */
+public class ChunkedBulkWrite {
+
+    /**
+     * Per-chunk callbacks for table-specific bookkeeping
+     */
+    public interface ChunkHook {
+        /**
+         * Runs inside the chunk transaction after its keys are locked and before the write
+         */
+        default void beforeWrite(Connection con, List<Integer> keys) throws SQLException {
+        }
+
+        /**
+         * Runs after the chunk has committed
+         */
+        default void afterCommit(List<Integer> keys) {
+        }
+    }
+
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(Progress progress);
+    }
+
+    private static final ChunkHook NO_HOOK = new ChunkHook() {
+    };
+
+    // Checkpoint rows, written in the chunk transactions
+    static final String SELECT_CHECKPOINT_SQL =
+            "SELECT Operation, LastKey, RowCount, Chunks FROM BulkWriteCheckpoint WHERE Name = ?";
+    static final String SAVE_CHECKPOINT_SQL =
+            "INSERT INTO BulkWriteCheckpoint (Name, Operation, LastKey, RowCount, Chunks) VALUES (?, ?, ?, ?, ?)"
+            + " ON DUPLICATE KEY UPDATE LastKey = VALUES(LastKey), RowCount = VALUES(RowCount),"
+            + " Chunks = VALUES(Chunks)";
+    static final String DELETE_CHECKPOINT_SQL = "DELETE FROM BulkWriteCheckpoint WHERE Name = ?";
+
+    private final String description;
+    private final String selectKeysSql;
+    private final String writeSql;
+    private final List<Object> setParams;
+    private final SqlPredicate where;
+    private final BulkWriteConfig config;
+    private ChunkHook hook = NO_HOOK;
+    private volatile boolean stopRequested;
+
+    private ChunkedBulkWrite(String description, String table, String keyColumn, String writePrefix,
+                             List<?> setParams, SqlPredicate where, BulkWriteConfig config) {
+        config.validate();
+        String key = SqlPredicate.column(keyColumn);
+        this.description = description;
+        this.selectKeysSql = "SELECT " + key + " FROM " + SqlPredicate.column(table) + " WHERE " + key + " > ? AND ("
+                + where.getSql() + ") ORDER BY " + key + " LIMIT ? FOR UPDATE";
+        this.writeSql = writePrefix + " WHERE " + key + " > ? AND " + key + " <= ? AND (" + where.getSql() + ")";
+        this.setParams = Collections.unmodifiableList(new ArrayList<>(setParams));
+        this.where = where;
+        this.config = config;
+    }
+
+    /**
+     * DELETE FROM table WHERE where, chunk by chunk
+     */
+    public static ChunkedBulkWrite delete(String table, String keyColumn, SqlPredicate where,
+                                          BulkWriteConfig config) {
+        return new ChunkedBulkWrite("delete " + table + " where " + where, table, keyColumn,
+                "DELETE FROM " + SqlPredicate.column(table), List.of(), where, config);
+    }
+
+    /**
+     * UPDATE table SET setClause WHERE where, chunk by chunk
+     * @param setClause assignments with ? placeholders, written by the caller (never user input)
+     * @param setParams values for the placeholders in setClause
+     */
+    public static ChunkedBulkWrite update(String table, String keyColumn, String setClause, List<?> setParams,
+                                          SqlPredicate where, BulkWriteConfig config) {
+        return new ChunkedBulkWrite("update " + table + " set " + setClause + " " + setParams + " where " + where,
+                table, keyColumn, "UPDATE " + SqlPredicate.column(table) + " SET " + setClause, setParams, where,
+                config);
+    }
+
+    public ChunkedBulkWrite setChunkHook(ChunkHook hook) {
+        this.hook = hook != null ? hook : NO_HOOK;
+        return this;
+    }
+
+    /**
+     * @return the key SELECT and the write each chunk runs, for plan checks
+     */
+    public List<String> getStatements() {
+        return List.of(selectKeysSql, writeSql);
+    }
+
+    /**
+     * Stop after the chunk in progress commits; the checkpoint is kept for a later resume
+     */
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Run on the given connection, which is switched to manual commit for the run and restored afterwards
+     * @return totals; isComplete() is false if the run was stopped before the last matching row
+     * @throws SQLException if a chunk fails; that chunk and its checkpoint update are rolled back and earlier
+     *         chunks stay committed
+     * @throws IllegalStateException if the checkpoint row belongs to a different operation
+     */
+    public Progress run(Connection con) throws SQLException {
+        String checkpoint = config.getCheckpoint();
+        Progress progress = new Progress(description);
+        int chunkSize = config.getChunkSize();
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(false);
+        try (PreparedStatement select = con.prepareStatement(selectKeysSql);
+             PreparedStatement write = con.prepareStatement(writeSql)) {
+            if (checkpoint != null) {
+                readCheckpoint(con, checkpoint, progress);
+            }
+            while (!stopRequested && !Thread.currentThread().isInterrupted()) {
+                List<Integer> keys = nextKeys(select, progress.lastKey, chunkSize);
+                if (keys.isEmpty()) {
+                    if (checkpoint != null) {
+                        deleteCheckpoint(con, checkpoint);
+                    }
+                    con.commit();
+                    progress.complete = true;
+                    break;
+                }
+                int last = keys.get(keys.size() - 1);
+                // A short chunk is the last one
+                boolean lastChunk = keys.size() < chunkSize;
+                hook.beforeWrite(con, keys);
+                int index = 1;
+                for (Object param : setParams) {
+                    write.setObject(index++, param);
+                }
+                write.setLong(index++, progress.lastKey);
+                write.setLong(index++, last);
+                where.bind(write, index);
+                int rows = write.executeUpdate();
+                if (checkpoint != null) {
+                    if (lastChunk) {
+                        deleteCheckpoint(con, checkpoint);
+                    } else {
+                        saveCheckpoint(con, checkpoint, last, progress.rows + rows, progress.chunks + 1);
+                    }
+                }
+                con.commit();
+
+                progress.chunkCommitted(last, rows);
+                hook.afterCommit(keys);
+                if (config.getProgressListener() != null) {
+                    config.getProgressListener().onProgress(progress.copy());
+                }
+                if (lastChunk) {
+                    progress.complete = true;
+                    break;
+                }
+                pause();
+            }
+        } catch (SQLException | RuntimeException e) {
+            try {
+                con.rollback();
+            } catch (SQLException rb) {
+                e.addSuppressed(rb);
+            }
+            throw e;
+        } finally {
+            con.setAutoCommit(autoCommit);
+        }
+        return progress.copy();
+    }
+
+    private List<Integer> nextKeys(PreparedStatement select, long after, int limit) throws SQLException {
+        select.setLong(1, after);
+        int index = where.bind(select, 2);
+        select.setInt(index, limit);
+        List<Integer> keys = new ArrayList<>(limit);
+        try (ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+                keys.add(rs.getInt(1));
+            }
+        }
+        return keys;
+    }
+
+    private void pause() {
+        if (config.getPauseMillis() == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(config.getPauseMillis());
+        } catch (InterruptedException e) {
+            // Leave the flag set so the loop stops after this committed chunk
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Continue from the checkpoint row an earlier run of the same operation left, if there is one
+     * @throws IllegalStateException if it belongs to a different operation
+     */
+    private void readCheckpoint(Connection con, String name, Progress progress) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(SELECT_CHECKPOINT_SQL)) {
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return;
+                }
+                if (!description.equals(rs.getString(1))) {
+                    throw new IllegalStateException("Checkpoint " + name + " belongs to another operation: "
+                            + rs.getString(1));
+                }
+                progress.lastKey = rs.getLong(2);
+                progress.rows = rs.getLong(3);
+                progress.chunks = rs.getLong(4);
+                progress.resumed = true;
+            }
+        }
+    }
+
+    /**
+     * Record a chunk in the checkpoint row; runs in the chunk's transaction
+     */
+    private void saveCheckpoint(Connection con, String name, long lastKey, long rows, long chunks)
+            throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(SAVE_CHECKPOINT_SQL)) {
+            ps.setString(1, name);
+            ps.setString(2, description);
+            ps.setLong(3, lastKey);
+            ps.setLong(4, rows);
+            ps.setLong(5, chunks);
+            ps.executeUpdate();
+        }
+    }
+
+    private static void deleteCheckpoint(Connection con, String name) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(DELETE_CHECKPOINT_SQL)) {
+            ps.setString(1, name);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Totals of a bulk write, including chunks committed by the run a checkpoint resumed
+     */
+    public static class Progress {
+        private final String operation;
+        private final long startNanos = System.nanoTime();
+        private long lastKey = Long.MIN_VALUE;
+        private long rows;
+        private long chunks;
+        private long rowsThisRun;
+        private long elapsedNanos;
+        private boolean resumed;
+        private boolean complete;
+
+        private Progress(String operation) {
+            this.operation = operation;
+        }
+
+        private void chunkCommitted(long key, int affected) {
+            lastKey = key;
+            rows += affected;
+            rowsThisRun += affected;
+            chunks++;
+        }
+
+        private Progress copy() {
+            Progress copy = new Progress(operation);
+            copy.lastKey = lastKey;
+            copy.rows = rows;
+            copy.chunks = chunks;
+            copy.rowsThisRun = rowsThisRun;
+            copy.elapsedNanos = System.nanoTime() - startNanos;
+            copy.resumed = resumed;
+            copy.complete = complete;
+            return copy;
+        }
+
+        // Getters
+        public String getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return last key of the last committed chunk, or null if none has committed
+         */
+        public Long getLastKey() {
+            return lastKey == Long.MIN_VALUE ? null : lastKey;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getChunks() {
+            return chunks;
+        }
+
+        public double getElapsedSeconds() {
+            return elapsedNanos / 1e9;
+        }
+
+        /**
+         * @return rows per second in this run, excluding rows done before a resume
+         */
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rowsThisRun / getElapsedSeconds();
+        }
+
+        public boolean isResumed() {
+            return resumed;
+        }
+
+        public boolean isComplete() {
+            return complete;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s: %d rows in %d chunks, last key %s, %.1f s (%.0f rows/sec)%s%s",
+                    operation, rows, chunks, getLastKey(), getElapsedSeconds(), getRowsPerSecond(),
+                    resumed ? ", resumed" : "", complete ? ", complete" : ", stopped");
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.nimbus.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * A commit failed and the whole transaction was rolled back,
+ * as opposed to a single statement failing under its savepoint.
+ */
+public class CommitFailedException extends SQLException {
+
+    private final int discardedOps;
+
+    public CommitFailedException(int discardedOps, SQLException cause) {
+        super("Commit failed, " + discardedOps + " uncommitted write(s) rolled back: " + cause.getMessage(),
+                cause.getSQLState(), cause.getErrorCode(), cause);
+        this.discardedOps = discardedOps;
+    }
+
+    /**
+     * @return writes lost with the transaction, including the one that triggered the commit
+     */
+    public int getDiscardedOps() {
+        return discardedOps;
+    }
+}
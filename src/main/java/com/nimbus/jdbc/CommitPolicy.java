@@ -0,0 +1,469 @@
+package com.nimbus.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for a manual-commit connection
+ *
+ * Writes accumulate in one transaction until maxOps statements, maxMillis
+ * since the first uncommitted write or maxBytes of estimated row data is
+ * reached, whichever comes first; then the transaction is committed. This
+ * keeps row locks short without paying a log flush per statement.
+ *
+ * Each write passed to execute runs inside its own savepoint, so a failed
+ * statement is rolled back alone and the earlier pending writes stay in
+ * the transaction. A failed commit is different: the whole transaction is
+ * rolled back and a CommitFailedException reports how many writes were
+ * lost.
+ *
+ * The op and byte limits are checked after every write. The time limit
+ * is checked there too, and by a background timer when startTimer() is
+ * called, for callers that can sit idle between writes (an interactive
+ * session). The timer commits on the same connection, so with the timer
+ * running every statement on it must go through execute or read, which
+ * hold the policy's lock.
+ *
+ * A limit of 0 disables that trigger; with all three at 0 only commit()
+ * and close() commit.
+ */
+public class CommitPolicy implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_OPS = 500;
+    public static final long DEFAULT_MAX_MILLIS = 200;
+    public static final long DEFAULT_MAX_BYTES = 1 << 20;
+
+    private enum Reason { OPS, TIME, BYTES, EXPLICIT }
+
+    /**
+     * Statement work run under the policy
+     */
+    @FunctionalInterface
+    public interface SqlWork<R> {
+        R run() throws SQLException;
+    }
+
+    private final Connection con;
+    private final int maxOps;
+    private final long maxMillis;
+    private final long maxBytes;
+
+    // Guarded by this
+    private int pendingOps;
+    private long pendingBytes;
+    private long firstOpNanos;
+    private ScheduledExecutorService timer;
+    private ScheduledFuture<?> deadline;
+    private boolean closed;
+
+    // Statistics, guarded by this except the histogram
+    private final LatencyHistogram commitLatency = new LatencyHistogram();
+    private final long[] commitsBy = new long[Reason.values().length];
+    private long opsCommitted;
+    private long bytesCommitted;
+    private long rollbacks;
+    private long statementsRolledBack;
+    private long failedCommits;
+    private String lastError;
+
+    public CommitPolicy(Connection con) throws SQLException {
+        this(con, DEFAULT_MAX_OPS, DEFAULT_MAX_MILLIS, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param con connection to commit; switched to manual commit
+     * @param maxOps writes per transaction, or 0 for no limit
+     * @param maxMillis age of the oldest uncommitted write before a commit, or 0 for no limit
+     * @param maxBytes estimated bytes written per transaction, or 0 for no limit
+     */
+    public CommitPolicy(Connection con, int maxOps, long maxMillis, long maxBytes) throws SQLException {
+        if (maxOps < 0 || maxMillis < 0 || maxBytes < 0) {
+            throw new IllegalArgumentException("Commit limits must not be negative");
+        }
+        this.con = con;
+        this.maxOps = maxOps;
+        this.maxMillis = maxMillis;
+        this.maxBytes = maxBytes;
+        con.setAutoCommit(false);
+    }
+
+    /**
+     * Build a policy from "ops=N,ms=T,bytes=B"; omitted keys keep their defaults
+     */
+    public static CommitPolicy parse(Connection con, String spec) throws SQLException {
+        int ops = DEFAULT_MAX_OPS;
+        long millis = DEFAULT_MAX_MILLIS;
+        long bytes = DEFAULT_MAX_BYTES;
+        if (spec != null && !spec.isBlank()) {
+            for (String part : spec.split(",")) {
+                String[] kv = part.split("=");
+                if (kv.length != 2) {
+                    throw new IllegalArgumentException("Bad commit policy entry: " + part);
+                }
+                String value = kv[1].trim();
+                switch (kv[0].trim().toLowerCase(Locale.ROOT)) {
+                    case "ops" -> ops = Integer.parseInt(value);
+                    case "ms" -> millis = Long.parseLong(value);
+                    case "bytes" -> bytes = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("Unknown commit policy key: " + kv[0]);
+                }
+            }
+        }
+        return new CommitPolicy(con, ops, millis, bytes);
+    }
+
+    /**
+     * Commit from a background thread once maxMillis has passed since the first uncommitted write
+     */
+    public synchronized void startTimer() {
+        if (maxMillis == 0 || timer != null || closed) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "nimbus-commit-policy");
+            t.setDaemon(true);
+            return t;
+        });
+        if (pendingOps > 0) {
+            scheduleDeadline();
+        }
+    }
+
+    /**
+     * Run one write inside a savepoint and count it towards the limits
+     * @param bytes estimated size of the data written
+     * @throws CommitFailedException if the write succeeded but the commit it triggered failed;
+     *         the whole transaction, this write included, was rolled back
+     * @throws SQLException from the work, after rolling back to the savepoint;
+     *         earlier uncommitted writes are kept
+     */
+    public synchronized <R> R execute(long bytes, SqlWork<R> work) throws SQLException {
+        checkOpen();
+        Savepoint savepoint = con.setSavepoint();
+        R result;
+        try {
+            result = work.run();
+        } catch (SQLException | RuntimeException e) {
+            try {
+                con.rollback(savepoint);
+                statementsRolledBack++;
+            } catch (SQLException rb) {
+                e.addSuppressed(rb);
+            }
+            throw e;
+        }
+        con.releaseSavepoint(savepoint);
+        recordOps(1, bytes);
+        return result;
+    }
+
+    /**
+     * Count writes the caller already ran on the connection (e.g. a batch it
+     * protected with its own savepoint) and commit if a limit is reached
+     * @return true if this call committed
+     * @throws CommitFailedException if the commit failed; every uncommitted write was rolled back
+     */
+    public synchronized boolean recordOps(int ops, long bytes) throws SQLException {
+        checkOpen();
+        if (ops <= 0) {
+            return false;
+        }
+        if (pendingOps == 0) {
+            firstOpNanos = System.nanoTime();
+            scheduleDeadline();
+        }
+        pendingOps += ops;
+        pendingBytes += bytes;
+        Reason reason = due();
+        if (reason != null) {
+            commit(reason);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Run a read under the policy's lock, without a savepoint and without counting it
+     */
+    public synchronized <R> R read(SqlWork<R> work) throws SQLException {
+        checkOpen();
+        return work.run();
+    }
+
+    /**
+     * Commit whatever is pending
+     * @return false if nothing was pending
+     * @throws CommitFailedException if the commit failed; every uncommitted write was rolled back
+     */
+    public synchronized boolean commit() throws SQLException {
+        checkOpen();
+        if (pendingOps == 0) {
+            return false;
+        }
+        commit(Reason.EXPLICIT);
+        return true;
+    }
+
+    /**
+     * Roll back every uncommitted write
+     * @return writes discarded
+     */
+    public synchronized int rollback() throws SQLException {
+        checkOpen();
+        int discarded = pendingOps;
+        try {
+            con.rollback();
+        } finally {
+            if (discarded > 0) {
+                rollbacks++;
+            }
+            reset();
+        }
+        return discarded;
+    }
+
+    public synchronized int getPendingOps() {
+        return pendingOps;
+    }
+
+    private Reason due() {
+        if (maxOps > 0 && pendingOps >= maxOps) {
+            return Reason.OPS;
+        }
+        if (maxBytes > 0 && pendingBytes >= maxBytes) {
+            return Reason.BYTES;
+        }
+        if (maxMillis > 0 && System.nanoTime() - firstOpNanos >= TimeUnit.MILLISECONDS.toNanos(maxMillis)) {
+            return Reason.TIME;
+        }
+        return null;
+    }
+
+    private void commit(Reason reason) throws CommitFailedException {
+        long start = System.nanoTime();
+        try {
+            con.commit();
+        } catch (SQLException e) {
+            // The transaction outcome is unknown; start clean rather than commit half of it later
+            failedCommits++;
+            lastError = e.getMessage();
+            CommitFailedException failed = new CommitFailedException(pendingOps, e);
+            try {
+                con.rollback();
+            } catch (SQLException rb) {
+                failed.addSuppressed(rb);
+            }
+            reset();
+            throw failed;
+        }
+        commitLatency.record(System.nanoTime() - start);
+        commitsBy[reason.ordinal()]++;
+        opsCommitted += pendingOps;
+        bytesCommitted += pendingBytes;
+        reset();
+    }
+
+    private void reset() {
+        pendingOps = 0;
+        pendingBytes = 0;
+        if (deadline != null) {
+            deadline.cancel(false);
+            deadline = null;
+        }
+    }
+
+    private void scheduleDeadline() {
+        if (timer != null) {
+            deadline = timer.schedule(this::commitOnDeadline, maxMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void commitOnDeadline() {
+        if (closed || pendingOps == 0 || due() != Reason.TIME) {
+            return;
+        }
+        try {
+            commit(Reason.TIME);
+        } catch (CommitFailedException e) {
+            System.out.println("Error committing on deadline: " + e.getMessage());
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Commit policy is closed");
+        }
+    }
+
+    /**
+     * Stop the timer and commit whatever is pending
+     * @throws CommitFailedException if that commit failed; the pending writes were rolled back
+     */
+    @Override
+    public void close() throws SQLException {
+        ScheduledExecutorService stopped;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            try {
+                if (pendingOps > 0) {
+                    commit(Reason.EXPLICIT);
+                }
+            } finally {
+                closed = true;
+                stopped = timer;
+                timer = null;
+            }
+        }
+        if (stopped != null) {
+            stopped.shutdownNow();
+        }
+    }
+
+    public synchronized Stats getStats() {
+        long commits = 0;
+        for (long n : commitsBy) {
+            commits += n;
+        }
+        return new Stats(pendingOps, commits, commitsBy[Reason.OPS.ordinal()], commitsBy[Reason.TIME.ordinal()],
+                commitsBy[Reason.BYTES.ordinal()], commitsBy[Reason.EXPLICIT.ordinal()], opsCommitted,
+                bytesCommitted, rollbacks, statementsRolledBack, failedCommits,
+                commitLatency.getPercentileNanos(0.50) / 1_000, commitLatency.getPercentileNanos(0.99) / 1_000,
+                commitLatency.getMaxNanos() / 1_000, lastError);
+    }
+
+    /**
+     * Snapshot of commit counters, for tuning the limits
+     */
+    public static class Stats {
+        private final int pendingOps;
+        private final long commits;
+        private final long commitsByOps;
+        private final long commitsByTime;
+        private final long commitsByBytes;
+        private final long explicitCommits;
+        private final long opsCommitted;
+        private final long bytesCommitted;
+        private final long rollbacks;
+        private final long statementsRolledBack;
+        private final long failedCommits;
+        private final long commitP50Micros;
+        private final long commitP99Micros;
+        private final long commitMaxMicros;
+        private final String lastError;
+
+        Stats(int pendingOps, long commits, long commitsByOps, long commitsByTime, long commitsByBytes,
+              long explicitCommits, long opsCommitted, long bytesCommitted, long rollbacks,
+              long statementsRolledBack, long failedCommits, long commitP50Micros, long commitP99Micros,
+              long commitMaxMicros, String lastError) {
+            this.pendingOps = pendingOps;
+            this.commits = commits;
+            this.commitsByOps = commitsByOps;
+            this.commitsByTime = commitsByTime;
+            this.commitsByBytes = commitsByBytes;
+            this.explicitCommits = explicitCommits;
+            this.opsCommitted = opsCommitted;
+            this.bytesCommitted = bytesCommitted;
+            this.rollbacks = rollbacks;
+            this.statementsRolledBack = statementsRolledBack;
+            this.failedCommits = failedCommits;
+            this.commitP50Micros = commitP50Micros;
+            this.commitP99Micros = commitP99Micros;
+            this.commitMaxMicros = commitMaxMicros;
+            this.lastError = lastError;
+        }
+
+        // Getters
+        public int getPendingOps() {
+            return pendingOps;
+        }
+
+        public long getCommits() {
+            return commits;
+        }
+
+        public long getCommitsByOps() {
+            return commitsByOps;
+        }
+
+        public long getCommitsByTime() {
+            return commitsByTime;
+        }
+
+        public long getCommitsByBytes() {
+            return commitsByBytes;
+        }
+
+        /**
+         * @return commits from commit() and close()
+         */
+        public long getExplicitCommits() {
+            return explicitCommits;
+        }
+
+        public long getOpsCommitted() {
+            return opsCommitted;
+        }
+
+        public long getBytesCommitted() {
+            return bytesCommitted;
+        }
+
+        public double getOpsPerCommit() {
+            return commits == 0 ? 0 : (double) opsCommitted / commits;
+        }
+
+        /**
+         * @return rollback() calls that discarded pending writes
+         */
+        public long getRollbacks() {
+            return rollbacks;
+        }
+
+        /**
+         * @return failed writes undone by their savepoint alone
+         */
+        public long getStatementsRolledBack() {
+            return statementsRolledBack;
+        }
+
+        public long getFailedCommits() {
+            return failedCommits;
+        }
+
+        public long getCommitP50Micros() {
+            return commitP50Micros;
+        }
+
+        public long getCommitP99Micros() {
+            return commitP99Micros;
+        }
+
+        public long getCommitMaxMicros() {
+            return commitMaxMicros;
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "CommitPolicy.Stats{commits=%d (ops=%d, time=%d, bytes=%d, explicit=%d), opsPerCommit=%.1f, "
+                            + "bytesCommitted=%d, pending=%d, rollbacks=%d, statementsRolledBack=%d, "
+                            + "failedCommits=%d, commitP50=%dus, commitP99=%dus, commitMax=%dus%s}",
+                    commits, commitsByOps, commitsByTime, commitsByBytes, explicitCommits, getOpsPerCommit(),
+                    bytesCommitted, pendingOps, rollbacks, statementsRolledBack, failedCommits,
+                    commitP50Micros, commitP99Micros, commitMaxMicros,
+                    lastError == null ? "" : ", lastError='" + lastError + "'");
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.nimbus.jdbc;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+
+/**
+ * DataSource wrapper that records JDBC metrics into a SqlMetrics registry
+ *
+ * Connections, statements and result sets are wrapped: getConnection()
+ * records acquire time, each execute*() records latency and rows affected
+ * against its normalized SQL, and result sets count rows read, which are
+ * added when they are closed. Everything else is passed straight through
+ * to the driver. Prepared statements and result sets, whose setters and
+ * getters run per parameter and per column, are plain delegating classes
+ * (InstrumentedPreparedStatement, InstrumentedResultSet); connections and
+ * the rarely used Statement and CallableStatement are dynamic proxies.
+ */
+public class InstrumentedDataSource implements DataSource, AutoCloseable {
+    private final DataSource delegate;
+    private final SqlMetrics metrics;
+
+    public InstrumentedDataSource(DataSource delegate) {
+        this(delegate, SqlMetrics.shared());
+    }
+
+    public InstrumentedDataSource(DataSource delegate, SqlMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    public SqlMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = delegate.getConnection();
+        metrics.recordAcquire(System.nanoTime() - start);
+        return wrap(connection, metrics);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = delegate.getConnection(username, password);
+        metrics.recordAcquire(System.nanoTime() - start);
+        return wrap(connection, metrics);
+    }
+
+    /**
+     * Instrument a connection that was obtained elsewhere (e.g. DriverManager)
+     */
+    public static Connection wrap(Connection connection, SqlMetrics metrics) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection, metrics));
+    }
+
+    /**
+     * Closes the wrapped DataSource if it is closeable (e.g. a PooledDataSource)
+     */
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable) {
+            ((AutoCloseable) delegate).close();
+        }
+    }
+
+    // DataSource boilerplate, delegated
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        if (iface.isInstance(delegate)) {
+            return iface.cast(delegate);
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || iface.isInstance(delegate) || delegate.isWrapperFor(iface);
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Object handleObjectMethods(Object proxy, Object target, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return "Instrumented[" + target + "]";
+        }
+    }
+
+    private static boolean isObjectMethod(Method method) {
+        return method.getDeclaringClass() == Object.class;
+    }
+
+    /**
+     * Wraps every statement the connection creates
+     */
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final SqlMetrics metrics;
+
+        private ConnectionHandler(Connection target, SqlMetrics metrics) {
+            this.target = target;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isObjectMethod(method)) {
+                return handleObjectMethods(proxy, target, method, args);
+            }
+            Object result = invokeTarget(target, method, args);
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return new InstrumentedPreparedStatement((PreparedStatement) result,
+                            metrics.statsFor((String) args[0]), metrics, (Connection) proxy);
+                case "prepareCall":
+                    return wrapStatement(CallableStatement.class, result, metrics.statsFor((String) args[0]),
+                            (Connection) proxy);
+                case "createStatement":
+                    return wrapStatement(Statement.class, result, null, (Connection) proxy);
+                default:
+                    return result;
+            }
+        }
+
+        private Object wrapStatement(Class<?> type, Object statement, StatementStats stats, Connection owner) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    new StatementHandler((Statement) statement, stats, metrics, owner));
+        }
+    }
+
+    /**
+     * Times executions; stats is null for plain Statements, whose SQL arrives per call
+     */
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final StatementStats preparedStats;
+        private final SqlMetrics metrics;
+        private final Connection owner;
+        private InstrumentedResultSet openResultSet;
+
+        private StatementHandler(Statement target, StatementStats preparedStats, SqlMetrics metrics, Connection owner) {
+            this.target = target;
+            this.preparedStats = preparedStats;
+            this.metrics = metrics;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isObjectMethod(method)) {
+                return handleObjectMethods(proxy, target, method, args);
+            }
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                if (name.equals("close")) {
+                    flushRows();
+                } else if (name.equals("getConnection")) {
+                    return owner;
+                }
+                return invokeTarget(target, method, args);
+            }
+
+            StatementStats stats = preparedStats;
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                stats = metrics.statsFor((String) args[0]);
+            } else if (stats == null) {
+                stats = metrics.statsFor("<statement batch>");
+            }
+            flushRows();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invokeTarget(target, method, args);
+            } catch (Throwable e) {
+                metrics.recordExecution(stats, System.nanoTime() - start, -1, true);
+                throw e;
+            }
+            long elapsed = System.nanoTime() - start;
+            if (result instanceof ResultSet) {
+                metrics.recordExecution(stats, elapsed, -1, false);
+                openResultSet = new InstrumentedResultSet((ResultSet) result, stats, (Statement) proxy);
+                return openResultSet;
+            }
+            metrics.recordExecution(stats, elapsed, rowsOf(result), false);
+            return result;
+        }
+
+        private void flushRows() {
+            if (openResultSet != null) {
+                openResultSet.flush();
+                openResultSet = null;
+            }
+        }
+    }
+
+    /**
+     * Rows affected by an execute*() result: an update count or the sum of a batch's counts, else -1
+     */
+    static long rowsOf(Object result) {
+        if (result instanceof Integer || result instanceof Long) {
+            return ((Number) result).longValue();
+        }
+        long rows = 0;
+        if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                rows += Math.max(count, 0);
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                rows += Math.max(count, 0);
+            }
+        } else {
+            return -1;
+        }
+        return rows;
+    }
+}
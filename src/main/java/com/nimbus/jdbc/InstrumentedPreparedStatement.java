@@ -0,0 +1,841 @@
+package com.nimbus.jdbc;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+/**
+ * PreparedStatement wrapper for InstrumentedDataSource that times executions
+ *
+ * Like InstrumentedResultSet, a plain delegating class: parameter setters run
+ * once per placeholder per execution and are forwarded directly. Each
+ * execute*() records latency and rows affected against the prepared SQL, or
+ * against the SQL passed in for the Statement variants, and its result set
+ * counts rows read.
+ */
+final class InstrumentedPreparedStatement implements PreparedStatement {
+    private final PreparedStatement target;
+    private final StatementStats stats;
+    private final SqlMetrics metrics;
+    private final Connection owner;
+    private InstrumentedResultSet openResultSet;
+
+    InstrumentedPreparedStatement(PreparedStatement target, StatementStats stats, SqlMetrics metrics,
+                                  Connection owner) {
+        this.target = target;
+        this.stats = stats;
+        this.metrics = metrics;
+        this.owner = owner;
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        long start = begin();
+        ResultSet rs;
+        try {
+            rs = target.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            failed(stats, start);
+            throw e;
+        }
+        return opened(stats, start, rs);
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        long start = begin();
+        int count;
+        try {
+            count = target.executeUpdate();
+        } catch (SQLException | RuntimeException e) {
+            failed(stats, start);
+            throw e;
+        }
+        done(stats, start, count);
+        return count;
+    }
+
+    @Override
+    public long executeLargeUpdate() throws SQLException {
+        long start = begin();
+        long count;
+        try {
+            count = target.executeLargeUpdate();
+        } catch (SQLException | RuntimeException e) {
+            failed(stats, start);
+            throw e;
+        }
+        done(stats, start, count);
+        return count;
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        long start = begin();
+        boolean result;
+        try {
+            result = target.execute();
+        } catch (SQLException | RuntimeException e) {
+            failed(stats, start);
+            throw e;
+        }
+        done(stats, start, -1);
+        return result;
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        long start = begin();
+        int[] counts;
+        try {
+            counts = target.executeBatch();
+        } catch (SQLException | RuntimeException e) {
+            failed(stats, start);
+            throw e;
+        }
+        done(stats, start, InstrumentedDataSource.rowsOf(counts));
+        return counts;
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        long start = begin();
+        long[] counts;
+        try {
+            counts = target.executeLargeBatch();
+        } catch (SQLException | RuntimeException e) {
+            failed(stats, start);
+            throw e;
+        }
+        done(stats, start, InstrumentedDataSource.rowsOf(counts));
+        return counts;
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        StatementStats s = metrics.statsFor(sql);
+        long start = begin();
+        ResultSet rs;
+        try {
+            rs = target.executeQuery(sql);
+        } catch (SQLException | RuntimeException e) {
+            failed(s, start);
+            throw e;
+        }
+        return opened(s, start, rs);
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        StatementStats s = metrics.statsFor(sql);
+        long start = begin();
+        int count;
+        try {
+            count = target.executeUpdate(sql);
+        } catch (SQLException | RuntimeException e) {
+            failed(s, start);
+            throw e;
+        }
+        done(s, start, count);
+        return count;
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql) throws SQLException {
+        StatementStats s = metrics.statsFor(sql);
+        long start = begin();
+        long count;
+        try {
+            count = target.executeLargeUpdate(sql);
+        } catch (SQLException | RuntimeException e) {
+            failed(s, start);
+            throw e;
+        }
+        done(s, start, count);
+        return count;
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        StatementStats s = metrics.statsFor(sql);
+        long start = begin();
+        boolean result;
+        try {
+            result = target.execute(sql);
+        } catch (SQLException | RuntimeException e) {
+            failed(s, start);
+            throw e;
+        }
+        done(s, start, -1);
+        return result;
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        StatementStats s = metrics.statsFor(sql);
+        long start = begin();
+        int count;
+        try {
+            count = target.executeUpdate(sql, autoGeneratedKeys);
+        } catch (SQLException | RuntimeException e) {
+            failed(s, start);
+            throw e;
+        }
+        done(s, start, count);
+        return count;
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        StatementStats s = metrics.statsFor(sql);
+        long start = begin();
+        long count;
+        try {
+            count = target.executeLargeUpdate(sql, autoGeneratedKeys);
+        } catch (SQLException | RuntimeException e) {
+            failed(s, start);
+            throw e;
+        }
+        done(s, start, count);
+        return count;
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        StatementStats s = metrics.statsFor(sql);
+        long start = begin();
+        boolean result;
+        try {
+            result = target.execute(sql, autoGeneratedKeys);
+        } catch (SQLException | RuntimeException e) {
+            failed(s, start);
+            throw e;
+        }
+        done(s, start, -1);
+        return result;
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        StatementStats s = metrics.statsFor(sql);
+        long start = begin();
+        int count;
+        try {
+            count = target.executeUpdate(sql, columnIndexes);
+        } catch (SQLException | RuntimeException e) {
+            failed(s, start);
+            throw e;
+        }
+        done(s, start, count);
+        return count;
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        StatementStats s = metrics.statsFor(sql);
+        long start = begin();
+        long count;
+        try {
+            count = target.executeLargeUpdate(sql, columnIndexes);
+        } catch (SQLException | RuntimeException e) {
+            failed(s, start);
+            throw e;
+        }
+        done(s, start, count);
+        return count;
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        StatementStats s = metrics.statsFor(sql);
+        long start = begin();
+        boolean result;
+        try {
+            result = target.execute(sql, columnIndexes);
+        } catch (SQLException | RuntimeException e) {
+            failed(s, start);
+            throw e;
+        }
+        done(s, start, -1);
+        return result;
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        StatementStats s = metrics.statsFor(sql);
+        long start = begin();
+        int count;
+        try {
+            count = target.executeUpdate(sql, columnNames);
+        } catch (SQLException | RuntimeException e) {
+            failed(s, start);
+            throw e;
+        }
+        done(s, start, count);
+        return count;
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+        StatementStats s = metrics.statsFor(sql);
+        long start = begin();
+        long count;
+        try {
+            count = target.executeLargeUpdate(sql, columnNames);
+        } catch (SQLException | RuntimeException e) {
+            failed(s, start);
+            throw e;
+        }
+        done(s, start, count);
+        return count;
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        StatementStats s = metrics.statsFor(sql);
+        long start = begin();
+        boolean result;
+        try {
+            result = target.execute(sql, columnNames);
+        } catch (SQLException | RuntimeException e) {
+            failed(s, start);
+            throw e;
+        }
+        done(s, start, -1);
+        return result;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        flushRows();
+        target.close();
+    }
+
+    @Override
+    public Connection getConnection() {
+        return owner;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        if (iface.isInstance(target)) {
+            return iface.cast(target);
+        }
+        return target.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || iface.isInstance(target) || target.isWrapperFor(iface);
+    }
+
+    /**
+     * Report the rows of the previous result set, which the next execution closes, and start the clock
+     */
+    private long begin() {
+        flushRows();
+        return System.nanoTime();
+    }
+
+    private void failed(StatementStats s, long start) {
+        metrics.recordExecution(s, System.nanoTime() - start, -1, true);
+    }
+
+    private void done(StatementStats s, long start, long rows) {
+        metrics.recordExecution(s, System.nanoTime() - start, rows, false);
+    }
+
+    private ResultSet opened(StatementStats s, long start, ResultSet rs) {
+        metrics.recordExecution(s, System.nanoTime() - start, -1, false);
+        openResultSet = new InstrumentedResultSet(rs, s, this);
+        return openResultSet;
+    }
+
+    private void flushRows() {
+        if (openResultSet != null) {
+            openResultSet.flush();
+            openResultSet = null;
+        }
+    }
+
+    // Everything else is forwarded as is
+
+    @Override
+    public void addBatch() throws SQLException {
+        target.addBatch();
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        target.addBatch(sql);
+    }
+
+    @Override
+    public void cancel() throws SQLException {
+        target.cancel();
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        target.clearBatch();
+    }
+
+    @Override
+    public void clearParameters() throws SQLException {
+        target.clearParameters();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        target.clearWarnings();
+    }
+
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        target.closeOnCompletion();
+    }
+
+    @Override
+    public String enquoteIdentifier(String identifier, boolean alwaysQuote) throws SQLException {
+        return target.enquoteIdentifier(identifier, alwaysQuote);
+    }
+
+    @Override
+    public String enquoteLiteral(String val) throws SQLException {
+        return target.enquoteLiteral(val);
+    }
+
+    @Override
+    public String enquoteNCharLiteral(String val) throws SQLException {
+        return target.enquoteNCharLiteral(val);
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        return target.getFetchDirection();
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        return target.getFetchSize();
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        return target.getGeneratedKeys();
+    }
+
+    @Override
+    public long getLargeMaxRows() throws SQLException {
+        return target.getLargeMaxRows();
+    }
+
+    @Override
+    public long getLargeUpdateCount() throws SQLException {
+        return target.getLargeUpdateCount();
+    }
+
+    @Override
+    public int getMaxFieldSize() throws SQLException {
+        return target.getMaxFieldSize();
+    }
+
+    @Override
+    public int getMaxRows() throws SQLException {
+        return target.getMaxRows();
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        return target.getMetaData();
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        return target.getMoreResults();
+    }
+
+    @Override
+    public boolean getMoreResults(int current) throws SQLException {
+        return target.getMoreResults(current);
+    }
+
+    @Override
+    public ParameterMetaData getParameterMetaData() throws SQLException {
+        return target.getParameterMetaData();
+    }
+
+    @Override
+    public int getQueryTimeout() throws SQLException {
+        return target.getQueryTimeout();
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        return target.getResultSet();
+    }
+
+    @Override
+    public int getResultSetConcurrency() throws SQLException {
+        return target.getResultSetConcurrency();
+    }
+
+    @Override
+    public int getResultSetHoldability() throws SQLException {
+        return target.getResultSetHoldability();
+    }
+
+    @Override
+    public int getResultSetType() throws SQLException {
+        return target.getResultSetType();
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        return target.getUpdateCount();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return target.getWarnings();
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws SQLException {
+        return target.isCloseOnCompletion();
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return target.isClosed();
+    }
+
+    @Override
+    public boolean isPoolable() throws SQLException {
+        return target.isPoolable();
+    }
+
+    @Override
+    public boolean isSimpleIdentifier(String identifier) throws SQLException {
+        return target.isSimpleIdentifier(identifier);
+    }
+
+    @Override
+    public void setArray(int parameterIndex, Array x) throws SQLException {
+        target.setArray(parameterIndex, x);
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        target.setAsciiStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        target.setAsciiStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+        target.setAsciiStream(parameterIndex, x);
+    }
+
+    @Override
+    public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+        target.setBigDecimal(parameterIndex, x);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        target.setBinaryStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        target.setBinaryStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+        target.setBinaryStream(parameterIndex, x);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream x, long length) throws SQLException {
+        target.setBlob(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream x) throws SQLException {
+        target.setBlob(parameterIndex, x);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, Blob x) throws SQLException {
+        target.setBlob(parameterIndex, x);
+    }
+
+    @Override
+    public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+        target.setBoolean(parameterIndex, x);
+    }
+
+    @Override
+    public void setByte(int parameterIndex, byte x) throws SQLException {
+        target.setByte(parameterIndex, x);
+    }
+
+    @Override
+    public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+        target.setBytes(parameterIndex, x);
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader x, int length) throws SQLException {
+        target.setCharacterStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader x, long length) throws SQLException {
+        target.setCharacterStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader x) throws SQLException {
+        target.setCharacterStream(parameterIndex, x);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader x, long length) throws SQLException {
+        target.setClob(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader x) throws SQLException {
+        target.setClob(parameterIndex, x);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Clob x) throws SQLException {
+        target.setClob(parameterIndex, x);
+    }
+
+    @Override
+    public void setCursorName(String name) throws SQLException {
+        target.setCursorName(name);
+    }
+
+    @Override
+    public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+        target.setDate(parameterIndex, x, cal);
+    }
+
+    @Override
+    public void setDate(int parameterIndex, Date x) throws SQLException {
+        target.setDate(parameterIndex, x);
+    }
+
+    @Override
+    public void setDouble(int parameterIndex, double x) throws SQLException {
+        target.setDouble(parameterIndex, x);
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        target.setEscapeProcessing(enable);
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        target.setFetchDirection(direction);
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        target.setFetchSize(rows);
+    }
+
+    @Override
+    public void setFloat(int parameterIndex, float x) throws SQLException {
+        target.setFloat(parameterIndex, x);
+    }
+
+    @Override
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        target.setInt(parameterIndex, x);
+    }
+
+    @Override
+    public void setLargeMaxRows(long max) throws SQLException {
+        target.setLargeMaxRows(max);
+    }
+
+    @Override
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        target.setLong(parameterIndex, x);
+    }
+
+    @Override
+    public void setMaxFieldSize(int max) throws SQLException {
+        target.setMaxFieldSize(max);
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        target.setMaxRows(max);
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader x, long length) throws SQLException {
+        target.setNCharacterStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader x) throws SQLException {
+        target.setNCharacterStream(parameterIndex, x);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader x, long length) throws SQLException {
+        target.setNClob(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader x) throws SQLException {
+        target.setNClob(parameterIndex, x);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, NClob x) throws SQLException {
+        target.setNClob(parameterIndex, x);
+    }
+
+    @Override
+    public void setNString(int parameterIndex, String x) throws SQLException {
+        target.setNString(parameterIndex, x);
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        target.setNull(parameterIndex, sqlType, typeName);
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        target.setNull(parameterIndex, sqlType);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+        target.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+        target.setObject(parameterIndex, x, targetSqlType);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+        target.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+        target.setObject(parameterIndex, x, targetSqlType);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x) throws SQLException {
+        target.setObject(parameterIndex, x);
+    }
+
+    @Override
+    public void setPoolable(boolean poolable) throws SQLException {
+        target.setPoolable(poolable);
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        target.setQueryTimeout(seconds);
+    }
+
+    @Override
+    public void setRef(int parameterIndex, Ref x) throws SQLException {
+        target.setRef(parameterIndex, x);
+    }
+
+    @Override
+    public void setRowId(int parameterIndex, RowId x) throws SQLException {
+        target.setRowId(parameterIndex, x);
+    }
+
+    @Override
+    public void setSQLXML(int parameterIndex, SQLXML x) throws SQLException {
+        target.setSQLXML(parameterIndex, x);
+    }
+
+    @Override
+    public void setShort(int parameterIndex, short x) throws SQLException {
+        target.setShort(parameterIndex, x);
+    }
+
+    @Override
+    public void setString(int parameterIndex, String x) throws SQLException {
+        target.setString(parameterIndex, x);
+    }
+
+    @Override
+    public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+        target.setTime(parameterIndex, x, cal);
+    }
+
+    @Override
+    public void setTime(int parameterIndex, Time x) throws SQLException {
+        target.setTime(parameterIndex, x);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+        target.setTimestamp(parameterIndex, x, cal);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+        target.setTimestamp(parameterIndex, x);
+    }
+
+    @Override
+    public void setURL(int parameterIndex, URL x) throws SQLException {
+        target.setURL(parameterIndex, x);
+    }
+
+    @Deprecated
+    @Override
+    public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        target.setUnicodeStream(parameterIndex, x, length);
+    }
+}
@@ -0,0 +1,126 @@
+package com.nimbus.jdbc;
+
+/**
+ * Configuration Class: PoolConfig
+ * Sizing and lifecycle settings for a PooledDataSource.
+ * All durations are in milliseconds.
+ */
+public class PoolConfig {
+    // Pool sizing
+    private int minSize = 2;
+    private int maxSize = 10;
+
+    // Lifecycle settings
+    private long borrowTimeoutMillis = 5_000;
+    private long idleTimeoutMillis = 60_000;
+    private long maxLifetimeMillis = 30 * 60_000;
+    private long evictionIntervalMillis = 30_000;
+
+    // Validation settings
+    private boolean validateOnBorrow = true;
+    private int validationTimeoutSeconds = 2;
+
+    // Default Constructor
+    public PoolConfig() {
+    }
+
+    // Parameterized Constructor
+    public PoolConfig(int minSize, int maxSize) {
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Check that the settings are consistent before a pool is built from them
+     * @throws IllegalArgumentException if any setting is out of range
+     */
+    public void validate() {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        if (minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("minSize must be between 0 and maxSize: " + minSize);
+        }
+        if (borrowTimeoutMillis < 0 || idleTimeoutMillis <= 0 || maxLifetimeMillis <= 0
+                || evictionIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Pool timeouts must be positive");
+        }
+    }
+
+    // Getters and Setters
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long getBorrowTimeoutMillis() {
+        return borrowTimeoutMillis;
+    }
+
+    public void setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public long getMaxLifetimeMillis() {
+        return maxLifetimeMillis;
+    }
+
+    public void setMaxLifetimeMillis(long maxLifetimeMillis) {
+        this.maxLifetimeMillis = maxLifetimeMillis;
+    }
+
+    public long getEvictionIntervalMillis() {
+        return evictionIntervalMillis;
+    }
+
+    public void setEvictionIntervalMillis(long evictionIntervalMillis) {
+        this.evictionIntervalMillis = evictionIntervalMillis;
+    }
+
+    public boolean isValidateOnBorrow() {
+        return validateOnBorrow;
+    }
+
+    public void setValidateOnBorrow(boolean validateOnBorrow) {
+        this.validateOnBorrow = validateOnBorrow;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolConfig{" +
+                "minSize=" + minSize +
+                ", maxSize=" + maxSize +
+                ", borrowTimeoutMillis=" + borrowTimeoutMillis +
+                ", idleTimeoutMillis=" + idleTimeoutMillis +
+                ", maxLifetimeMillis=" + maxLifetimeMillis +
+                ", validateOnBorrow=" + validateOnBorrow +
+                '}';
+    }
+}
@@ -0,0 +1,75 @@
+package com.nimbus.jdbc;
+
+/**
+ * Snapshot of PooledDataSource counters at one point in time.
+ * Used to size the pool against real traffic.
+ */
+public class PoolStats {
+    private final int total;
+    private final int active;
+    private final int idle;
+    private final int waiters;
+    private final long borrowCount;
+    private final long timeoutCount;
+    private final long avgBorrowMicros;
+    private final long maxBorrowMicros;
+
+    public PoolStats(int total, int active, int idle, int waiters, long borrowCount,
+                     long timeoutCount, long avgBorrowMicros, long maxBorrowMicros) {
+        this.total = total;
+        this.active = active;
+        this.idle = idle;
+        this.waiters = waiters;
+        this.borrowCount = borrowCount;
+        this.timeoutCount = timeoutCount;
+        this.avgBorrowMicros = avgBorrowMicros;
+        this.maxBorrowMicros = maxBorrowMicros;
+    }
+
+    // Getters
+    public int getTotal() {
+        return total;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getWaiters() {
+        return waiters;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    public long getAvgBorrowMicros() {
+        return avgBorrowMicros;
+    }
+
+    public long getMaxBorrowMicros() {
+        return maxBorrowMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats{" +
+                "total=" + total +
+                ", active=" + active +
+                ", idle=" + idle +
+                ", waiters=" + waiters +
+                ", borrows=" + borrowCount +
+                ", timeouts=" + timeoutCount +
+                ", avgBorrowMicros=" + avgBorrowMicros +
+                ", maxBorrowMicros=" + maxBorrowMicros +
+                '}';
+    }
+}
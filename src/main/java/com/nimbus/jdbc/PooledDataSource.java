@@ -0,0 +1,433 @@
+package com.nimbus.jdbc;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Bounded JDBC connection pool exposed as a DataSource.
+ *
+ * Physical connections are opened through DriverManager and handed out
+ * wrapped in a proxy whose close() returns them to the pool. A fair
+ * semaphore bounds the number of borrowed connections, idle connections
+ * are reused most-recently-used first, and a background evictor closes
+ * connections that sat idle too long or outlived their maximum lifetime.
+ */
+public class PooledDataSource implements DataSource, AutoCloseable {
+
+    // Longest a borrower blocks on the idle deque before re-checking for a free slot
+    private static final long IDLE_WAIT_MILLIS = 10;
+
+    // Connection details
+    private final String url;
+    private final String user;
+    private final String password;
+    private final PoolConfig config;
+
+    // Pool state
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger total = new AtomicInteger();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    // Statistics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong borrowNanosTotal = new AtomicLong();
+    private final AtomicLong borrowNanosMax = new AtomicLong();
+
+    private int loginTimeout;
+    private PrintWriter logWriter;
+
+    public PooledDataSource(String url, String user, String password) {
+        this(url, user, password, new PoolConfig());
+    }
+
+    public PooledDataSource(String url, String user, String password, PoolConfig config) {
+        config.validate();
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "nimbus-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = config.getEvictionIntervalMillis();
+        evictor.scheduleWithFixedDelay(this::evictAndFill, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection, waiting up to the configured borrow timeout
+     * @return a pooled connection; closing it returns it to the pool
+     * @throws SQLTimeoutException if no connection became available in time
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(config.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLTimeoutException("Timed out after " + config.getBorrowTimeoutMillis()
+                        + " ms waiting for a pooled connection (" + getStats() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection", e);
+        }
+
+        try {
+            PooledConnection pc = acquirePhysical();
+            recordBorrow(System.nanoTime() - start);
+            return pc.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pooled connections use the configured credentials");
+    }
+
+    /**
+     * Take an idle connection or open a new one; the caller already holds a permit
+     */
+    private PooledConnection acquirePhysical() throws SQLException {
+        while (true) {
+            PooledConnection pc = idle.pollFirst();
+            if (pc == null) {
+                if (reserveSlot()) {
+                    try {
+                        return open();
+                    } catch (SQLException | RuntimeException e) {
+                        total.decrementAndGet();
+                        throw e;
+                    }
+                }
+                // The evictor is opening the last free slot; block until its connection lands
+                pc = awaitIdle();
+                if (pc == null) {
+                    continue;
+                }
+            }
+            if (pc.isExpired(System.currentTimeMillis()) || !isUsable(pc)) {
+                destroy(pc);
+                continue;
+            }
+            return pc;
+        }
+    }
+
+    /**
+     * Wait on the idle deque for a connection, giving up after a short slice so a slot
+     * freed by a failed open or a destroyed connection is noticed too
+     * @return the connection, or null if none arrived in time
+     */
+    private PooledConnection awaitIdle() throws SQLException {
+        try {
+            return idle.pollFirst(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection", e);
+        }
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        if (!config.isValidateOnBorrow()) {
+            return true;
+        }
+        try {
+            return pc.physical.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = total.get();
+            if (current >= config.getMaxSize()) {
+                return false;
+            }
+            if (total.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        return new PooledConnection(physical);
+    }
+
+    private void destroy(PooledConnection pc) {
+        total.decrementAndGet();
+        try {
+            pc.physical.close();
+        } catch (SQLException e) {
+            // Connection is being discarded anyway
+        }
+    }
+
+    /**
+     * Called by a lease when the application closes its connection
+     */
+    private void giveBack(PooledConnection pc) {
+        try {
+            if (closed || pc.isExpired(System.currentTimeMillis()) || !reset(pc)) {
+                destroy(pc);
+            } else {
+                pc.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(pc);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Undo per-lease state so the next borrower gets a clean connection
+     * @return false if the connection is broken and should be discarded
+     */
+    private boolean reset(PooledConnection pc) {
+        try {
+            Connection c = pc.physical;
+            if (c.isClosed()) {
+                return false;
+            }
+            if (!c.getAutoCommit()) {
+                c.rollback();
+                c.setAutoCommit(true);
+            }
+            if (c.isReadOnly()) {
+                c.setReadOnly(false);
+            }
+            c.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Evictor task: drop idle or aged connections above minSize, then top up to minSize
+     */
+    private void evictAndFill() {
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            PooledConnection pc = it.next();
+            boolean idleTooLong = now - pc.lastUsed > config.getIdleTimeoutMillis()
+                    && total.get() > config.getMinSize();
+            if ((idleTooLong || pc.isExpired(now)) && idle.removeFirstOccurrence(pc)) {
+                destroy(pc);
+            }
+        }
+        while (!closed && total.get() < config.getMinSize() && reserveSlot()) {
+            try {
+                idle.offerLast(open());
+            } catch (SQLException e) {
+                total.decrementAndGet();
+                log("Could not open connection while filling pool: " + e.getMessage());
+                break;
+            }
+        }
+    }
+
+    private void recordBorrow(long nanos) {
+        borrowCount.incrementAndGet();
+        borrowNanosTotal.addAndGet(nanos);
+        borrowNanosMax.accumulateAndGet(nanos, Math::max);
+    }
+
+    private void log(String message) {
+        PrintWriter out = logWriter;
+        if (out != null) {
+            out.println("[PooledDataSource] " + message);
+        }
+    }
+
+    /**
+     * @return current pool counters and borrow latency
+     */
+    public PoolStats getStats() {
+        int idleCount = idle.size();
+        int totalCount = total.get();
+        long borrows = borrowCount.get();
+        long avgMicros = borrows == 0 ? 0 : borrowNanosTotal.get() / borrows / 1_000;
+        return new PoolStats(totalCount, Math.max(0, totalCount - idleCount), idleCount,
+                permits.getQueueLength(), borrows, timeoutCount.get(),
+                avgMicros, borrowNanosMax.get() / 1_000);
+    }
+
+    public PoolConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Find the pool behind a DataSource that may be wrapped (e.g. by InstrumentedDataSource)
+     * @return the pool, or null if the DataSource is not backed by one
+     */
+    public static PooledDataSource unwrapFrom(DataSource dataSource) {
+        try {
+            if (dataSource != null && dataSource.isWrapperFor(PooledDataSource.class)) {
+                return dataSource.unwrap(PooledDataSource.class);
+            }
+        } catch (SQLException e) {
+            // Treated as "no pool"
+        }
+        return null;
+    }
+
+    /**
+     * Close all idle connections and stop the evictor.
+     * Borrowed connections are closed as they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            destroy(pc);
+        }
+    }
+
+    // DataSource boilerplate
+    @Override
+    public PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        this.logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        this.loginTimeout = seconds;
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return loginTimeout;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * A physical connection plus the bookkeeping the pool needs for it
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long lastUsed = createdAt;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private boolean isExpired(long now) {
+            return now - createdAt > config.getMaxLifetimeMillis();
+        }
+
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Lease(this));
+        }
+    }
+
+    /**
+     * Proxy handler for one borrow; close() hands the connection back exactly once
+     */
+    private final class Lease implements InvocationHandler {
+        private PooledConnection pc;
+
+        private Lease(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (pc != null) {
+                        PooledConnection returning = pc;
+                        pc = null;
+                        giveBack(returning);
+                    }
+                    return null;
+                case "isClosed":
+                    return pc == null || pc.physical.isClosed();
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + (pc == null ? "closed" : pc.physical) + "]";
+                default:
+                    break;
+            }
+            if (pc == null) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                return method.invoke(pc.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.nimbus.jdbc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Explicit, ordered column list for one query shape
+ *
+ * Queries select columnList() instead of "*", so a column's position in the
+ * result set is known up front. Mappers call index() once, when they are
+ * built, and then read every row by position with no name lookups.
+ */
+public final class Projection {
+    private final String[] columns;
+    private final String columnList;
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    private Projection(String[] columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("A projection needs at least one column");
+        }
+        this.columns = columns.clone();
+        for (int i = 0; i < columns.length; i++) {
+            if (positions.put(columns[i].toLowerCase(), i + 1) != null) {
+                throw new IllegalArgumentException("Duplicate column: " + columns[i]);
+            }
+        }
+        this.columnList = String.join(", ", columns);
+    }
+
+    public static Projection of(String... columns) {
+        return new Projection(columns);
+    }
+
+    /**
+     * @return the columns separated by ", ", ready to put after SELECT
+     */
+    public String columnList() {
+        return columnList;
+    }
+
+    /**
+     * @return 1-based ResultSet index of the column (case-insensitive)
+     * @throws IllegalArgumentException if the column is not part of the projection
+     */
+    public int index(String column) {
+        Integer position = positions.get(column.toLowerCase());
+        if (position == null) {
+            throw new IllegalArgumentException("Column " + column + " is not in projection [" + columnList + "]");
+        }
+        return position;
+    }
+
+    public int size() {
+        return columns.length;
+    }
+
+    @Override
+    public String toString() {
+        return columnList;
+    }
+}
@@ -0,0 +1,433 @@
+package com.nimbus.jdbc;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Read/write splitting DataSource over one primary and any number of replicas
+ *
+ * getConnection() returns a primary connection unless the caller asked for
+ * a read through readConnection(). Reads are spread round-robin over the
+ * replicas that passed their last health check and are within maxLagMillis
+ * of the primary. A read goes to the primary instead when no replica
+ * qualifies, when borrowing from the chosen replicas fails, or when the same
+ * thread holds a primary connection with autocommit off, so code inside a
+ * transaction never reads older data than it just wrote.
+ *
+ * Background tasks check each replica with Connection.isValid and the
+ * LagProbe every checkIntervalMillis. A replica that fails a borrow is taken
+ * out of rotation until its next successful check.
+ */
+public class RoutingDataSource implements DataSource, AutoCloseable {
+    // System properties read by withReplicasFrom
+    public static final String REPLICAS_PROPERTY = "nimbus.replicas";
+    public static final String MAX_LAG_PROPERTY = "nimbus.replicas.maxLagMillis";
+    public static final String CHECK_INTERVAL_PROPERTY = "nimbus.replicas.checkMillis";
+
+    public static final long DEFAULT_MAX_LAG_MILLIS = 5_000;
+    public static final long DEFAULT_CHECK_INTERVAL_MILLIS = 1_000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    // Set by readConnection for the duration of one getConnection call
+    private static final ThreadLocal<Boolean> READ_INTENT = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final LagProbe lagProbe;
+    private final ScheduledExecutorService checker;
+
+    // Primary connections with autocommit off held by each thread
+    private final ThreadLocal<AtomicInteger> openTransactions = ThreadLocal.withInitial(AtomicInteger::new);
+    private final AtomicInteger next = new AtomicInteger();
+
+    // Statistics
+    private final AtomicLong primaryConnections = new AtomicLong();
+    private final AtomicLong replicaReads = new AtomicLong();
+    private final AtomicLong transactionReads = new AtomicLong();
+    private final AtomicLong fallbackReads = new AtomicLong();
+
+    private int loginTimeout;
+    private PrintWriter logWriter;
+
+    public RoutingDataSource(DataSource primary, List<? extends DataSource> replicas) {
+        this(primary, replicas, DEFAULT_MAX_LAG_MILLIS, DEFAULT_CHECK_INTERVAL_MILLIS, LagProbe.MYSQL);
+    }
+
+    public RoutingDataSource(DataSource primary, List<? extends DataSource> replicas, long maxLagMillis,
+                             long checkIntervalMillis, LagProbe lagProbe) {
+        if (maxLagMillis < 0 || checkIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Invalid replica settings: maxLagMillis=" + maxLagMillis
+                    + ", checkIntervalMillis=" + checkIntervalMillis);
+        }
+        this.primary = primary;
+        this.maxLagMillis = maxLagMillis;
+        this.lagProbe = lagProbe;
+        List<Replica> list = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            list.add(new Replica("replica-" + i, replicas.get(i)));
+        }
+        this.replicas = Collections.unmodifiableList(list);
+        // One checker thread per replica so a hanging replica does not delay the others' checks
+        this.checker = Executors.newScheduledThreadPool(Math.max(1, list.size()), r -> {
+            Thread t = new Thread(r, "nimbus-replica-check");
+            t.setDaemon(true);
+            return t;
+        });
+        for (Replica replica : list) {
+            checker.scheduleWithFixedDelay(() -> check(replica), 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Wrap a primary with pooled replicas listed in -Dnimbus.replicas (comma-separated JDBC URLs)
+     * @return the primary unchanged if no replicas are configured
+     */
+    public static DataSource withReplicasFrom(DataSource primary, String user, String password) {
+        String urls = System.getProperty(REPLICAS_PROPERTY);
+        if (urls == null || urls.isBlank()) {
+            return primary;
+        }
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (!url.isBlank()) {
+                replicas.add(new PooledDataSource(url.trim(), user, password));
+            }
+        }
+        return new RoutingDataSource(primary, replicas,
+                Long.getLong(MAX_LAG_PROPERTY, DEFAULT_MAX_LAG_MILLIS),
+                Long.getLong(CHECK_INTERVAL_PROPERTY, DEFAULT_CHECK_INTERVAL_MILLIS),
+                LagProbe.MYSQL);
+    }
+
+    /**
+     * Borrow a connection for a read that may be served by a replica.
+     * Works through wrappers such as InstrumentedDataSource; any other
+     * DataSource simply returns its usual connection.
+     */
+    public static Connection readConnection(DataSource dataSource) throws SQLException {
+        Boolean previous = READ_INTENT.get();
+        READ_INTENT.set(Boolean.TRUE);
+        try {
+            return dataSource.getConnection();
+        } finally {
+            if (previous == null) {
+                READ_INTENT.remove();
+            } else {
+                READ_INTENT.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (Boolean.TRUE.equals(READ_INTENT.get())) {
+            if (openTransactions.get().get() > 0) {
+                transactionReads.incrementAndGet();
+            } else {
+                Connection replica = replicaConnection();
+                if (replica != null) {
+                    replicaReads.incrementAndGet();
+                    return replica;
+                }
+                fallbackReads.incrementAndGet();
+            }
+        }
+        return primaryConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Routed connections use the configured credentials");
+    }
+
+    /**
+     * Borrow from the next usable replica, trying each at most once
+     * @return a replica connection, or null if none is usable
+     */
+    private Connection replicaConnection() {
+        int count = replicas.size();
+        if (count == 0) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get((start + i) % count);
+            if (!replica.isUsable(maxLagMillis)) {
+                continue;
+            }
+            try {
+                Connection conn = replica.dataSource.getConnection();
+                replica.reads.incrementAndGet();
+                return conn;
+            } catch (SQLException e) {
+                replica.markDown(e.getMessage());
+                log(replica.name + " taken out of rotation: " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private Connection primaryConnection() throws SQLException {
+        Connection conn = primary.getConnection();
+        primaryConnections.incrementAndGet();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new TransactionTracker(conn, openTransactions.get()));
+    }
+
+    /**
+     * Health check task: validate the replica and measure its lag
+     */
+    private void check(Replica replica) {
+        try (Connection conn = replica.dataSource.getConnection()) {
+            if (!conn.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                replica.markDown("Connection is not valid");
+                return;
+            }
+            replica.markUp(lagProbe.lagMillis(conn));
+        } catch (SQLException | RuntimeException e) {
+            replica.markDown(e.getMessage());
+        }
+    }
+
+    private void log(String message) {
+        PrintWriter out = logWriter;
+        if (out != null) {
+            out.println("[RoutingDataSource] " + message);
+        }
+    }
+
+    /**
+     * @return routing counters and the last known state of each replica
+     */
+    public RoutingStats getStats() {
+        List<RoutingStats.ReplicaState> states = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            states.add(new RoutingStats.ReplicaState(replica.name, replica.healthy, replica.lagMillis,
+                    replica.reads.get(), replica.lastError));
+        }
+        return new RoutingStats(primaryConnections.get(), replicaReads.get(), transactionReads.get(),
+                fallbackReads.get(), states);
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    /**
+     * Stop health checks and close the primary and replica DataSources
+     */
+    @Override
+    public void close() {
+        checker.shutdownNow();
+        closeQuietly(primary);
+        for (Replica replica : replicas) {
+            closeQuietly(replica.dataSource);
+        }
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dataSource).close();
+            } catch (Exception e) {
+                System.out.println("Error closing data source: " + e.getMessage());
+            }
+        }
+    }
+
+    // DataSource boilerplate
+    @Override
+    public PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        this.logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        this.loginTimeout = seconds;
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return loginTimeout;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    /**
+     * Unwraps to this router, otherwise to whatever the primary wraps (e.g. its PooledDataSource)
+     */
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        if (iface.isInstance(primary)) {
+            return iface.cast(primary);
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || iface.isInstance(primary) || primary.isWrapperFor(iface);
+    }
+
+    /**
+     * Measures how far a replica is behind the primary
+     */
+    @FunctionalInterface
+    public interface LagProbe {
+        /**
+         * @return lag in milliseconds; Long.MAX_VALUE if the replica is not applying changes
+         */
+        long lagMillis(Connection replica) throws SQLException;
+
+        /**
+         * Treats every reachable replica as current, for databases without replication status
+         */
+        LagProbe NONE = replica -> 0;
+
+        /**
+         * Seconds_Behind_Source from SHOW REPLICA STATUS (SHOW SLAVE STATUS before MySQL 8.0.22).
+         * A server that is not configured as a replica reports no lag.
+         */
+        LagProbe MYSQL = replica -> {
+            try (Statement st = replica.createStatement()) {
+                try (ResultSet rs = st.executeQuery("SHOW REPLICA STATUS")) {
+                    return secondsBehind(rs, "Seconds_Behind_Source");
+                } catch (SQLException e) {
+                    try (ResultSet rs = st.executeQuery("SHOW SLAVE STATUS")) {
+                        return secondsBehind(rs, "Seconds_Behind_Master");
+                    }
+                }
+            }
+        };
+
+        private static long secondsBehind(ResultSet rs, String column) throws SQLException {
+            if (!rs.next()) {
+                return 0;
+            }
+            long seconds = rs.getLong(column);
+            // NULL means the replication SQL thread is not running
+            return rs.wasNull() ? Long.MAX_VALUE : seconds * 1_000;
+        }
+    }
+
+    /**
+     * One replica and its last health check result
+     */
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final AtomicLong reads = new AtomicLong();
+        // Optimistic until the first check says otherwise
+        private volatile boolean healthy = true;
+        private volatile long lagMillis;
+        private volatile String lastError;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private boolean isUsable(long maxLagMillis) {
+            return healthy && lagMillis <= maxLagMillis;
+        }
+
+        private void markUp(long lagMillis) {
+            this.lagMillis = lagMillis;
+            this.healthy = true;
+            this.lastError = null;
+        }
+
+        private void markDown(String error) {
+            this.healthy = false;
+            this.lastError = error;
+        }
+    }
+
+    /**
+     * Counts the owning thread's transactions while this primary connection has autocommit off
+     */
+    private static final class TransactionTracker implements InvocationHandler {
+        private final Connection target;
+        private final AtomicInteger openTransactions;
+        private boolean inTransaction;
+
+        private TransactionTracker(Connection target, AtomicInteger openTransactions) {
+            this.target = target;
+            this.openTransactions = openTransactions;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "setAutoCommit":
+                    Object result = call(method, args);
+                    track(!(Boolean) args[0]);
+                    return result;
+                case "close":
+                    track(false);
+                    break;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            return call(method, args);
+        }
+
+        private Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void track(boolean open) {
+            if (open != inTransaction) {
+                inTransaction = open;
+                if (open) {
+                    openTransactions.incrementAndGet();
+                } else {
+                    openTransactions.decrementAndGet();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.nimbus.jdbc;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Snapshot of RoutingDataSource counters and replica states.
+ * Shows how much read traffic the replicas absorb and why reads fell back.
+ */
+public class RoutingStats {
+    private final long primaryConnections;
+    private final long replicaReads;
+    private final long transactionReads;
+    private final long fallbackReads;
+    private final List<ReplicaState> replicas;
+
+    public RoutingStats(long primaryConnections, long replicaReads, long transactionReads, long fallbackReads,
+                        List<ReplicaState> replicas) {
+        this.primaryConnections = primaryConnections;
+        this.replicaReads = replicaReads;
+        this.transactionReads = transactionReads;
+        this.fallbackReads = fallbackReads;
+        this.replicas = Collections.unmodifiableList(replicas);
+    }
+
+    // Getters
+    /**
+     * @return connections handed out from the primary, for writes and reads alike
+     */
+    public long getPrimaryConnections() {
+        return primaryConnections;
+    }
+
+    public long getReplicaReads() {
+        return replicaReads;
+    }
+
+    /**
+     * @return reads sent to the primary because the thread had a transaction open
+     */
+    public long getTransactionReads() {
+        return transactionReads;
+    }
+
+    /**
+     * @return reads sent to the primary because no replica was healthy and current
+     */
+    public long getFallbackReads() {
+        return fallbackReads;
+    }
+
+    public List<ReplicaState> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public String toString() {
+        return "RoutingStats{primaryConnections=" + primaryConnections +
+                ", replicaReads=" + replicaReads +
+                ", transactionReads=" + transactionReads +
+                ", fallbackReads=" + fallbackReads +
+                ", replicas=" + replicas +
+                '}';
+    }
+
+    /**
+     * Last health check result for one replica
+     */
+    public static class ReplicaState {
+        private final String name;
+        private final boolean healthy;
+        private final long lagMillis;
+        private final long reads;
+        private final String lastError;
+
+        public ReplicaState(String name, boolean healthy, long lagMillis, long reads, String lastError) {
+            this.name = name;
+            this.healthy = healthy;
+            this.lagMillis = lagMillis;
+            this.reads = reads;
+            this.lastError = lastError;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        public long getLagMillis() {
+            return lagMillis;
+        }
+
+        public long getReads() {
+            return reads;
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+
+        @Override
+        public String toString() {
+            return name + "{healthy=" + healthy +
+                    ", lagMillis=" + (lagMillis == Long.MAX_VALUE ? "stopped" : String.valueOf(lagMillis)) +
+                    ", reads=" + reads +
+                    (lastError == null ? "" : ", lastError='" + lastError + '\'') +
+                    '}';
+        }
+    }
+}
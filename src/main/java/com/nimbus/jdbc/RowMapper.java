@@ -0,0 +1,28 @@
+package com.nimbus.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Maps the current row of a ResultSet to an object
+ * Implementations read columns by index, resolved once from a Projection.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    T map(ResultSet rs) throws SQLException;
+
+    /**
+     * Map every remaining row into the list
+     * @return number of rows added
+     */
+    default int mapAll(ResultSet rs, List<? super T> into) throws SQLException {
+        int count = 0;
+        while (rs.next()) {
+            into.add(map(rs));
+            count++;
+        }
+        return count;
+    }
+}
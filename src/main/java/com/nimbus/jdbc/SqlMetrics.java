@@ -0,0 +1,247 @@
+package com.nimbus.jdbc;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of per-statement JDBC metrics
+ *
+ * Statements are keyed by normalized SQL (whitespace collapsed, literals
+ * replaced by ?). Normalization happens once per distinct SQL string, at
+ * prepare time, so executing a statement only costs a clock read and a
+ * few atomic adds. Executions slower than the threshold are written to
+ * the "com.nimbus.jdbc.slowquery" logger.
+ *
+ * The shared instance reads these system properties:
+ *   nimbus.metrics.slowMillis   slow-query threshold (default 200)
+ *   nimbus.metrics.dumpSeconds  print a report to stdout this often (default off)
+ *   nimbus.metrics.jmx          register the MXBean (default true)
+ */
+public class SqlMetrics implements SqlMetricsMXBean {
+    public static final String OBJECT_NAME = "com.nimbus.jdbc:type=SqlMetrics";
+
+    // Caps so unbounded dynamic SQL cannot grow the registry forever
+    private static final int MAX_STATEMENTS = 1_000;
+    private static final int MAX_RAW_SQL = 10_000;
+    private static final String OVERFLOW_KEY = "<other statements>";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Logger SLOW_LOG = Logger.getLogger("com.nimbus.jdbc.slowquery");
+
+    private static volatile SqlMetrics shared;
+
+    private final ConcurrentHashMap<String, StatementStats> byNormalized = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, StatementStats> byRaw = new ConcurrentHashMap<>();
+    private final LatencyHistogram acquire = new LatencyHistogram();
+    private final AtomicLong slowQueries = new AtomicLong();
+    private volatile long slowThresholdNanos;
+    private ScheduledExecutorService dumper;
+
+    public SqlMetrics(long slowQueryThresholdMillis) {
+        setSlowQueryThresholdMillis(slowQueryThresholdMillis);
+    }
+
+    /**
+     * Process-wide instance used by both parts, configured from system properties
+     */
+    public static SqlMetrics shared() {
+        SqlMetrics instance = shared;
+        if (instance == null) {
+            synchronized (SqlMetrics.class) {
+                instance = shared;
+                if (instance == null) {
+                    instance = new SqlMetrics(Long.getLong("nimbus.metrics.slowMillis", 200));
+                    if (Boolean.parseBoolean(System.getProperty("nimbus.metrics.jmx", "true"))) {
+                        instance.registerMBean();
+                    }
+                    long dumpSeconds = Long.getLong("nimbus.metrics.dumpSeconds", 0);
+                    if (dumpSeconds > 0) {
+                        instance.startPeriodicDump(System.out, dumpSeconds * 1_000);
+                    }
+                    shared = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Find or create the stats for a SQL string
+     */
+    public StatementStats statsFor(String sql) {
+        StatementStats stats = byRaw.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        String key = normalize(sql);
+        if (byNormalized.size() >= MAX_STATEMENTS && !byNormalized.containsKey(key)) {
+            key = OVERFLOW_KEY;
+        }
+        stats = byNormalized.computeIfAbsent(key, StatementStats::new);
+        if (byRaw.size() < MAX_RAW_SQL) {
+            byRaw.putIfAbsent(sql, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Collapse whitespace and replace literals so equivalent statements share one entry
+     */
+    public static String normalize(String sql) {
+        String s = STRING_LITERAL.matcher(sql).replaceAll("?");
+        s = NUMBER_LITERAL.matcher(s).replaceAll("?");
+        s = IN_LIST.matcher(s).replaceAll("IN (?)");
+        return WHITESPACE.matcher(s).replaceAll(" ").trim();
+    }
+
+    public void recordAcquire(long nanos) {
+        acquire.record(nanos);
+    }
+
+    /**
+     * Record one execution
+     * @param rows rows affected, or -1 if not known yet (queries count rows on close)
+     */
+    public void recordExecution(StatementStats stats, long nanos, long rows, boolean failed) {
+        boolean slow = nanos >= slowThresholdNanos;
+        stats.record(nanos, rows, failed, slow);
+        if (slow) {
+            slowQueries.incrementAndGet();
+            SLOW_LOG.warning(String.format("Slow query (%.1f ms%s): %s",
+                    nanos / 1e6, failed ? ", failed" : "", stats.getSql()));
+        }
+    }
+
+    /**
+     * Register this instance with the platform MBean server
+     */
+    public void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Another instance owns the name; this one stays reachable through dump()
+        } catch (JMException e) {
+            SLOW_LOG.warning("Could not register " + OBJECT_NAME + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Print dump() to the stream every periodMillis on a daemon thread
+     */
+    public synchronized void startPeriodicDump(PrintStream out, long periodMillis) {
+        if (dumper != null) {
+            dumper.shutdownNow();
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "nimbus-sql-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(() -> out.print(dump()), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopPeriodicDump() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    // SqlMetricsMXBean
+    @Override
+    public List<StatementSnapshot> getStatements() {
+        List<StatementSnapshot> list = new ArrayList<>(byNormalized.size());
+        for (StatementStats stats : byNormalized.values()) {
+            list.add(stats.snapshot());
+        }
+        list.sort(Comparator.comparingLong((StatementSnapshot s) -> s.getMeanMicros() * s.getExecutions()).reversed());
+        return list;
+    }
+
+    @Override
+    public long getConnectionAcquires() {
+        return acquire.getCount();
+    }
+
+    @Override
+    public long getConnectionAcquireP50Micros() {
+        return acquire.getPercentileNanos(0.50) / 1_000;
+    }
+
+    @Override
+    public long getConnectionAcquireP99Micros() {
+        return acquire.getPercentileNanos(0.99) / 1_000;
+    }
+
+    @Override
+    public long getConnectionAcquireMaxMicros() {
+        return acquire.getMaxNanos() / 1_000;
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return slowThresholdNanos / 1_000_000;
+    }
+
+    @Override
+    public void setSlowQueryThresholdMillis(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Slow-query threshold must not be negative: " + millis);
+        }
+        this.slowThresholdNanos = millis * 1_000_000;
+    }
+
+    @Override
+    public long getSlowQueries() {
+        return slowQueries.get();
+    }
+
+    /**
+     * Text report, statements ordered by total time spent
+     */
+    @Override
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        String nl = System.lineSeparator();
+        sb.append("=============================== SQL metrics ===============================").append(nl);
+        sb.append(String.format("Connection acquire: count=%d p50=%dus p99=%dus max=%dus | slow queries: %d (>= %d ms)",
+                getConnectionAcquires(), getConnectionAcquireP50Micros(), getConnectionAcquireP99Micros(),
+                getConnectionAcquireMaxMicros(), getSlowQueries(), getSlowQueryThresholdMillis())).append(nl);
+        sb.append(String.format("%10s %10s %8s %10s %10s %10s  %s", "count", "rows", "errors",
+                "p50(us)", "p99(us)", "max(us)", "sql")).append(nl);
+        sb.append("---------------------------------------------------------------------------").append(nl);
+        for (StatementSnapshot s : getStatements()) {
+            sb.append(String.format("%10d %10d %8d %10d %10d %10d  %s", s.getExecutions(), s.getRows(),
+                    s.getErrors(), s.getP50Micros(), s.getP99Micros(), s.getMaxMicros(), s.getSql())).append(nl);
+        }
+        sb.append("===========================================================================").append(nl);
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        // Entries stay registered because open statements hold references to them
+        for (StatementStats stats : byNormalized.values()) {
+            stats.reset();
+        }
+        acquire.reset();
+        slowQueries.set(0);
+    }
+}
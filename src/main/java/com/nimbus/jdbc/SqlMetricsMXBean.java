@@ -0,0 +1,29 @@
+package com.nimbus.jdbc;
+
+import java.util.List;
+
+/**
+ * JMX view of SqlMetrics, registered as com.nimbus.jdbc:type=SqlMetrics
+ */
+public interface SqlMetricsMXBean {
+
+    List<StatementSnapshot> getStatements();
+
+    long getConnectionAcquires();
+
+    long getConnectionAcquireP50Micros();
+
+    long getConnectionAcquireP99Micros();
+
+    long getConnectionAcquireMaxMicros();
+
+    long getSlowQueryThresholdMillis();
+
+    void setSlowQueryThresholdMillis(long millis);
+
+    long getSlowQueries();
+
+    String dump();
+
+    void reset();
+}
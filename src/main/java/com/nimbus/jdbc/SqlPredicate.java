@@ -0,0 +1,90 @@
+package com.nimbus.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * WHERE condition with its bind parameters, for bulk writes by predicate
+ * Column names must be plain identifiers; values are always bound, never inlined.
+ */
+public final class SqlPredicate {
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private final String sql;
+    private final List<Object> params;
+
+    private SqlPredicate(String sql, List<Object> params) {
+        this.sql = sql;
+        this.params = Collections.unmodifiableList(params);
+    }
+
+    /**
+     * @return predicate matching every row
+     */
+    public static SqlPredicate all() {
+        return new SqlPredicate("1 = 1", List.of());
+    }
+
+    public static SqlPredicate eq(String column, Object value) {
+        return new SqlPredicate(column(column) + " = ?", List.of(value));
+    }
+
+    /**
+     * @return low &lt;= column &lt;= high
+     */
+    public static SqlPredicate between(String column, Object low, Object high) {
+        return new SqlPredicate(column(column) + " BETWEEN ? AND ?", List.of(low, high));
+    }
+
+    public static SqlPredicate lessThan(String column, Object value) {
+        return new SqlPredicate(column(column) + " < ?", List.of(value));
+    }
+
+    public static SqlPredicate atLeast(String column, Object value) {
+        return new SqlPredicate(column(column) + " >= ?", List.of(value));
+    }
+
+    public SqlPredicate and(SqlPredicate other) {
+        List<Object> combined = new ArrayList<>(params);
+        combined.addAll(other.params);
+        return new SqlPredicate("(" + sql + ") AND (" + other.sql + ")", combined);
+    }
+
+    /**
+     * @throws IllegalArgumentException unless name is a plain SQL identifier
+     */
+    static String column(String name) {
+        if (!IDENTIFIER.matcher(name).matches()) {
+            throw new IllegalArgumentException("Not a plain identifier: " + name);
+        }
+        return name;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<Object> getParams() {
+        return params;
+    }
+
+    /**
+     * Bind the parameters starting at index
+     * @return the next free parameter index
+     */
+    public int bind(PreparedStatement ps, int index) throws SQLException {
+        for (Object param : params) {
+            ps.setObject(index++, param);
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return sql + " " + params;
+    }
+}
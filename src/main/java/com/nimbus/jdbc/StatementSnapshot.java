@@ -0,0 +1,71 @@
+package com.nimbus.jdbc;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Point-in-time copy of one statement's counters (latencies in microseconds)
+ * Exposed over JMX as composite data
+ */
+public class StatementSnapshot {
+    private final String sql;
+    private final long executions;
+    private final long rows;
+    private final long errors;
+    private final long slowExecutions;
+    private final long meanMicros;
+    private final long p50Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+
+    @ConstructorProperties({"sql", "executions", "rows", "errors", "slowExecutions",
+            "meanMicros", "p50Micros", "p99Micros", "maxMicros"})
+    public StatementSnapshot(String sql, long executions, long rows, long errors, long slowExecutions,
+                             long meanMicros, long p50Micros, long p99Micros, long maxMicros) {
+        this.sql = sql;
+        this.executions = executions;
+        this.rows = rows;
+        this.errors = errors;
+        this.slowExecutions = slowExecutions;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    // Getters
+    public String getSql() {
+        return sql;
+    }
+
+    public long getExecutions() {
+        return executions;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getSlowExecutions() {
+        return slowExecutions;
+    }
+
+    public long getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+}
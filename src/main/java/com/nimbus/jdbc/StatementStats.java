@@ -0,0 +1,78 @@
+package com.nimbus.jdbc;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution counters for one normalized SQL string
+ */
+public class StatementStats {
+    private final String sql;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder slow = new LongAdder();
+
+    StatementStats(String sql) {
+        this.sql = sql;
+    }
+
+    void record(long nanos, long rowCount, boolean failed, boolean isSlow) {
+        latency.record(nanos);
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+        if (failed) {
+            errors.increment();
+        }
+        if (isSlow) {
+            slow.increment();
+        }
+    }
+
+    /**
+     * Rows read from a result set are only known once it is closed
+     */
+    void addRows(long rowCount) {
+        rows.add(rowCount);
+    }
+
+    void reset() {
+        latency.reset();
+        rows.reset();
+        errors.reset();
+        slow.reset();
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getExecutions() {
+        return latency.getCount();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getSlowExecutions() {
+        return slow.sum();
+    }
+
+    /**
+     * @return immutable copy of the counters, in microseconds
+     */
+    public StatementSnapshot snapshot() {
+        return new StatementSnapshot(sql, getExecutions(), getRows(), getErrors(), getSlowExecutions(),
+                latency.getMeanNanos() / 1_000, latency.getPercentileNanos(0.50) / 1_000,
+                latency.getPercentileNanos(0.99) / 1_000, latency.getMaxNanos() / 1_000);
+    }
+}
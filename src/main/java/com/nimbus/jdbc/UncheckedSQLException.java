@@ -0,0 +1,19 @@
+package com.nimbus.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * Wraps a SQLException thrown from code that cannot declare it,
+ * such as an Iterator or Stream backed by a live ResultSet.
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    public UncheckedSQLException(String message, SQLException cause) {
+        super(message, cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -0,0 +1,39 @@
+package com.nimbus.parta;
+
+/**
+ * Model Class: Employee
+ * Represents one row of the Employee table (EmpID, Name, Salary)
+ */
+public class Employee {
+    private final int empId;
+    private final String name;
+    private final double salary;
+
+    public Employee(int empId, String name, double salary) {
+        this.empId = empId;
+        this.name = name;
+        this.salary = salary;
+    }
+
+    // Getters
+    public int getEmpId() {
+        return empId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getSalary() {
+        return salary;
+    }
+
+    @Override
+    public String toString() {
+        return "Employee{" +
+                "EmpID=" + empId +
+                ", Name='" + name + '\'' +
+                ", Salary=" + salary +
+                '}';
+    }
+}
@@ -0,0 +1,443 @@
+package com.nimbus.parta;
+
+import com.nimbus.io.Csv;
+import com.nimbus.jdbc.UncheckedSQLException;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel, range-partitioned export of the Employee table
+ *
+ * The EmpID key space between MIN(EmpID) and MAX(EmpID) is split into
+ * equal ranges. Each range is streamed in EmpID order on its own
+ * connection by a task in a dedicated fork/join pool and encoded straight
+ * into a large direct buffer that is drained to a FileChannel. Output is
+ * either one file per partition or a single file, built by concatenating
+ * the partition files in range order with FileChannel.transferTo.
+ *
+ * CSV output starts with an "EmpID,Name,Salary" header. Binary output
+ * starts with the magic bytes "NEMP" and a format version (int), followed
+ * by one record per row: EmpID (int), Salary in cents (long), name length
+ * in bytes (unsigned short) and the UTF-8 name. All numbers are big-endian.
+ */
+public class EmployeeExporter {
+
+    public enum Format { CSV, BINARY }
+
+    public static final int BINARY_VERSION = 1;
+    private static final byte[] BINARY_MAGIC = {'N', 'E', 'M', 'P'};
+    private static final byte[] CSV_HEADER = "EmpID,Name,Salary\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final String KEY_RANGE_SQL = "SELECT MIN(EmpID), MAX(EmpID) FROM Employee";
+    private static final String SELECT_RANGE_SQL =
+            "SELECT EmpID, Name, Salary FROM Employee WHERE EmpID BETWEEN ? AND ? ORDER BY EmpID";
+
+    // Direct buffer per partition writer
+    private static final int BUFFER_SIZE = 4 << 20;
+
+    private final DataSource dataSource;
+    private final int partitions;
+    private final Format format;
+    private final int fetchSize;
+
+    /**
+     * @param dataSource source of one connection per partition; it should allow that many at once
+     * @param partitions number of key ranges read in parallel
+     * @param format CSV or BINARY
+     */
+    public EmployeeExporter(DataSource dataSource, int partitions, Format format) {
+        this(dataSource, partitions, format, EmployeeStreamReader.ROW_BY_ROW);
+    }
+
+    /**
+     * @param fetchSize fetch size for each range query, see EmployeeStreamReader
+     */
+    public EmployeeExporter(DataSource dataSource, int partitions, Format format, int fetchSize) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("partitions must be positive: " + partitions);
+        }
+        this.dataSource = dataSource;
+        this.partitions = partitions;
+        this.format = format;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Export to a single file, partitions merged in EmpID order
+     */
+    public ExportReport exportMerged(Path target) throws IOException, SQLException {
+        long start = System.nanoTime();
+        List<Range> ranges = splitKeySpace();
+        List<Path> parts = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            parts.add(target.resolveSibling(target.getFileName() + ".part-" + i + ".tmp"));
+        }
+        try {
+            List<PartitionResult> results = runPartitions(ranges, parts, false);
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(64);
+                putHeader(header);
+                header.flip();
+                while (header.hasRemaining()) {
+                    out.write(header);
+                }
+                for (Path part : parts) {
+                    try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                        long size = in.size();
+                        long position = 0;
+                        while (position < size) {
+                            position += in.transferTo(position, size - position, out);
+                        }
+                    }
+                }
+            }
+            return new ExportReport(results, Collections.singletonList(target), System.nanoTime() - start);
+        } finally {
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+        }
+    }
+
+    /**
+     * Export one file per partition, named target.part-N, each with its own header
+     */
+    public ExportReport exportPartitioned(Path target) throws IOException, SQLException {
+        long start = System.nanoTime();
+        List<Range> ranges = splitKeySpace();
+        List<Path> parts = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            parts.add(target.resolveSibling(target.getFileName() + ".part-" + i));
+        }
+        List<PartitionResult> results = runPartitions(ranges, parts, true);
+        return new ExportReport(results, parts, System.nanoTime() - start);
+    }
+
+    /**
+     * Split [MIN(EmpID), MAX(EmpID)] into at most `partitions` contiguous ranges
+     */
+    private List<Range> splitKeySpace() throws SQLException {
+        long min;
+        long max;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(KEY_RANGE_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            min = rs.getLong(1);
+            if (rs.wasNull()) {
+                return Collections.emptyList();
+            }
+            max = rs.getLong(2);
+        }
+        long span = max - min + 1;
+        int count = (int) Math.min(partitions, span);
+        List<Range> ranges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long lo = min + span * i / count;
+            long hi = min + span * (i + 1) / count - 1;
+            ranges.add(new Range(i, lo, hi));
+        }
+        return ranges;
+    }
+
+    private List<PartitionResult> runPartitions(List<Range> ranges, List<Path> files, boolean withHeader)
+            throws IOException, SQLException {
+        if (ranges.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ForkJoinPool pool = new ForkJoinPool(ranges.size());
+        try {
+            List<PartitionTask> tasks = new ArrayList<>(ranges.size());
+            for (Range range : ranges) {
+                tasks.add(new PartitionTask(range, files.get(range.index), withHeader));
+            }
+            List<PartitionResult> results = new ArrayList<>(tasks.size());
+            for (PartitionTask task : pool.submit(() -> ForkJoinTask.invokeAll(tasks)).get()) {
+                results.add(task.join());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while exporting", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof UncheckedSQLException) {
+                throw ((UncheckedSQLException) cause).getCause();
+            }
+            throw new IOException("Export failed", cause);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void putHeader(ByteBuffer buffer) {
+        if (format == Format.CSV) {
+            buffer.put(CSV_HEADER);
+        } else {
+            buffer.put(BINARY_MAGIC).putInt(BINARY_VERSION);
+        }
+    }
+
+    /**
+     * Streams one key range into one file
+     */
+    private final class PartitionTask extends RecursiveTask<PartitionResult> {
+        private final Range range;
+        private final Path file;
+        private final boolean withHeader;
+
+        private PartitionTask(Range range, Path file, boolean withHeader) {
+            this.range = range;
+            this.file = file;
+            this.withHeader = withHeader;
+        }
+
+        @Override
+        protected PartitionResult compute() {
+            long start = System.nanoTime();
+            long rows = 0;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            try (Connection conn = dataSource.getConnection();
+                 FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                         StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 EmployeeStreamReader.EmployeeCursor cursor = new EmployeeStreamReader(fetchSize)
+                         .open(conn, SELECT_RANGE_SQL, range.lo, range.hi)) {
+                if (withHeader) {
+                    putHeader(buffer);
+                }
+                while (cursor.hasNext()) {
+                    Employee employee = cursor.next();
+                    if (buffer.remaining() < maxRecordBytes(employee)) {
+                        drain(buffer, out);
+                    }
+                    if (format == Format.CSV) {
+                        putCsv(buffer, employee);
+                    } else {
+                        putBinary(buffer, employee);
+                    }
+                    rows++;
+                }
+                drain(buffer, out);
+                return new PartitionResult(range, rows, out.size(), System.nanoTime() - start);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (SQLException e) {
+                throw new UncheckedSQLException("Error exporting EmpID " + range.lo + ".." + range.hi, e);
+            }
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static int maxRecordBytes(Employee employee) {
+        String name = employee.getName();
+        // Worst case: every char takes 3 UTF-8 bytes and is doubled by CSV quoting
+        return 64 + (name == null ? 0 : name.length() * 6);
+    }
+
+    private static void putCsv(ByteBuffer buffer, Employee employee) {
+        putDecimal(buffer, employee.getEmpId());
+        buffer.put((byte) ',');
+        String name = employee.getName();
+        if (name != null) {
+            String field = Csv.escape(name);
+            if (isAscii(field)) {
+                putAscii(buffer, field);
+            } else {
+                buffer.put(field.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        buffer.put((byte) ',');
+        long cents = Math.round(employee.getSalary() * 100);
+        if (cents < 0) {
+            buffer.put((byte) '-');
+            cents = -cents;
+        }
+        putDecimal(buffer, cents / 100);
+        buffer.put((byte) '.');
+        long fraction = cents % 100;
+        buffer.put((byte) ('0' + fraction / 10));
+        buffer.put((byte) ('0' + fraction % 10));
+        buffer.put((byte) '\n');
+    }
+
+    private static void putBinary(ByteBuffer buffer, Employee employee) {
+        buffer.putInt(employee.getEmpId());
+        buffer.putLong(Math.round(employee.getSalary() * 100));
+        String name = employee.getName() == null ? "" : employee.getName();
+        if (isAscii(name)) {
+            buffer.putShort((short) name.length());
+            putAscii(buffer, name);
+        } else {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IllegalArgumentException("Name too long for binary export: EmpID " + employee.getEmpId());
+            }
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private static void putAscii(ByteBuffer buffer, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            buffer.put((byte) s.charAt(i));
+        }
+    }
+
+    private static void putDecimal(ByteBuffer buffer, long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        if (value >= 10) {
+            putDecimal(buffer, value / 10);
+        }
+        buffer.put((byte) ('0' + value % 10));
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Inclusive EmpID range handled by one partition
+     */
+    private static final class Range {
+        private final int index;
+        private final long lo;
+        private final long hi;
+
+        private Range(int index, long lo, long hi) {
+            this.index = index;
+            this.lo = lo;
+            this.hi = hi;
+        }
+    }
+
+    /**
+     * Rows, bytes and time for one partition
+     */
+    public static class PartitionResult {
+        private final int index;
+        private final long firstId;
+        private final long lastId;
+        private final long rows;
+        private final long bytes;
+        private final long elapsedNanos;
+
+        private PartitionResult(Range range, long rows, long bytes, long elapsedNanos) {
+            this.index = range.index;
+            this.firstId = range.lo;
+            this.lastId = range.hi;
+            this.rows = rows;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        // Getters
+        public int getIndex() {
+            return index;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public double getElapsedSeconds() {
+            return elapsedNanos / 1e9;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows / getElapsedSeconds();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("partition %d [EmpID %d..%d]: %d rows, %d bytes in %.2f s (%.0f rows/sec)",
+                    index, firstId, lastId, rows, bytes, getElapsedSeconds(), getRowsPerSecond());
+        }
+    }
+
+    /**
+     * Summary of one export run
+     */
+    public static class ExportReport {
+        private final List<PartitionResult> partitions;
+        private final List<Path> files;
+        private final long elapsedNanos;
+
+        private ExportReport(List<PartitionResult> partitions, List<Path> files, long elapsedNanos) {
+            this.partitions = partitions;
+            this.files = files;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public List<PartitionResult> getPartitions() {
+            return Collections.unmodifiableList(partitions);
+        }
+
+        public List<Path> getFiles() {
+            return Collections.unmodifiableList(files);
+        }
+
+        public long getRows() {
+            long rows = 0;
+            for (PartitionResult p : partitions) {
+                rows += p.rows;
+            }
+            return rows;
+        }
+
+        public double getElapsedSeconds() {
+            return elapsedNanos / 1e9;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : getRows() / getElapsedSeconds();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Exported %d rows in %d partition(s) to %d file(s) in %.2f s (%.0f rows/sec)",
+                    getRows(), partitions.size(), files.size(), getElapsedSeconds(), getRowsPerSecond());
+        }
+    }
+}
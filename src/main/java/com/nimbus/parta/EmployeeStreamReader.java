@@ -0,0 +1,146 @@
+package com.nimbus.parta;
+
+import com.nimbus.jdbc.UncheckedSQLException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Constant-memory reader for the Employee table
+ *
+ * By default the query uses MySQL Connector/J row-by-row streaming
+ * (forward-only, read-only, fetch size Integer.MIN_VALUE), so the driver
+ * never buffers the whole result set on the heap. A positive fetch size
+ * switches to a server-side cursor instead; that mode needs
+ * useCursorFetch=true on the connection URL.
+ *
+ * While a stream is open its connection cannot run other statements,
+ * so always close the stream (try-with-resources) when done.
+ */
+public class EmployeeStreamReader {
+
+    // Fetch size that asks Connector/J to stream rows one at a time
+    public static final int ROW_BY_ROW = Integer.MIN_VALUE;
+
+    public static final String SELECT_ALL_SQL = "SELECT EmpID, Name, Salary FROM Employee";
+
+    private final int fetchSize;
+
+    public EmployeeStreamReader() {
+        this(ROW_BY_ROW);
+    }
+
+    /**
+     * @param fetchSize ROW_BY_ROW for streaming, or rows per round trip for cursor fetch
+     */
+    public EmployeeStreamReader(int fetchSize) {
+        if (fetchSize <= 0 && fetchSize != ROW_BY_ROW) {
+            throw new IllegalArgumentException("fetchSize must be positive or ROW_BY_ROW: " + fetchSize);
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Open a lazy cursor over all employees
+     * @param connection open connection; it stays busy until the cursor is closed
+     * @return cursor that reads one row per next() call
+     */
+    public EmployeeCursor open(Connection connection) throws SQLException {
+        return open(connection, SELECT_ALL_SQL);
+    }
+
+    /**
+     * Open a lazy cursor over a query whose first three columns are EmpID, Name, Salary
+     */
+    public EmployeeCursor open(Connection connection, String sql, Object... params) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            return new EmployeeCursor(ps, ps.executeQuery());
+        } catch (SQLException | RuntimeException e) {
+            ps.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Lazy Stream over all employees; closing the stream releases the result set
+     */
+    public Stream<Employee> stream(Connection connection) throws SQLException {
+        EmployeeCursor cursor = open(connection);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(cursor::close);
+    }
+
+    /**
+     * Iterator over a live ResultSet; columns are read by index
+     */
+    public static class EmployeeCursor implements Iterator<Employee>, AutoCloseable {
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+        private boolean hasRow;
+        private boolean advanced;
+        private boolean closed;
+
+        private EmployeeCursor(PreparedStatement statement, ResultSet resultSet) {
+            this.statement = statement;
+            this.resultSet = resultSet;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!advanced && !closed) {
+                try {
+                    hasRow = resultSet.next();
+                } catch (SQLException e) {
+                    throw new UncheckedSQLException("Error reading Employee row", e);
+                }
+                advanced = true;
+                if (!hasRow) {
+                    close();
+                }
+            }
+            return hasRow && !closed;
+        }
+
+        @Override
+        public Employee next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            advanced = false;
+            try {
+                return new Employee(resultSet.getInt(1), resultSet.getString(2), resultSet.getDouble(3));
+            } catch (SQLException e) {
+                throw new UncheckedSQLException("Error reading Employee row", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                resultSet.close();
+                statement.close();
+            } catch (SQLException e) {
+                throw new UncheckedSQLException("Error closing Employee cursor", e);
+            }
+        }
+    }
+}
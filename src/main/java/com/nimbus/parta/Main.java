@@ -1,9 +1,22 @@
 package com.nimbus.parta;
 
+import com.nimbus.jdbc.PoolConfig;
+import com.nimbus.jdbc.PooledDataSource;
+import com.nimbus.jdbc.RoutingDataSource;
+import com.nimbus.jdbc.UncheckedSQLException;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.DriverManager;
-import java.sql.ResultSet;
-import java.sql.Statement;
 import java.sql.SQLException;
 
 /**
@@ -11,6 +24,17 @@ import java.sql.SQLException;
  * This class demonstrates basic JDBC connectivity to MySQL
  * and fetches all records from the Employee table.
  * 
+ * Rows are streamed from the server one at a time (EmployeeStreamReader)
+ * and written through a large buffered writer, so memory stays flat and
+ * throughput is bound by the network rather than console I/O.
+ * 
+ * Usage: Main [outputFile]  (defaults to the console)
+ *        Main --export <file> [--partitions N] [--binary] [--split]
+ *        (parallel range-partitioned export, see EmployeeExporter)
+ * 
+ * With -Dnimbus.replicas=&lt;url,...&gt; the fetch reads from a healthy replica
+ * (falling back to nimbusdb when none is usable), see RoutingDataSource.
+ * 
  * Database Details:
  * - Database Name: nimbusdb
  * - Table: Employee (EmpID, Name, Salary)
@@ -26,7 +50,14 @@ public class Main {
     private static final String DB_USER = "root";
     private static final String DB_PASSWORD = "1234";
     
+    // Output buffer size for the row writer
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+    
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--export")) {
+            export(args);
+            return;
+        }
         
         // Display program header
         System.out.println("=".repeat(60));
@@ -34,10 +65,10 @@ public class Main {
         System.out.println("=".repeat(60));
         System.out.println();
         
-        // Connection, Statement, and ResultSet objects
+        // Connection object; the statement and result set are owned by the cursor
         Connection connection = null;
-        Statement statement = null;
-        ResultSet resultSet = null;
+        // Replica routing, when configured
+        RoutingDataSource replicas = null;
         
         try {
             // Step 1: Load MySQL JDBC Driver (Optional for JDBC 4.0+)
@@ -48,42 +79,45 @@ public class Main {
             
             // Step 2: Establish connection to the database
             System.out.println("[INFO] Connecting to database: nimbusdb...");
-            connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+            replicas = openReplicaReads();
+            if (replicas != null) {
+                connection = RoutingDataSource.readConnection(replicas);
+                System.out.println("[INFO] Reading through replica routing: " + replicas.getStats());
+            } else {
+                connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+            }
             System.out.println("[SUCCESS] Connected to nimbusdb successfully!");
             System.out.println();
             
-            // Step 3: Create a Statement object to execute SQL queries
-            statement = connection.createStatement();
-            
-            // Step 4: Execute SQL query to fetch all Employee records
-            String sqlQuery = "SELECT EmpID, Name, Salary FROM Employee";
-            System.out.println("[INFO] Executing SQL Query: " + sqlQuery);
-            resultSet = statement.executeQuery(sqlQuery);
-            System.out.println("[SUCCESS] Query executed successfully!");
-            System.out.println();
-            
-            // Step 5: Display the fetched data
-            System.out.println("=".repeat(60));
-            System.out.println("EMPLOYEE RECORDS FROM DATABASE");
-            System.out.println("=".repeat(60));
-            System.out.printf("%-10s %-25s %-15s%n", "EmpID", "Name", "Salary");
-            System.out.println("-".repeat(60));
+            // Step 3: Open a streaming cursor over the Employee table
+            EmployeeStreamReader reader = new EmployeeStreamReader();
+            System.out.println("[INFO] Executing SQL Query: " + EmployeeStreamReader.SELECT_ALL_SQL);
             
-            // Iterate through the ResultSet and display each row
-            int recordCount = 0;
-            while (resultSet.next()) {
-                int empId = resultSet.getInt("EmpID");
-                String name = resultSet.getString("Name");
-                double salary = resultSet.getDouble("Salary");
-                
-                System.out.printf("%-10d %-25s %-15.2f%n", empId, name, salary);
-                recordCount++;
+            // Step 4: Write each row as it arrives through a buffered writer
+            long recordCount;
+            try (EmployeeStreamReader.EmployeeCursor cursor = reader.open(connection);
+                 Writer out = openOutput(args)) {
+                System.out.println("[SUCCESS] Query executed successfully! Streaming rows...");
+                System.out.println();
+                recordCount = writeEmployees(cursor, out);
             }
             
             System.out.println("-".repeat(60));
             System.out.println("Total Records Fetched: " + recordCount);
             System.out.println("=".repeat(60));
             
+        } catch (IOException e) {
+            System.err.println("[ERROR] Could not write Employee records!");
+            System.err.println("Error Details: " + e.getMessage());
+            e.printStackTrace();
+            
+        } catch (UncheckedSQLException e) {
+            // Row-level failure while streaming
+            System.err.println("[ERROR] Database error while streaming rows!");
+            System.err.println("SQL State: " + e.getCause().getSQLState());
+            System.err.println("Error Message: " + e.getCause().getMessage());
+            e.printStackTrace();
+            
         } catch (ClassNotFoundException e) {
             // Handle JDBC Driver not found exception
             System.err.println("[ERROR] MySQL JDBC Driver not found!");
@@ -99,18 +133,10 @@ public class Main {
             e.printStackTrace();
             
         } finally {
-            // Step 6: Close all database resources in reverse order
+            // Step 5: Close the connection (the cursor closed its own statement)
             try {
-                if (resultSet != null) {
-                    resultSet.close();
-                    System.out.println();
-                    System.out.println("[INFO] ResultSet closed successfully.");
-                }
-                if (statement != null) {
-                    statement.close();
-                    System.out.println("[INFO] Statement closed successfully.");
-                }
                 if (connection != null) {
+                    System.out.println();
                     connection.close();
                     System.out.println("[INFO] Database connection closed successfully.");
                 }
@@ -118,6 +144,9 @@ public class Main {
                 System.err.println("[ERROR] Error while closing database resources!");
                 e.printStackTrace();
             }
+            if (replicas != null) {
+                replicas.close();
+            }
         }
         
         System.out.println();
@@ -125,4 +154,141 @@ public class Main {
         System.out.println("Program Execution Completed");
         System.out.println("=".repeat(60));
     }
+    
+    /**
+     * Replica-routed DataSource for the fetch
+     * @return null when no replicas are configured
+     */
+    private static RoutingDataSource openReplicaReads() {
+        String urls = System.getProperty(RoutingDataSource.REPLICAS_PROPERTY);
+        if (urls == null || urls.isBlank()) {
+            return null;
+        }
+        // Single fetch: one primary connection at most, only used as the fallback
+        return (RoutingDataSource) RoutingDataSource.withReplicasFrom(
+                new PooledDataSource(DB_URL, DB_USER, DB_PASSWORD, new PoolConfig(0, 1)), DB_USER, DB_PASSWORD);
+    }
+    
+    /**
+     * Nightly export: EmpID ranges streamed in parallel, one pooled connection per range
+     */
+    private static void export(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: Main --export <file> [--partitions N] [--binary] [--split]");
+            return;
+        }
+        int partitions = Runtime.getRuntime().availableProcessors();
+        EmployeeExporter.Format format = EmployeeExporter.Format.CSV;
+        boolean split = false;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--partitions" -> partitions = Integer.parseInt(args[++i]);
+                case "--binary" -> format = EmployeeExporter.Format.BINARY;
+                case "--split" -> split = true;
+                default -> {
+                    System.out.println("Unknown option: " + args[i]);
+                    return;
+                }
+            }
+        }
+        
+        System.out.println("[INFO] Exporting Employee table to " + args[1] + " (" + format + ", "
+                + partitions + " partitions" + (split ? ", one file per partition" : "") + ")");
+        try (PooledDataSource pool = new PooledDataSource(DB_URL, DB_USER, DB_PASSWORD,
+                new PoolConfig(0, partitions))) {
+            EmployeeExporter exporter = new EmployeeExporter(pool, partitions, format);
+            Path target = Paths.get(args[1]);
+            EmployeeExporter.ExportReport report = split
+                    ? exporter.exportPartitioned(target) : exporter.exportMerged(target);
+            for (EmployeeExporter.PartitionResult partition : report.getPartitions()) {
+                System.out.println("  " + partition);
+            }
+            System.out.println("[SUCCESS] " + report);
+        } catch (IOException e) {
+            System.err.println("[ERROR] Could not write export: " + e.getMessage());
+        } catch (SQLException e) {
+            System.err.println("[ERROR] Database error during export: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Open the row output: a file if one was given, otherwise stdout.
+     * Both bypass System.out's autoflush and per-call formatting.
+     */
+    private static Writer openOutput(String[] args) throws IOException {
+        OutputStream target;
+        if (args.length > 0) {
+            System.out.println("[INFO] Writing Employee records to: " + args[0]);
+            target = new FileOutputStream(args[0]);
+        } else {
+            System.out.flush();
+            // Wrapper that leaves the real stdout open when the writer is closed
+            target = new FileOutputStream(FileDescriptor.out) {
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+        }
+        return new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE);
+    }
+    
+    /**
+     * Write the table header and one line per employee
+     * @return number of rows written
+     */
+    static long writeEmployees(EmployeeStreamReader.EmployeeCursor cursor, Writer out) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        out.write("=".repeat(60));
+        out.write(System.lineSeparator());
+        out.write("EMPLOYEE RECORDS FROM DATABASE");
+        out.write(System.lineSeparator());
+        out.write("=".repeat(60));
+        out.write(System.lineSeparator());
+        out.write(String.format("%-10s %-25s %-15s%n", "EmpID", "Name", "Salary"));
+        out.write("-".repeat(60));
+        out.write(System.lineSeparator());
+        
+        long count = 0;
+        while (cursor.hasNext()) {
+            Employee employee = cursor.next();
+            line.setLength(0);
+            // Same layout as "%-10d %-25s %-15.2f" without a Formatter per row
+            int start = line.length();
+            line.append(employee.getEmpId());
+            padRight(line, start, 10);
+            line.append(' ');
+            start = line.length();
+            line.append(employee.getName());
+            padRight(line, start, 25);
+            line.append(' ');
+            start = line.length();
+            appendMoney(line, employee.getSalary());
+            padRight(line, start, 15);
+            line.append(System.lineSeparator());
+            out.append(line);
+            count++;
+        }
+        out.flush();
+        return count;
+    }
+    
+    private static void padRight(StringBuilder sb, int fieldStart, int width) {
+        while (sb.length() - fieldStart < width) {
+            sb.append(' ');
+        }
+    }
+    
+    private static void appendMoney(StringBuilder sb, double value) {
+        long cents = Math.round(Math.abs(value) * 100);
+        if (value < 0 && cents != 0) {
+            sb.append('-');
+        }
+        sb.append(cents / 100).append('.');
+        long fraction = cents % 100;
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        sb.append(fraction);
+    }
 }
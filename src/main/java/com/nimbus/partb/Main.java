@@ -1,33 +1,68 @@
 package com.nimbus.partb;
 
+import com.nimbus.cli.BatchCommandRunner;
+import com.nimbus.jdbc.BulkWriteConfig;
+import com.nimbus.jdbc.ChunkedBulkWrite;
+import com.nimbus.jdbc.CommitFailedException;
+import com.nimbus.jdbc.CommitPolicy;
+import com.nimbus.jdbc.InstrumentedDataSource;
+import com.nimbus.jdbc.PoolConfig;
+import com.nimbus.jdbc.PooledDataSource;
+import com.nimbus.jdbc.RoutingDataSource;
+import com.nimbus.jdbc.SqlMetrics;
+import com.nimbus.jdbc.SqlPredicate;
+
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.util.InputMismatchException;
+import java.util.List;
 import java.util.Scanner;
+import java.util.function.Consumer;
 
 /**
  * Part B – CRUD Operations on Product Table
  * Menu-driven JDBC program using PreparedStatement with transaction handling.
  * Database: nimbusdb (MySQL)
  * Table: Product(ProductID INT PK, ProductName VARCHAR, Price DECIMAL(10,2), Quantity INT)
+ * The four CRUD statements are prepared once per session (ProductStatements).
+ * Run with "--measure [iterations]" to compare per-operation latency with and without reuse.
+ * Run with "--sync <snapshot.csv> [--dry-run] [--max-delete-ratio R] [--allow-mass-delete]" to sync the table
+ * to an inventory snapshot; deletes of an empty snapshot or above the ratio (default 0.1) need the override.
+ * Run with "--bulk delete|reprice <minPrice> <maxPrice> [percent] [--chunk N] [--pause ms] [--checkpoint name]"
+ * to delete or reprice a price range in committed chunks, resumable from the checkpoint.
+ * The checkpoint is a BulkWriteCheckpoint row committed with each chunk, so a resume never repeats a reprice.
+ * Run with "--batch <file|-> [--batch-size N] [--commit-every N] [--commit-millis T] [--commit-bytes B]"
+ * to run a command script headless.
+ * Run with "--write-behind" to queue writes in a ProductWriteBehind buffer flushed in the background.
+ * Run with "--group-commit [ops=N,ms=T,bytes=B]" to commit automatically through a CommitPolicy;
+ * a failed statement then rolls back alone instead of the whole pending transaction.
+ * With -Dnimbus.replicas set, the product list is read from a replica while the session has nothing uncommitted.
  */
 public class Main {
 
     // DB Config
-    private static final String URL = "jdbc:mysql://localhost:3306/nimbusdb?useSSL=false&serverTimezone=UTC";
+    // Server-side prepared statements, cached by the driver per connection
+    private static final String URL = "jdbc:mysql://localhost:3306/nimbusdb?useSSL=false&serverTimezone=UTC"
+            + "&useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=250&prepStmtCacheSqlLimit=2048"
+            + "&rewriteBatchedStatements=true";
+    // No statement cache: baseline for --measure, as the CRUD loop connected before statement reuse
+    private static final String PLAIN_URL = "jdbc:mysql://localhost:3306/nimbusdb?useSSL=false&serverTimezone=UTC";
     private static final String USER = "root";
     private static final String PASSWORD = "1234";
 
-    // SQL Statements (all Prepared)
-    private static final String INSERT_SQL =
-            "INSERT INTO Product (ProductID, ProductName, Price, Quantity) VALUES (?, ?, ?, ?)";
-    private static final String SELECT_ALL_SQL =
-            "SELECT ProductID, ProductName, Price, Quantity FROM Product ORDER BY ProductID";
-    private static final String UPDATE_SQL =
-            "UPDATE Product SET ProductName = ?, Price = ?, Quantity = ? WHERE ProductID = ?";
-    private static final String DELETE_SQL =
-            "DELETE FROM Product WHERE ProductID = ?";
-
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            // Headless: stdout carries only JSON results
+            try (Connection con = openConnection()) {
+                BatchCommandRunner.runCommandLine(args, con, ProductCommands.INSTANCE);
+            } catch (IOException | SQLException | IllegalArgumentException e) {
+                System.err.println("Batch failed: " + e.getMessage());
+                // Non-zero exit status for calling scripts, after resources are closed
+                System.exit(1);
+            }
+            return;
+        }
         printHeader();
         try (Scanner sc = new Scanner(System.in)) {
             // Load MySQL JDBC Driver (optional for newer JDBC but kept explicit)
@@ -38,33 +73,144 @@ public class Main {
                 return;
             }
 
-            try (Connection con = DriverManager.getConnection(URL, USER, PASSWORD)) {
-                // Transaction handling for each operation group
-                con.setAutoCommit(false);
+            if (args.length > 0 && args[0].equals("--measure")) {
+                int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+                try (Connection plain = openConnection(PLAIN_URL);
+                     Connection caching = openConnection()) {
+                    StatementReuseMeasurement.run(plain, caching, iterations, System.out);
+                }
+                return;
+            }
+
+            if (args.length > 1 && args[0].equals("--sync")) {
+                try (Connection con = openConnection()) {
+                    ProductInventorySync sync = new ProductInventorySync(con);
+                    boolean dryRun = false;
+                    for (int i = 2; i < args.length; i++) {
+                        if (args[i].equals("--dry-run")) {
+                            dryRun = true;
+                        } else if (args[i].equals("--allow-mass-delete")) {
+                            sync.setAllowMassDelete(true);
+                        } else if (args[i].equals("--max-delete-ratio") && i + 1 < args.length) {
+                            sync.setMaxDeleteRatio(Double.parseDouble(args[++i]));
+                        } else {
+                            throw new IllegalArgumentException("Unknown option: " + args[i]);
+                        }
+                    }
+                    ProductInventorySync.SyncReport report = sync.sync(Paths.get(args[1]), dryRun);
+                    System.out.println((dryRun ? "[DRY RUN] " : "") + report);
+                    report.getRejected().forEach(r -> System.out.println("  rejected " + r));
+                    report.getDuplicates().forEach(d -> System.out.println("  " + d));
+                    if (report.getDeletesRefused() != null) {
+                        System.out.println("  " + report.getDeletesSkipped() + " delete(s) refused: "
+                                + report.getDeletesRefused() + "; rerun with --allow-mass-delete to apply them");
+                    }
+                } catch (IOException e) {
+                    System.out.println("Could not read snapshot: " + e.getMessage());
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Sync failed: " + e.getMessage());
+                }
+                return;
+            }
+
+            if (args.length > 3 && args[0].equals("--bulk")) {
+                try (Connection con = openConnection()) {
+                    ChunkedBulkWrite.Progress progress = bulk(con, args);
+                    System.out.println(progress);
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    System.out.println("Bulk operation failed: " + e.getMessage());
+                }
+                return;
+            }
+
+            boolean writeBehind = args.length > 0 && args[0].equals("--write-behind");
+            boolean groupCommit = args.length > 0 && args[0].equals("--group-commit");
+            try (Connection con = openConnection();
+                 RoutingDataSource reads = openReplicaReads();
+                 ProductStatements stmts = new ProductStatements(con);
+                 Connection flushCon = writeBehind ? openConnection() : null;
+                 ProductWriteBehind buffer = writeBehind ? new ProductWriteBehind(flushCon) : null;
+                 CommitPolicy policy = groupCommit
+                         ? CommitPolicy.parse(con, args.length > 1 ? args[1] : null) : null) {
+                // Transaction handling for each operation group;
+                // in write-behind mode this connection only reads and the buffer commits its own flushes
+                con.setAutoCommit(writeBehind);
+                if (policy != null) {
+                    // Commits even while the session waits for input, so row locks are not held for minutes
+                    policy.startTimer();
+                }
+                // Writes in this session that a replica cannot have seen yet
+                boolean uncommitted = false;
                 boolean exit = false;
                 while (!exit) {
                     showMenu();
                     int choice = readInt(sc, "Enter your choice: ");
+                    if (policy != null) {
+                        uncommitted = policy.getPendingOps() > 0;
+                    }
                     try {
                         switch (choice) {
-                            case 1 -> createProduct(con, sc);
-                            case 2 -> listProducts(con);
-                            case 3 -> updateProduct(con, sc);
-                            case 4 -> deleteProduct(con, sc);
+                            case 1 -> {
+                                uncommitted = true;
+                                createProduct(stmts, buffer, policy, sc);
+                            }
+                            case 2 -> {
+                                if (policy != null) {
+                                    // The commit timer shares this connection
+                                    boolean primary = uncommitted;
+                                    policy.read(() -> {
+                                        listProducts(stmts, null, primary ? null : reads);
+                                        return null;
+                                    });
+                                } else {
+                                    listProducts(stmts, buffer, uncommitted ? null : reads);
+                                }
+                            }
+                            case 3 -> {
+                                uncommitted = true;
+                                updateProduct(stmts, buffer, policy, sc);
+                            }
+                            case 4 -> {
+                                uncommitted = true;
+                                deleteProduct(stmts, buffer, policy, sc);
+                            }
                             case 5 -> {
                                 // Manual commit point for batched ops
-                                con.commit();
-                                System.out.println("Transaction committed successfully.✅");
+                                if (buffer != null) {
+                                    int rows = buffer.flush();
+                                    System.out.println(rows + " queued write(s) flushed.✅");
+                                } else if (policy != null) {
+                                    policy.commit();
+                                    uncommitted = false;
+                                    System.out.println("Transaction committed successfully.✅");
+                                } else {
+                                    con.commit();
+                                    uncommitted = false;
+                                    System.out.println("Transaction committed successfully.✅");
+                                }
                             }
                             case 6 -> {
-                                con.rollback();
-                                System.out.println("Transaction rolled back.↩️");
+                                if (buffer != null) {
+                                    System.out.println("Rollback is not available in write-behind mode.");
+                                } else if (policy != null) {
+                                    int discarded = policy.rollback();
+                                    uncommitted = false;
+                                    System.out.println(discarded + " uncommitted write(s) rolled back.↩️");
+                                } else {
+                                    con.rollback();
+                                    uncommitted = false;
+                                    System.out.println("Transaction rolled back.↩️");
+                                }
                             }
                             case 0 -> {
                                 exit = true;
                                 // On exit, try committing pending changes
                                 try {
-                                    con.commit();
+                                    if (policy != null) {
+                                        policy.commit();
+                                    } else if (buffer == null) {
+                                        con.commit();
+                                    }
                                     System.out.println("Final commit done. Goodbye!");
                                 } catch (SQLException e) {
                                     System.out.println("Commit failed on exit, attempting rollback...");
@@ -77,20 +223,108 @@ public class Main {
                         // User controls commit/rollback explicitly via menu options.
                     } catch (SQLException ex) {
                         System.out.println("Operation failed: " + ex.getMessage());
-                        try {
-                            con.rollback();
-                            System.out.println("Rolled back due to error.");
-                        } catch (SQLException rb) {
-                            System.out.println("Rollback failed: " + rb.getMessage());
+                        if (ex instanceof CommitFailedException) {
+                            // The policy already rolled the transaction back
+                            System.out.println("The whole batch of "
+                                    + ((CommitFailedException) ex).getDiscardedOps()
+                                    + " uncommitted write(s) was discarded.");
+                        } else if (policy != null) {
+                            // Already rolled back to the statement's savepoint
+                            System.out.println("Only this statement was rolled back; "
+                                    + policy.getPendingOps() + " earlier write(s) still pending.");
+                        } else if (buffer == null) {
+                            try {
+                                con.rollback();
+                                uncommitted = false;
+                                System.out.println("Rolled back due to error.");
+                            } catch (SQLException rb) {
+                                System.out.println("Rollback failed: " + rb.getMessage());
+                            }
                         }
                     }
                 }
+                if (buffer != null) {
+                    // close() below flushes whatever is still queued
+                    System.out.println("Write-behind: " + buffer.getStats());
+                }
+                if (policy != null) {
+                    System.out.println("Group commit: " + policy.getStats());
+                }
             }
+            System.out.print(SqlMetrics.shared().dump());
         } catch (SQLException e) {
             System.out.println("Database error: " + e.getMessage());
         }
     }
 
+    /**
+     * Chunked delete or reprice of every product priced between minPrice and maxPrice (inclusive)
+     * args = --bulk delete|reprice &lt;minPrice&gt; &lt;maxPrice&gt; [percent] [--chunk N] [--pause ms] [--checkpoint name]
+     */
+    private static ChunkedBulkWrite.Progress bulk(Connection con, String[] args) throws SQLException {
+        SqlPredicate where = SqlPredicate.between("Price", Double.parseDouble(args[2]), Double.parseDouble(args[3]));
+        boolean reprice = args[1].equals("reprice");
+        if (!reprice && !args[1].equals("delete")) {
+            throw new IllegalArgumentException("Unknown bulk operation: " + args[1]);
+        }
+        int next = 4;
+        double factor = 1;
+        if (reprice) {
+            if (args.length <= next) {
+                throw new IllegalArgumentException("reprice needs a percentage, e.g. 10 or -5");
+            }
+            factor = 1 + Double.parseDouble(args[next++]) / 100;
+        }
+        BulkWriteConfig config = new BulkWriteConfig();
+        for (int i = next; i < args.length; i++) {
+            if (args[i].equals("--chunk") && i + 1 < args.length) {
+                config.setChunkSize(Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--pause") && i + 1 < args.length) {
+                config.setPauseMillis(Long.parseLong(args[++i]));
+            } else if (args[i].equals("--checkpoint") && i + 1 < args.length) {
+                config.setCheckpoint(args[++i]);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        config.setProgressListener(p -> System.out.printf("  chunk %d: %d rows so far, last ProductID %d (%.0f rows/sec)%n",
+                p.getChunks(), p.getRows(), p.getLastKey(), p.getRowsPerSecond()));
+        ChunkedBulkWrite op = reprice
+                ? ChunkedBulkWrite.update("Product", "ProductID", "Price = ROUND(Price * ?, 2)", List.of(factor),
+                        where, config)
+                : ChunkedBulkWrite.delete("Product", "ProductID", where, config);
+        return op.run(con);
+    }
+
+    /**
+     * Open the session connection, instrumented so per-statement latency lands in SqlMetrics
+     */
+    private static Connection openConnection() throws SQLException {
+        return openConnection(URL);
+    }
+
+    private static Connection openConnection(String url) throws SQLException {
+        SqlMetrics metrics = SqlMetrics.shared();
+        long start = System.nanoTime();
+        Connection con = DriverManager.getConnection(url, USER, PASSWORD);
+        metrics.recordAcquire(System.nanoTime() - start);
+        return InstrumentedDataSource.wrap(con, metrics);
+    }
+
+    /**
+     * Replica-routed DataSource for the product list
+     * @return null when no replicas are configured
+     */
+    private static RoutingDataSource openReplicaReads() {
+        String replicas = System.getProperty(RoutingDataSource.REPLICAS_PROPERTY);
+        if (replicas == null || replicas.isBlank()) {
+            return null;
+        }
+        // The primary side is only used when every replica is down or lagging
+        return (RoutingDataSource) RoutingDataSource.withReplicasFrom(
+                new PooledDataSource(URL, USER, PASSWORD, new PoolConfig(0, 1)), USER, PASSWORD);
+    }
+
     private static void showMenu() {
         System.out.println();
         System.out.println("================= Product CRUD Menu =================");
@@ -112,7 +346,8 @@ public class Main {
     }
 
     // CREATE
-    private static void createProduct(Connection con, Scanner sc) throws SQLException {
+    private static void createProduct(ProductStatements stmts, ProductWriteBehind buffer, CommitPolicy policy,
+                                      Scanner sc) throws SQLException {
         System.out.println("-- Create Product --");
         int id = readInt(sc, "Enter ProductID (int): ");
         System.out.print("Enter ProductName: ");
@@ -120,38 +355,47 @@ public class Main {
         double price = readDouble(sc, "Enter Price (decimal): ");
         int qty = readInt(sc, "Enter Quantity (int): ");
 
-        try (PreparedStatement ps = con.prepareStatement(INSERT_SQL)) {
-            ps.setInt(1, id);
-            ps.setString(2, name);
-            ps.setDouble(3, price);
-            ps.setInt(4, qty);
-            int rows = ps.executeUpdate();
-            System.out.println(rows + " product(s) inserted. Pending commit.");
+        if (buffer != null) {
+            if (buffer.findById(id, stmts) == null && buffer.insert(new Product(id, name, price, qty)))
+                System.out.println("Insert queued.");
+            else
+                System.out.println("ProductID " + id + " already exists.");
+            return;
         }
+        int rows = write(policy, rowBytes(name), () -> stmts.insert(id, name, price, qty));
+        System.out.println(rows + " product(s) inserted. " + pendingNote(policy));
     }
 
     // READ
-    private static void listProducts(Connection con) throws SQLException {
+    private static void listProducts(ProductStatements stmts, ProductWriteBehind buffer, RoutingDataSource reads)
+            throws SQLException {
         System.out.println("-- Product List --");
-        try (PreparedStatement ps = con.prepareStatement(SELECT_ALL_SQL);
-             ResultSet rs = ps.executeQuery()) {
-            System.out.printf("%-10s %-25s %-10s %-10s%n", "ProductID", "ProductName", "Price", "Quantity");
-            System.out.println("-----------------------------------------------------");
-            boolean any = false;
-            while (rs.next()) {
-                any = true;
-                System.out.printf("%-10d %-25s %-10.2f %-10d%n",
-                        rs.getInt("ProductID"),
-                        rs.getString("ProductName"),
-                        rs.getDouble("Price"),
-                        rs.getInt("Quantity"));
+        System.out.printf("%-10s %-25s %-10s %-10s%n", "ProductID", "ProductName", "Price", "Quantity");
+        System.out.println("-----------------------------------------------------");
+        Consumer<Product> printer = p -> System.out.printf("%-10d %-25s %-10.2f %-10d%n",
+                p.getProductID(),
+                p.getProductName(),
+                p.getPrice(),
+                p.getQuantity());
+        int count;
+        if (buffer != null) {
+            // Flushed writes must be visible, so write-behind mode reads the primary
+            count = buffer.forEach(stmts, printer);
+        } else if (reads != null) {
+            try (Connection rc = InstrumentedDataSource.wrap(RoutingDataSource.readConnection(reads),
+                    SqlMetrics.shared());
+                 ProductStatements replicaStmts = new ProductStatements(rc)) {
+                count = replicaStmts.forEach(printer);
             }
-            if (!any) System.out.println("No products found.");
+        } else {
+            count = stmts.forEach(printer);
         }
+        if (count == 0) System.out.println("No products found.");
     }
 
     // UPDATE
-    private static void updateProduct(Connection con, Scanner sc) throws SQLException {
+    private static void updateProduct(ProductStatements stmts, ProductWriteBehind buffer, CommitPolicy policy,
+                                      Scanner sc) throws SQLException {
         System.out.println("-- Update Product --");
         int id = readInt(sc, "Enter ProductID to update: ");
         System.out.print("Enter new ProductName: ");
@@ -159,31 +403,62 @@ public class Main {
         double price = readDouble(sc, "Enter new Price: ");
         int qty = readInt(sc, "Enter new Quantity: ");
 
-        try (PreparedStatement ps = con.prepareStatement(UPDATE_SQL)) {
-            ps.setString(1, name);
-            ps.setDouble(2, price);
-            ps.setInt(3, qty);
-            ps.setInt(4, id);
-            int rows = ps.executeUpdate();
-            if (rows > 0)
-                System.out.println(rows + " product(s) updated. Pending commit.");
+        if (buffer != null) {
+            if (buffer.findById(id, stmts) != null && buffer.update(new Product(id, name, price, qty)))
+                System.out.println("Update queued.");
             else
                 System.out.println("No product found with ProductID: " + id);
+            return;
         }
+        int rows = write(policy, rowBytes(name), () -> stmts.update(id, name, price, qty));
+        if (rows > 0)
+            System.out.println(rows + " product(s) updated. " + pendingNote(policy));
+        else
+            System.out.println("No product found with ProductID: " + id);
     }
 
     // DELETE
-    private static void deleteProduct(Connection con, Scanner sc) throws SQLException {
+    private static void deleteProduct(ProductStatements stmts, ProductWriteBehind buffer, CommitPolicy policy,
+                                      Scanner sc) throws SQLException {
         System.out.println("-- Delete Product --");
         int id = readInt(sc, "Enter ProductID to delete: ");
-        try (PreparedStatement ps = con.prepareStatement(DELETE_SQL)) {
-            ps.setInt(1, id);
-            int rows = ps.executeUpdate();
-            if (rows > 0)
-                System.out.println(rows + " product(s) deleted. Pending commit.");
-            else
+        if (buffer != null) {
+            if (buffer.findById(id, stmts) != null) {
+                buffer.delete(id);
+                System.out.println("Delete queued.");
+            } else {
                 System.out.println("No product found with ProductID: " + id);
+            }
+            return;
+        }
+        int rows = write(policy, Integer.BYTES, () -> stmts.delete(id));
+        if (rows > 0)
+            System.out.println(rows + " product(s) deleted. " + pendingNote(policy));
+        else
+            System.out.println("No product found with ProductID: " + id);
+    }
+
+    /**
+     * Run a write directly, or through the commit policy when group commit is on
+     */
+    private static int write(CommitPolicy policy, long bytes, CommitPolicy.SqlWork<Integer> work)
+            throws SQLException {
+        return policy == null ? work.run() : policy.execute(bytes, work);
+    }
+
+    /**
+     * Rough size of a Product row for the commit byte budget: ID, price, quantity and the name
+     */
+    private static long rowBytes(String name) {
+        return Integer.BYTES + Double.BYTES + Integer.BYTES + name.length();
+    }
+
+    private static String pendingNote(CommitPolicy policy) {
+        if (policy == null) {
+            return "Pending commit.";
         }
+        int pending = policy.getPendingOps();
+        return pending == 0 ? "Committed by the group-commit policy." : pending + " write(s) pending commit.";
     }
 
     // Helpers for safe numeric input
@@ -0,0 +1,67 @@
+package com.nimbus.partb;
+
+/**
+ * Model Class: Product
+ * Represents one row of the Product table (ProductID, ProductName, Price, Quantity)
+ */
+public class Product {
+    private int productID;
+    private String productName;
+    private double price;
+    private int quantity;
+
+    // Default Constructor
+    public Product() {
+    }
+
+    // Parameterized Constructor
+    public Product(int productID, String productName, double price, int quantity) {
+        this.productID = productID;
+        this.productName = productName;
+        this.price = price;
+        this.quantity = quantity;
+    }
+
+    // Getters and Setters
+    public int getProductID() {
+        return productID;
+    }
+
+    public void setProductID(int productID) {
+        this.productID = productID;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public void setPrice(double price) {
+        this.price = price;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    @Override
+    public String toString() {
+        return "Product{" +
+                "ProductID=" + productID +
+                ", ProductName='" + productName + '\'' +
+                ", Price=" + price +
+                ", Quantity=" + quantity +
+                '}';
+    }
+}
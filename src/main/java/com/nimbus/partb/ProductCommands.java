@@ -0,0 +1,98 @@
+package com.nimbus.partb;
+
+import com.nimbus.cli.BatchCommandRunner;
+import com.nimbus.cli.EntityCommands;
+import com.nimbus.jdbc.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Product table bindings for the batch command mode
+ * Command fields: create|update,ProductID,ProductName,Price,Quantity
+ */
+public final class ProductCommands implements EntityCommands<Product> {
+    public static final ProductCommands INSTANCE = new ProductCommands();
+
+    private ProductCommands() {
+    }
+
+    @Override
+    public String idName() {
+        return "ProductID";
+    }
+
+    @Override
+    public String insertSql() {
+        return ProductStatements.INSERT_SQL;
+    }
+
+    @Override
+    public String updateSql() {
+        return ProductStatements.UPDATE_SQL;
+    }
+
+    @Override
+    public String deleteSql() {
+        return ProductStatements.DELETE_SQL;
+    }
+
+    @Override
+    public String selectByIdSql() {
+        return ProductStatements.SELECT_BY_ID_SQL;
+    }
+
+    @Override
+    public String selectAllSql() {
+        return ProductStatements.SELECT_ALL_SQL;
+    }
+
+    @Override
+    public RowMapper<Product> mapper() {
+        return ProductRowMapper.INSTANCE;
+    }
+
+    @Override
+    public Product parse(List<String> fields) {
+        if (fields.size() != 4) {
+            throw new IllegalArgumentException("Expected 4 fields but found " + fields.size());
+        }
+        try {
+            return new Product(Integer.parseInt(fields.get(0).trim()), fields.get(1).trim(),
+                    Double.parseDouble(fields.get(2).trim()), Integer.parseInt(fields.get(3).trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int idOf(Product row) {
+        return row.getProductID();
+    }
+
+    @Override
+    public void bindInsert(PreparedStatement ps, Product p) throws SQLException {
+        ps.setInt(1, p.getProductID());
+        ps.setString(2, p.getProductName());
+        ps.setDouble(3, p.getPrice());
+        ps.setInt(4, p.getQuantity());
+    }
+
+    @Override
+    public void bindUpdate(PreparedStatement ps, Product p) throws SQLException {
+        ps.setString(1, p.getProductName());
+        ps.setDouble(2, p.getPrice());
+        ps.setInt(3, p.getQuantity());
+        ps.setInt(4, p.getProductID());
+    }
+
+    @Override
+    public void appendJson(StringBuilder json, Product p) {
+        json.append("{\"ProductID\":").append(p.getProductID())
+                .append(",\"ProductName\":").append(BatchCommandRunner.quote(p.getProductName()))
+                .append(",\"Price\":").append(p.getPrice())
+                .append(",\"Quantity\":").append(p.getQuantity())
+                .append('}');
+    }
+}
@@ -0,0 +1,320 @@
+package com.nimbus.partb;
+
+import com.nimbus.io.Csv;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Diff-based Product inventory sync
+ *
+ * Loads a full snapshot file, diffs it against the current Product table
+ * and writes only what changed: new and changed rows as batched
+ * INSERT ... ON DUPLICATE KEY UPDATE, missing rows as batched DELETEs,
+ * committed every chunkSize rows. Unchanged rows cause no writes, so a
+ * mostly static catalog syncs in one table scan.
+ *
+ * Snapshot format (CSV): ProductID,ProductName,Price,Quantity
+ * A first line starting with "ProductID" is treated as a header and skipped.
+ * If any snapshot line is rejected, deletes are skipped for that run: a
+ * malformed line must not make its product look discontinued. A repeated
+ * ProductID is reported as a duplicate (the last line wins) and does not
+ * stop deletes, since every line was read.
+ *
+ * An empty, header-only or truncated file parses cleanly, so the deletes
+ * are also refused when the snapshot has no rows or when they would remove
+ * more than maxDeleteRatio of the table (10% by default). A failed feed
+ * therefore cannot wipe the catalog; setAllowMassDelete(true) overrides
+ * the guard for a deliberate clear-out. Inserts and updates still apply.
+ */
+public class ProductInventorySync {
+
+    public static final String UPSERT_SQL =
+            "INSERT INTO Product (ProductID, ProductName, Price, Quantity) VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE ProductName = VALUES(ProductName), "
+                    + "Price = VALUES(Price), Quantity = VALUES(Quantity)";
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    public static final double DEFAULT_MAX_DELETE_RATIO = 0.10;
+
+    private final Connection con;
+    private final int chunkSize;
+    private double maxDeleteRatio = DEFAULT_MAX_DELETE_RATIO;
+    private boolean allowMassDelete;
+
+    public ProductInventorySync(Connection con) {
+        this(con, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param con connection to sync through; its auto-commit setting is restored afterwards
+     * @param chunkSize rows per batch and per commit
+     */
+    public ProductInventorySync(Connection con, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.con = con;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @param maxDeleteRatio largest share of the current table one run may delete, 0 to 1
+     */
+    public ProductInventorySync setMaxDeleteRatio(double maxDeleteRatio) {
+        if (!(maxDeleteRatio >= 0 && maxDeleteRatio <= 1)) {
+            throw new IllegalArgumentException("maxDeleteRatio must be between 0 and 1: " + maxDeleteRatio);
+        }
+        this.maxDeleteRatio = maxDeleteRatio;
+        return this;
+    }
+
+    /**
+     * @param allowMassDelete true to apply the deletes of an empty snapshot or above maxDeleteRatio
+     */
+    public ProductInventorySync setAllowMassDelete(boolean allowMassDelete) {
+        this.allowMassDelete = allowMassDelete;
+        return this;
+    }
+
+    /**
+     * Sync the table to a snapshot file
+     * @param snapshot CSV file (UTF-8)
+     * @param dryRun true to compute the diff without writing
+     */
+    public SyncReport sync(Path snapshot, boolean dryRun) throws IOException, SQLException {
+        try (BufferedReader reader = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+            return sync(reader, dryRun);
+        }
+    }
+
+    /**
+     * Sync the table to a snapshot read from any reader; the reader is not closed
+     */
+    public SyncReport sync(Reader snapshot, boolean dryRun) throws IOException, SQLException {
+        SyncReport report = new SyncReport();
+        Map<Integer, Product> wanted = readSnapshot(snapshot, report);
+        report.snapshotRows = wanted.size();
+
+        // Diff: walk the current table once, consuming matched snapshot rows
+        List<Product> upserts = new ArrayList<>();
+        List<Integer> deletes = new ArrayList<>();
+        try (ProductStatements stmts = new ProductStatements(con)) {
+            stmts.forEach(current -> {
+                Product target = wanted.remove(current.getProductID());
+                if (target == null) {
+                    deletes.add(current.getProductID());
+                } else if (sameContent(current, target)) {
+                    report.unchanged++;
+                } else {
+                    upserts.add(target);
+                    report.updated++;
+                }
+            });
+        }
+        int tableRows = report.unchanged + report.updated + deletes.size();
+        // Whatever is left in the snapshot does not exist yet
+        report.inserted = wanted.size();
+        upserts.addAll(wanted.values());
+        if (!report.rejected.isEmpty()) {
+            report.deletesSkipped = deletes.size();
+            deletes.clear();
+        } else if (!deletes.isEmpty() && !allowMassDelete) {
+            if (report.snapshotRows == 0) {
+                report.deletesRefused = "the snapshot has no rows";
+            } else if (deletes.size() > maxDeleteRatio * tableRows) {
+                report.deletesRefused = String.format("%d of %d rows (%.1f%%) exceeds the limit of %.1f%%",
+                        deletes.size(), tableRows, 100.0 * deletes.size() / tableRows, 100 * maxDeleteRatio);
+            }
+            if (report.deletesRefused != null) {
+                report.deletesSkipped = deletes.size();
+                deletes.clear();
+            }
+        }
+        report.deleted = deletes.size();
+
+        if (!dryRun) {
+            apply(upserts, deletes, report);
+        }
+        report.elapsedNanos = System.nanoTime() - report.startNanos;
+        return report;
+    }
+
+    private Map<Integer, Product> readSnapshot(Reader source, SyncReport report) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader
+                ? (BufferedReader) source : new BufferedReader(source, 1 << 16);
+        Map<Integer, Product> products = new HashMap<>();
+        long lineNo = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank() || (lineNo == 1 && line.regionMatches(true, 0, "ProductID", 0, 9))) {
+                continue;
+            }
+            List<String> fields = Csv.split(line);
+            try {
+                if (fields.size() != 4) {
+                    throw new IllegalArgumentException("Expected 4 fields but found " + fields.size());
+                }
+                Product product = new Product(
+                        Integer.parseInt(fields.get(0).trim()),
+                        fields.get(1).trim(),
+                        Double.parseDouble(fields.get(2).trim()),
+                        Integer.parseInt(fields.get(3).trim()));
+                if (products.put(product.getProductID(), product) != null) {
+                    report.duplicates.add("line " + lineNo + ": duplicate ProductID " + product.getProductID()
+                            + " (last one wins)");
+                }
+            } catch (IllegalArgumentException e) {
+                report.rejected.add("line " + lineNo + ": " + e.getMessage());
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Price is DECIMAL(10,2) in the table, so compare it in cents
+     */
+    static boolean sameContent(Product a, Product b) {
+        return Objects.equals(a.getProductName(), b.getProductName())
+                && Math.round(a.getPrice() * 100) == Math.round(b.getPrice() * 100)
+                && a.getQuantity() == b.getQuantity();
+    }
+
+    private void apply(List<Product> upserts, List<Integer> deletes, SyncReport report) throws SQLException {
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(false);
+        try (PreparedStatement upsert = con.prepareStatement(UPSERT_SQL);
+             PreparedStatement delete = con.prepareStatement(ProductStatements.DELETE_SQL)) {
+            int pending = 0;
+            for (Product p : upserts) {
+                upsert.setInt(1, p.getProductID());
+                upsert.setString(2, p.getProductName());
+                upsert.setDouble(3, p.getPrice());
+                upsert.setInt(4, p.getQuantity());
+                upsert.addBatch();
+                if (++pending == chunkSize) {
+                    upsert.executeBatch();
+                    con.commit();
+                    report.commits++;
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                upsert.executeBatch();
+            }
+            for (Integer id : deletes) {
+                delete.setInt(1, id);
+                delete.addBatch();
+                if (++pending == chunkSize) {
+                    delete.executeBatch();
+                    con.commit();
+                    report.commits++;
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                delete.executeBatch();
+                con.commit();
+                report.commits++;
+            }
+        } catch (SQLException e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Outcome of one sync run
+     */
+    public static class SyncReport {
+        private final long startNanos = System.nanoTime();
+        private long elapsedNanos;
+        private int snapshotRows;
+        private int unchanged;
+        private int inserted;
+        private int updated;
+        private int deleted;
+        private int commits;
+        private int deletesSkipped;
+        private String deletesRefused;
+        private final List<String> rejected = new ArrayList<>();
+        private final List<String> duplicates = new ArrayList<>();
+
+        public int getSnapshotRows() {
+            return snapshotRows;
+        }
+
+        public int getUnchanged() {
+            return unchanged;
+        }
+
+        public int getInserted() {
+            return inserted;
+        }
+
+        public int getUpdated() {
+            return updated;
+        }
+
+        public int getDeleted() {
+            return deleted;
+        }
+
+        public int getDeletesSkipped() {
+            return deletesSkipped;
+        }
+
+        /**
+         * @return why the mass-delete guard refused this run's deletes, or null if it did not
+         */
+        public String getDeletesRefused() {
+            return deletesRefused;
+        }
+
+        public int getCommits() {
+            return commits;
+        }
+
+        /**
+         * @return lines that could not be parsed; any of these skips the deletes
+         */
+        public List<String> getRejected() {
+            return rejected;
+        }
+
+        /**
+         * @return lines repeating an earlier ProductID; they replace it and do not skip the deletes
+         */
+        public List<String> getDuplicates() {
+            return duplicates;
+        }
+
+        public double getElapsedSeconds() {
+            return elapsedNanos / 1e9;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Snapshot rows: %d | unchanged: %d | inserted: %d | updated: %d | deleted: %d"
+                            + " | rejected: %d | duplicates: %d | deletes skipped: %d | commits: %d | %.2f s",
+                    snapshotRows, unchanged, inserted, updated, deleted, rejected.size(), duplicates.size(),
+                    deletesSkipped, commits, getElapsedSeconds())
+                    + (deletesRefused == null ? "" : " | deletes refused: " + deletesRefused);
+        }
+    }
+}
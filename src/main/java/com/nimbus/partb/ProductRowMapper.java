@@ -0,0 +1,29 @@
+package com.nimbus.partb;
+
+import com.nimbus.jdbc.Projection;
+import com.nimbus.jdbc.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps Product rows by column index
+ * Every Product query selects COLUMNS, so positions are fixed at class load.
+ */
+public final class ProductRowMapper implements RowMapper<Product> {
+    public static final Projection COLUMNS = Projection.of("ProductID", "ProductName", "Price", "Quantity");
+    public static final ProductRowMapper INSTANCE = new ProductRowMapper();
+
+    private static final int PRODUCT_ID = COLUMNS.index("ProductID");
+    private static final int PRODUCT_NAME = COLUMNS.index("ProductName");
+    private static final int PRICE = COLUMNS.index("Price");
+    private static final int QUANTITY = COLUMNS.index("Quantity");
+
+    private ProductRowMapper() {
+    }
+
+    @Override
+    public Product map(ResultSet rs) throws SQLException {
+        return new Product(rs.getInt(PRODUCT_ID), rs.getString(PRODUCT_NAME), rs.getDouble(PRICE), rs.getInt(QUANTITY));
+    }
+}
@@ -0,0 +1,216 @@
+package com.nimbus.partb;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+/**
+ * Per-connection registry of the Product CRUD statements
+ *
+ * In reuse mode each SQL string is prepared once, on first use, and the
+ * PreparedStatement is kept for the life of the connection. Combined with
+ * useServerPrepStmts/cachePrepStmts on the URL this means the server parses
+ * each statement once per session. With reuse disabled every call prepares
+ * and closes its own statement. That is only a real per-call prepare on a
+ * connection without the driver statement cache (a caching connection hands
+ * back the cached server statement), which is how StatementReuseMeasurement
+ * runs it as its baseline.
+ */
+public class ProductStatements implements AutoCloseable {
+
+    // SQL Statements (all Prepared)
+    public static final String INSERT_SQL =
+            "INSERT INTO Product (ProductID, ProductName, Price, Quantity) VALUES (?, ?, ?, ?)";
+    public static final String SELECT_ALL_SQL =
+            "SELECT " + ProductRowMapper.COLUMNS.columnList() + " FROM Product ORDER BY ProductID";
+    public static final String SELECT_BY_ID_SQL =
+            "SELECT " + ProductRowMapper.COLUMNS.columnList() + " FROM Product WHERE ProductID = ?";
+    public static final String UPDATE_SQL =
+            "UPDATE Product SET ProductName = ?, Price = ?, Quantity = ? WHERE ProductID = ?";
+    public static final String DELETE_SQL =
+            "DELETE FROM Product WHERE ProductID = ?";
+
+    private final Connection con;
+    private final boolean reuse;
+
+    // Lazily prepared statements (reuse mode only)
+    private PreparedStatement insert;
+    private PreparedStatement selectAll;
+    private PreparedStatement selectById;
+    private PreparedStatement update;
+    private PreparedStatement delete;
+
+    public ProductStatements(Connection con) {
+        this(con, true);
+    }
+
+    /**
+     * @param con connection the statements belong to; it is not closed by close()
+     * @param reuse true to prepare each statement once, false to prepare per call
+     */
+    public ProductStatements(Connection con, boolean reuse) {
+        this.con = con;
+        this.reuse = reuse;
+    }
+
+    public Connection getConnection() {
+        return con;
+    }
+
+    /**
+     * INSERT one product
+     * @return rows inserted
+     */
+    public int insert(int id, String name, double price, int qty) throws SQLException {
+        PreparedStatement ps = reuse ? insertStatement() : con.prepareStatement(INSERT_SQL);
+        try {
+            ps.setInt(1, id);
+            ps.setString(2, name);
+            ps.setDouble(3, price);
+            ps.setInt(4, qty);
+            return ps.executeUpdate();
+        } finally {
+            release(ps);
+        }
+    }
+
+    /**
+     * SELECT all products in ProductID order, handing each row to the consumer
+     * @return number of rows read
+     */
+    public int forEach(Consumer<Product> consumer) throws SQLException {
+        PreparedStatement ps = reuse ? selectAllStatement() : con.prepareStatement(SELECT_ALL_SQL);
+        try (ResultSet rs = ps.executeQuery()) {
+            int count = 0;
+            while (rs.next()) {
+                consumer.accept(ProductRowMapper.INSTANCE.map(rs));
+                count++;
+            }
+            return count;
+        } finally {
+            release(ps);
+        }
+    }
+
+    /**
+     * SELECT one product by ProductID
+     * @return the product, or null if it does not exist
+     */
+    public Product findById(int id) throws SQLException {
+        PreparedStatement ps = reuse ? selectByIdStatement() : con.prepareStatement(SELECT_BY_ID_SQL);
+        try {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return ProductRowMapper.INSTANCE.map(rs);
+                }
+                return null;
+            }
+        } finally {
+            release(ps);
+        }
+    }
+
+    /**
+     * UPDATE one product by ProductID
+     * @return rows updated (0 if the product does not exist)
+     */
+    public int update(int id, String name, double price, int qty) throws SQLException {
+        PreparedStatement ps = reuse ? updateStatement() : con.prepareStatement(UPDATE_SQL);
+        try {
+            ps.setString(1, name);
+            ps.setDouble(2, price);
+            ps.setInt(3, qty);
+            ps.setInt(4, id);
+            return ps.executeUpdate();
+        } finally {
+            release(ps);
+        }
+    }
+
+    /**
+     * DELETE one product by ProductID
+     * @return rows deleted (0 if the product does not exist)
+     */
+    public int delete(int id) throws SQLException {
+        PreparedStatement ps = reuse ? deleteStatement() : con.prepareStatement(DELETE_SQL);
+        try {
+            ps.setInt(1, id);
+            return ps.executeUpdate();
+        } finally {
+            release(ps);
+        }
+    }
+
+    // Lazy accessors for the reusable statements
+    private PreparedStatement insertStatement() throws SQLException {
+        if (insert == null) {
+            insert = con.prepareStatement(INSERT_SQL);
+        }
+        return insert;
+    }
+
+    private PreparedStatement selectAllStatement() throws SQLException {
+        if (selectAll == null) {
+            selectAll = con.prepareStatement(SELECT_ALL_SQL);
+        }
+        return selectAll;
+    }
+
+    private PreparedStatement selectByIdStatement() throws SQLException {
+        if (selectById == null) {
+            selectById = con.prepareStatement(SELECT_BY_ID_SQL);
+        }
+        return selectById;
+    }
+
+    private PreparedStatement updateStatement() throws SQLException {
+        if (update == null) {
+            update = con.prepareStatement(UPDATE_SQL);
+        }
+        return update;
+    }
+
+    private PreparedStatement deleteStatement() throws SQLException {
+        if (delete == null) {
+            delete = con.prepareStatement(DELETE_SQL);
+        }
+        return delete;
+    }
+
+    private void release(PreparedStatement ps) throws SQLException {
+        if (reuse) {
+            ps.clearParameters();
+        } else {
+            ps.close();
+        }
+    }
+
+    /**
+     * Close every prepared statement; the connection itself stays open
+     */
+    @Override
+    public void close() throws SQLException {
+        SQLException first = null;
+        for (PreparedStatement ps : new PreparedStatement[]{insert, selectAll, selectById, update, delete}) {
+            if (ps == null) {
+                continue;
+            }
+            try {
+                ps.close();
+            } catch (SQLException e) {
+                if (first == null) {
+                    first = e;
+                } else {
+                    first.addSuppressed(e);
+                }
+            }
+        }
+        insert = selectAll = selectById = update = delete = null;
+        if (first != null) {
+            throw first;
+        }
+    }
+}
@@ -0,0 +1,544 @@
+package com.nimbus.partb;
+
+import com.nimbus.jdbc.LatencyHistogram;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind buffer for Product writes
+ *
+ * Inserts, updates and deletes are queued in memory, keyed by ProductID,
+ * and return at once. A second write to a queued ProductID replaces the
+ * first (an update after an insert stays an insert with the new values, a
+ * delete after anything is a delete, an insert after a delete becomes an
+ * upsert), so a hot product adjusted many times between flushes costs one
+ * statement. A background thread flushes every flushIntervalMillis, or as
+ * soon as flushThreshold ProductIDs are pending, writing each kind of
+ * change as one JDBC batch and committing the whole flush once.
+ *
+ * Reads through findById/forEach see queued values before they reach the
+ * table. Writers block once maxPending ProductIDs are queued until a flush
+ * makes room. Everything queued is flushed by close() and, failing that,
+ * by a JVM shutdown hook.
+ */
+public class ProductWriteBehind implements AutoCloseable {
+
+    public static final int DEFAULT_FLUSH_THRESHOLD = 500;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+
+    private enum Kind { INSERT, UPDATE, UPSERT, DELETE }
+
+    private final Connection con;
+    private final int flushThreshold;
+    private final int maxPending;
+    private final ScheduledExecutorService flusher;
+    private final Thread shutdownHook;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Object flushLock = new Object();
+
+    // Guarded by this: writes not yet picked up, and the writes of the flush in progress
+    private Map<Integer, PendingWrite> pending = new LinkedHashMap<>();
+    private Map<Integer, PendingWrite> inFlight = new LinkedHashMap<>();
+    private boolean closed;
+
+    // Statistics
+    private final LatencyHistogram flushLatency = new LatencyHistogram();
+    private long queuedWrites;
+    private long coalescedWrites;
+    private long rowsFlushed;
+    private long failedRows;
+    private String lastError;
+
+    public ProductWriteBehind(Connection con) throws SQLException {
+        this(con, DEFAULT_FLUSH_THRESHOLD, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param con connection used only for flushing; switched to manual commit
+     * @param flushThreshold pending ProductIDs that trigger a flush before the interval elapses
+     * @param flushIntervalMillis maximum time a write stays queued
+     */
+    public ProductWriteBehind(Connection con, int flushThreshold, long flushIntervalMillis) throws SQLException {
+        if (flushThreshold <= 0 || flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("flushThreshold and flushIntervalMillis must be positive");
+        }
+        this.con = con;
+        this.flushThreshold = flushThreshold;
+        this.maxPending = flushThreshold * 4;
+        con.setAutoCommit(false);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "nimbus-product-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        this.shutdownHook = new Thread(this::flushQuietly, "nimbus-product-write-behind-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Queue an INSERT
+     * @return false if the ProductID is already queued as an existing product
+     */
+    public boolean insert(Product product) {
+        return enqueue(Kind.INSERT, product.getProductID(), copy(product));
+    }
+
+    /**
+     * Queue an UPDATE
+     * @return false if the ProductID is queued for deletion
+     */
+    public boolean update(Product product) {
+        return enqueue(Kind.UPDATE, product.getProductID(), copy(product));
+    }
+
+    /**
+     * Queue a DELETE
+     */
+    public void delete(int productID) {
+        enqueue(Kind.DELETE, productID, null);
+    }
+
+    private synchronized boolean enqueue(Kind kind, int id, Product product) {
+        // Back-pressure: a new ProductID waits for room, a queued one is coalesced in place
+        while (!closed && pending.size() >= maxPending && !pending.containsKey(id)) {
+            requestFlush();
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the write-behind buffer", e);
+            }
+        }
+        if (closed) {
+            throw new IllegalStateException("Write-behind buffer is closed");
+        }
+
+        PendingWrite queued = pending.get(id);
+        PendingWrite flushing = queued == null ? inFlight.get(id) : null;
+        PendingWrite latest = queued != null ? queued : flushing;
+        PendingWrite merged = latest == null ? new PendingWrite(kind, product) : coalesce(latest, kind, product);
+        if (merged == null) {
+            return false;
+        }
+        if (flushing != null && merged.kind == Kind.INSERT) {
+            // The in-flight write lands first, so this one must not depend on the row being absent
+            merged = new PendingWrite(Kind.UPSERT, merged.product);
+        }
+
+        pending.put(id, merged);
+        queuedWrites++;
+        if (queued != null) {
+            coalescedWrites++;
+        }
+        if (pending.size() >= flushThreshold) {
+            requestFlush();
+        }
+        return true;
+    }
+
+    /**
+     * Combine a queued write with a newer one for the same ProductID
+     * @return the single write with the same net effect, or null if the newer write cannot apply
+     */
+    private static PendingWrite coalesce(PendingWrite older, Kind kind, Product product) {
+        switch (kind) {
+            case DELETE:
+                return new PendingWrite(Kind.DELETE, null);
+            case UPDATE:
+                return older.kind == Kind.DELETE ? null : new PendingWrite(older.kind, product);
+            case INSERT:
+                return older.kind == Kind.DELETE ? new PendingWrite(Kind.UPSERT, product) : null;
+            default:
+                return new PendingWrite(Kind.UPSERT, product);
+        }
+    }
+
+    /**
+     * READ one product, preferring a queued write over the table
+     * @return the product, or null if it does not exist or is queued for deletion
+     */
+    public Product findById(int productID, ProductStatements reader) throws SQLException {
+        PendingWrite write;
+        synchronized (this) {
+            write = pending.get(productID);
+            if (write == null) {
+                write = inFlight.get(productID);
+            }
+        }
+        if (write != null) {
+            return write.kind == Kind.DELETE ? null : copy(write.product);
+        }
+        return reader.findById(productID);
+    }
+
+    /**
+     * READ all products in ProductID order with queued writes applied
+     * @return number of products handed to the consumer
+     */
+    public int forEach(ProductStatements reader, Consumer<Product> consumer) throws SQLException {
+        TreeMap<Integer, PendingWrite> overlay = new TreeMap<>();
+        synchronized (this) {
+            overlay.putAll(inFlight);
+            overlay.putAll(pending);
+        }
+        int[] count = {0};
+        reader.forEach(row -> {
+            // Queued inserts that sort before this row
+            while (!overlay.isEmpty() && overlay.firstKey() < row.getProductID()) {
+                emitIfPresent(overlay.pollFirstEntry().getValue(), consumer, count);
+            }
+            PendingWrite write = overlay.remove(row.getProductID());
+            if (write == null) {
+                consumer.accept(row);
+                count[0]++;
+            } else if (write.kind != Kind.DELETE) {
+                consumer.accept(copy(write.product));
+                count[0]++;
+            }
+        });
+        for (PendingWrite write : overlay.values()) {
+            emitIfPresent(write, consumer, count);
+        }
+        return count[0];
+    }
+
+    private static void emitIfPresent(PendingWrite write, Consumer<Product> consumer, int[] count) {
+        // An UPDATE of a row that is not in the table changes nothing
+        if (write.kind == Kind.INSERT || write.kind == Kind.UPSERT) {
+            consumer.accept(copy(write.product));
+            count[0]++;
+        }
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true) && !flusher.isShutdown()) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException e) {
+            System.out.println("Error flushing product writes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write everything queued so far in one transaction
+     * @return number of ProductIDs written
+     */
+    public int flush() throws SQLException {
+        synchronized (flushLock) {
+            flushRequested.set(false);
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return 0;
+                }
+                inFlight = pending;
+                pending = new LinkedHashMap<>();
+                notifyAll();
+            }
+
+            long start = System.nanoTime();
+            int written = 0;
+            try {
+                written = writeAll(inFlight);
+            } catch (SQLException e) {
+                synchronized (this) {
+                    lastError = e.getMessage();
+                    // Put the writes back underneath anything queued since
+                    Map<Integer, PendingWrite> requeued = new LinkedHashMap<>(inFlight);
+                    for (Map.Entry<Integer, PendingWrite> newer : pending.entrySet()) {
+                        PendingWrite older = requeued.get(newer.getKey());
+                        PendingWrite merged = older == null ? null
+                                : coalesce(older, newer.getValue().kind, newer.getValue().product);
+                        requeued.put(newer.getKey(), merged != null ? merged : newer.getValue());
+                    }
+                    pending = requeued;
+                    inFlight = new LinkedHashMap<>();
+                }
+                throw e;
+            }
+            flushLatency.record(System.nanoTime() - start);
+            synchronized (this) {
+                rowsFlushed += written;
+                inFlight = new LinkedHashMap<>();
+            }
+            return written;
+        }
+    }
+
+    /**
+     * One batch per kind of write, one commit; a failing batch is replayed row by row
+     */
+    private int writeAll(Map<Integer, PendingWrite> writes) throws SQLException {
+        Map<Kind, List<Map.Entry<Integer, PendingWrite>>> byKind = new LinkedHashMap<>();
+        for (Kind kind : Kind.values()) {
+            byKind.put(kind, new ArrayList<>());
+        }
+        for (Map.Entry<Integer, PendingWrite> entry : writes.entrySet()) {
+            byKind.get(entry.getValue().kind).add(entry);
+        }
+
+        try {
+            int written = 0;
+            List<Integer> missing = new ArrayList<>();
+            for (Map.Entry<Kind, List<Map.Entry<Integer, PendingWrite>>> group : byKind.entrySet()) {
+                if (!group.getValue().isEmpty()) {
+                    written += writeBatch(group.getKey(), group.getValue(), missing);
+                }
+            }
+            con.commit();
+            for (int id : missing) {
+                recordFailure(id, "no product to update");
+            }
+            return written;
+        } catch (BatchUpdateException e) {
+            con.rollback();
+            return replayRowByRow(byKind);
+        } catch (SQLException e) {
+            con.rollback();
+            throw e;
+        }
+    }
+
+    private int writeBatch(Kind kind, List<Map.Entry<Integer, PendingWrite>> writes,
+                           List<Integer> missing) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(sqlFor(kind))) {
+            for (Map.Entry<Integer, PendingWrite> entry : writes) {
+                bind(ps, kind, entry.getKey(), entry.getValue().product);
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            int written = writes.size();
+            if (kind == Kind.UPDATE) {
+                for (int i = 0; i < counts.length && i < writes.size(); i++) {
+                    if (counts[i] == 0) {
+                        missing.add(writes.get(i).getKey());
+                        written--;
+                    }
+                }
+            }
+            return written;
+        }
+    }
+
+    private synchronized void recordFailure(int id, String reason) {
+        failedRows++;
+        lastError = "ProductID " + id + ": " + reason;
+    }
+
+    private int replayRowByRow(Map<Kind, List<Map.Entry<Integer, PendingWrite>>> byKind) throws SQLException {
+        int written = 0;
+        for (Map.Entry<Kind, List<Map.Entry<Integer, PendingWrite>>> group : byKind.entrySet()) {
+            if (group.getValue().isEmpty()) {
+                continue;
+            }
+            try (PreparedStatement ps = con.prepareStatement(sqlFor(group.getKey()))) {
+                for (Map.Entry<Integer, PendingWrite> entry : group.getValue()) {
+                    try {
+                        bind(ps, group.getKey(), entry.getKey(), entry.getValue().product);
+                        if (ps.executeUpdate() == 0 && group.getKey() == Kind.UPDATE) {
+                            recordFailure(entry.getKey(), "no product to update");
+                        } else {
+                            written++;
+                        }
+                    } catch (SQLException e) {
+                        recordFailure(entry.getKey(), e.getMessage());
+                    }
+                }
+            }
+        }
+        con.commit();
+        return written;
+    }
+
+    private static String sqlFor(Kind kind) {
+        switch (kind) {
+            case INSERT:
+                return ProductStatements.INSERT_SQL;
+            case UPDATE:
+                return ProductStatements.UPDATE_SQL;
+            case UPSERT:
+                return ProductInventorySync.UPSERT_SQL;
+            default:
+                return ProductStatements.DELETE_SQL;
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Kind kind, int id, Product p) throws SQLException {
+        if (kind == Kind.DELETE) {
+            ps.setInt(1, id);
+        } else if (kind == Kind.UPDATE) {
+            ps.setString(1, p.getProductName());
+            ps.setDouble(2, p.getPrice());
+            ps.setInt(3, p.getQuantity());
+            ps.setInt(4, id);
+        } else {
+            ps.setInt(1, id);
+            ps.setString(2, p.getProductName());
+            ps.setDouble(3, p.getPrice());
+            ps.setInt(4, p.getQuantity());
+        }
+    }
+
+    private static Product copy(Product p) {
+        return new Product(p.getProductID(), p.getProductName(), p.getPrice(), p.getQuantity());
+    }
+
+    /**
+     * @return queue depth, coalescing and flush counters, and flush latency
+     */
+    public synchronized Stats getStats() {
+        return new Stats(pending.size(), inFlight.size(), queuedWrites, coalescedWrites, rowsFlushed, failedRows,
+                flushLatency.getCount(), flushLatency.getPercentileNanos(0.50) / 1_000,
+                flushLatency.getPercentileNanos(0.99) / 1_000, flushLatency.getMaxNanos() / 1_000, lastError);
+    }
+
+    /**
+     * Flush everything queued and stop the background flusher; the connection stays open
+     */
+    @Override
+    public void close() throws SQLException {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down; the hook flushes as well
+        }
+        flush();
+    }
+
+    /**
+     * One queued write; product is null for a DELETE
+     */
+    private static final class PendingWrite {
+        private final Kind kind;
+        private final Product product;
+
+        private PendingWrite(Kind kind, Product product) {
+            this.kind = kind;
+            this.product = product;
+        }
+    }
+
+    /**
+     * Snapshot of write-behind counters
+     */
+    public static class Stats {
+        private final int pending;
+        private final int inFlight;
+        private final long queuedWrites;
+        private final long coalescedWrites;
+        private final long rowsFlushed;
+        private final long failedRows;
+        private final long flushes;
+        private final long flushP50Micros;
+        private final long flushP99Micros;
+        private final long flushMaxMicros;
+        private final String lastError;
+
+        Stats(int pending, int inFlight, long queuedWrites, long coalescedWrites, long rowsFlushed,
+              long failedRows, long flushes, long flushP50Micros, long flushP99Micros, long flushMaxMicros,
+              String lastError) {
+            this.pending = pending;
+            this.inFlight = inFlight;
+            this.queuedWrites = queuedWrites;
+            this.coalescedWrites = coalescedWrites;
+            this.rowsFlushed = rowsFlushed;
+            this.failedRows = failedRows;
+            this.flushes = flushes;
+            this.flushP50Micros = flushP50Micros;
+            this.flushP99Micros = flushP99Micros;
+            this.flushMaxMicros = flushMaxMicros;
+            this.lastError = lastError;
+        }
+
+        // Getters
+        public int getPending() {
+            return pending;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public long getQueuedWrites() {
+            return queuedWrites;
+        }
+
+        public long getCoalescedWrites() {
+            return coalescedWrites;
+        }
+
+        public long getRowsFlushed() {
+            return rowsFlushed;
+        }
+
+        public long getFailedRows() {
+            return failedRows;
+        }
+
+        public long getFlushes() {
+            return flushes;
+        }
+
+        public long getFlushP50Micros() {
+            return flushP50Micros;
+        }
+
+        public long getFlushP99Micros() {
+            return flushP99Micros;
+        }
+
+        public long getFlushMaxMicros() {
+            return flushMaxMicros;
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+
+        @Override
+        public String toString() {
+            return "WriteBehindStats{" +
+                    "pending=" + pending +
+                    ", inFlight=" + inFlight +
+                    ", queued=" + queuedWrites +
+                    ", coalesced=" + coalescedWrites +
+                    ", flushed=" + rowsFlushed +
+                    ", failed=" + failedRows +
+                    ", flushes=" + flushes +
+                    ", flushP50Micros=" + flushP50Micros +
+                    ", flushP99Micros=" + flushP99Micros +
+                    ", flushMaxMicros=" + flushMaxMicros +
+                    (lastError == null ? "" : ", lastError='" + lastError + '\'') +
+                    '}';
+        }
+    }
+}
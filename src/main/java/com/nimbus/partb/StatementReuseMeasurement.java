@@ -0,0 +1,118 @@
+package com.nimbus.partb;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Measurement mode for Part B
+ * Runs the Product CRUD statements with and without statement reuse and
+ * prints per-operation latency. All work happens on scratch ProductIDs
+ * inside transactions that are rolled back, so the table is unchanged.
+ *
+ * The two modes need two connections: the "prepare" mode must run on a
+ * connection opened without useServerPrepStmts/cachePrepStmts, otherwise
+ * the driver's statement cache turns every prepare into a cache hit and
+ * both modes measure reuse.
+ */
+public class StatementReuseMeasurement {
+
+    // Scratch ProductIDs start here so they do not collide with real rows
+    private static final int SCRATCH_BASE_ID = 2_000_000_000;
+    // Full scans are expensive on large tables, so they are sampled less often
+    private static final int MAX_LIST_ITERATIONS = 100;
+
+    private StatementReuseMeasurement() {
+    }
+
+    /**
+     * Auto-commit settings of both connections are restored afterwards
+     * @param plain connection without a driver statement cache, for the prepare-per-call mode
+     * @param caching connection with server-side prepared statements cached, for the reuse mode
+     * @param iterations rows inserted, updated and deleted per mode
+     * @param out where the report is printed
+     */
+    public static void run(Connection plain, Connection caching, int iterations, PrintStream out)
+            throws SQLException {
+        if (iterations <= 0 || iterations > Integer.MAX_VALUE - SCRATCH_BASE_ID) {
+            throw new IllegalArgumentException("iterations out of range: " + iterations);
+        }
+        boolean plainAutoCommit = plain.getAutoCommit();
+        boolean cachingAutoCommit = caching.getAutoCommit();
+        plain.setAutoCommit(false);
+        caching.setAutoCommit(false);
+        try {
+            // Warm-up pass so JIT and server caches do not favour the second mode
+            measure(plain, false, Math.max(1, iterations / 10));
+            measure(caching, true, Math.max(1, iterations / 10));
+
+            out.println("=====================================================");
+            out.println(" Product statement latency (" + iterations + " iterations, microseconds)");
+            out.println("=====================================================");
+            out.printf("%-8s %-10s %10s %10s %10s%n", "Op", "Mode", "avg", "p50", "p99");
+            out.println("-----------------------------------------------------");
+            long[][] perCall = measure(plain, false, iterations);
+            long[][] reused = measure(caching, true, iterations);
+            String[] ops = {"insert", "update", "list", "delete"};
+            for (int op = 0; op < ops.length; op++) {
+                print(out, ops[op], "prepare", perCall[op]);
+                print(out, ops[op], "reuse", reused[op]);
+            }
+            out.println("=====================================================");
+        } finally {
+            try {
+                plain.rollback();
+                plain.setAutoCommit(plainAutoCommit);
+            } finally {
+                caching.rollback();
+                caching.setAutoCommit(cachingAutoCommit);
+            }
+        }
+    }
+
+    /**
+     * @return nanosecond latencies indexed by [insert, update, list, delete][iteration]
+     */
+    private static long[][] measure(Connection con, boolean reuse, int iterations) throws SQLException {
+        int listIterations = Math.min(iterations, MAX_LIST_ITERATIONS);
+        long[][] nanos = {new long[iterations], new long[iterations], new long[listIterations], new long[iterations]};
+        try (ProductStatements stmts = new ProductStatements(con, reuse)) {
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                stmts.insert(SCRATCH_BASE_ID + i, "scratch-" + i, 1.0, 1);
+                nanos[0][i] = System.nanoTime() - start;
+            }
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                stmts.update(SCRATCH_BASE_ID + i, "scratch-" + i, 2.0, 2);
+                nanos[1][i] = System.nanoTime() - start;
+            }
+            for (int i = 0; i < listIterations; i++) {
+                long start = System.nanoTime();
+                stmts.forEach(p -> { });
+                nanos[2][i] = System.nanoTime() - start;
+            }
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                stmts.delete(SCRATCH_BASE_ID + i);
+                nanos[3][i] = System.nanoTime() - start;
+            }
+        }
+        con.rollback();
+        return nanos;
+    }
+
+    private static void print(PrintStream out, String op, String mode, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double avg = Arrays.stream(sorted).average().orElse(0) / 1_000.0;
+        out.printf("%-8s %-10s %10.1f %10.1f %10.1f%n", op, mode, avg,
+                percentile(sorted, 0.50) / 1_000.0, percentile(sorted, 0.99) / 1_000.0);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,174 @@
+package com.nimbus.partc;
+
+import com.nimbus.jdbc.PooledDataSource;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Controller Class: AsyncStudentController
+ * Non-blocking facade over StudentController returning CompletableFutures
+ *
+ * On Java 21+ each call runs on its own virtual thread; elsewhere a bounded
+ * platform thread pool with a bounded queue is used. Either way a semaphore
+ * caps the number of calls talking to the database at once to the
+ * connection budget (the pool's max size), so callers queue in memory
+ * instead of timing out on a pool borrow.
+ */
+public class AsyncStudentController implements AutoCloseable {
+    // Concurrency limit when the controller's DataSource is not a PooledDataSource
+    public static final int DEFAULT_MAX_CONCURRENCY = 10;
+    // Tasks the platform-thread executor will queue before rejecting
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    private final StudentController controller;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final int maxConcurrency;
+    private final boolean virtualThreads;
+
+    public AsyncStudentController(StudentController controller) {
+        this(controller, connectionBudget(controller), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param controller blocking controller the calls are delegated to
+     * @param maxConcurrency maximum calls using a connection at the same time
+     * @param queueCapacity calls queued before new ones are rejected (platform threads only)
+     */
+    public AsyncStudentController(StudentController controller, int maxConcurrency, int queueCapacity) {
+        if (maxConcurrency <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("maxConcurrency and queueCapacity must be positive");
+        }
+        this.controller = controller;
+        this.maxConcurrency = maxConcurrency;
+        this.inFlight = new Semaphore(maxConcurrency, true);
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : newBoundedExecutor(maxConcurrency, queueCapacity);
+    }
+
+    private static int connectionBudget(StudentController controller) {
+        PooledDataSource pool = PooledDataSource.unwrapFrom(controller.getDataSource());
+        return pool != null ? pool.getConfig().getMaxSize() : DEFAULT_MAX_CONCURRENCY;
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() looked up reflectively so the
+     * project still compiles and runs on Java 17
+     * @return the executor, or null before Java 21
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newBoundedExecutor(int threads, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "student-async-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    public CompletableFuture<Boolean> addStudent(Student student) {
+        return submit(() -> controller.addStudent(student));
+    }
+
+    public CompletableFuture<Student> getStudentById(int studentID) {
+        return submit(() -> controller.getStudentById(studentID));
+    }
+
+    public CompletableFuture<List<Student>> getAllStudents() {
+        return submit(controller::getAllStudents);
+    }
+
+    public CompletableFuture<Boolean> updateStudent(Student student) {
+        return submit(() -> controller.updateStudent(student));
+    }
+
+    public CompletableFuture<Boolean> deleteStudent(int studentID) {
+        return submit(() -> controller.deleteStudent(studentID));
+    }
+
+    /**
+     * Run a blocking call on the executor while holding one unit of the connection budget
+     * A full queue completes the future with RejectedExecutionException instead of throwing
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                inFlight.acquireUninterruptibly();
+                try {
+                    return call.get();
+                } finally {
+                    inFlight.release();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public StudentController getController() {
+        return controller;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * @return calls currently holding a connection slot
+     */
+    public int getInFlight() {
+        return maxConcurrency - inFlight.availablePermits();
+    }
+
+    /**
+     * @return calls waiting for a connection slot
+     */
+    public int getWaiting() {
+        return inFlight.getQueueLength();
+    }
+
+    /**
+     * Stop accepting calls and wait briefly for running ones; the wrapped controller stays open
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
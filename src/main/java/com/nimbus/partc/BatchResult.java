@@ -0,0 +1,67 @@
+package com.nimbus.partc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of a batched StudentController operation
+ * Counts the rows that were written and keeps the rows that failed
+ */
+public class BatchResult {
+    private int succeeded;
+    private final List<Failure> failures = new ArrayList<>();
+
+    void addSuccess() {
+        succeeded++;
+    }
+
+    void addFailure(Student student, String reason) {
+        failures.add(new Failure(student, reason));
+    }
+
+    // Getters
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return failures.size();
+    }
+
+    public List<Failure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{succeeded=" + succeeded + ", failed=" + failures.size() + '}';
+    }
+
+    /**
+     * A row that could not be written and why
+     * The student is null when the whole batch failed before reaching any row
+     */
+    public static class Failure {
+        private final Student student;
+        private final String reason;
+
+        public Failure(Student student, String reason) {
+            this.student = student;
+            this.reason = reason;
+        }
+
+        public Student getStudent() {
+            return student;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "Failure{student=" + student + ", reason='" + reason + "'}";
+        }
+    }
+}
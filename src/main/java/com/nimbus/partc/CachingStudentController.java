@@ -0,0 +1,154 @@
+package com.nimbus.partc;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Controller Class: CachingStudentController
+ * StudentController with a read-through StudentCache in front of getStudentById
+ *
+ * Inserts and version-checked updates are written through to the cache (a
+ * delete caches the ID as missing); plain updates, failed writes and
+ * batched writes invalidate the affected IDs so the next lookup goes back
+ * to the database. Bulk deletes and updates by predicate do the same chunk
+ * by chunk, as each chunk commits. The single-row overrides are on the
+ * *Checked variants, which the printing variants call, so both paths see
+ * the cache.
+ */
+public class CachingStudentController extends StudentController {
+    // Default cache settings
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final long DEFAULT_TTL_MILLIS = 5 * 60_000;
+    public static final long DEFAULT_NEGATIVE_TTL_MILLIS = 30_000;
+
+    private final StudentCache cache;
+
+    // Default Constructor: pooled connections and default cache settings
+    public CachingStudentController() {
+        super();
+        this.cache = new StudentCache(DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS, DEFAULT_NEGATIVE_TTL_MILLIS);
+    }
+
+    public CachingStudentController(DataSource dataSource, StudentCache cache) {
+        super(dataSource);
+        this.cache = cache;
+    }
+
+    public StudentCache getCache() {
+        return cache;
+    }
+
+    /**
+     * READ Operation: answered from the cache when possible, otherwise loaded and cached
+     * A failed load throws before anything is cached, so a database error is never remembered as "not found".
+     * getStudentById goes through here too.
+     */
+    @Override
+    public Student getStudentByIdChecked(int studentID) throws SQLException {
+        StudentCache.Lookup lookup = cache.get(studentID);
+        if (lookup.isHit()) {
+            return lookup.getStudent();
+        }
+        long token = cache.beginLoad();
+        // A lagging replica could hand back a row older than a write this cache already saw
+        Student student = getStudentByIdFromPrimary(studentID);
+        cache.putLoaded(studentID, student, token);
+        return student;
+    }
+
+    @Override
+    public boolean addStudentChecked(Student student) throws SQLException {
+        boolean added;
+        try {
+            added = super.addStudentChecked(student);
+        } catch (SQLException e) {
+            cache.invalidate(student.getStudentID());
+            throw e;
+        }
+        if (added) {
+            // The row was inserted at Version 0, whatever the caller's copy says
+            Student inserted = new Student(student);
+            inserted.setVersion(0);
+            cache.put(student.getStudentID(), inserted);
+        } else {
+            cache.invalidate(student.getStudentID());
+        }
+        return added;
+    }
+
+    @Override
+    public boolean updateStudentChecked(Student student) throws SQLException {
+        try {
+            return super.updateStudentChecked(student);
+        } finally {
+            // The new Version is assigned by the database, so the next read loads the row
+            cache.invalidate(student.getStudentID());
+        }
+    }
+
+    @Override
+    public UpdateResult updateStudentIfVersion(Student student) {
+        UpdateResult result = super.updateStudentIfVersion(student);
+        if (result.getStatus() == UpdateResult.Status.UPDATED || result.getStatus() == UpdateResult.Status.CONFLICT) {
+            // Either the row just written or the current row read after losing the race
+            cache.put(student.getStudentID(), result.getStudent());
+        } else {
+            cache.invalidate(student.getStudentID());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean deleteStudentChecked(int studentID) throws SQLException {
+        boolean deleted;
+        try {
+            deleted = super.deleteStudentChecked(studentID);
+        } catch (SQLException e) {
+            cache.invalidate(studentID);
+            throw e;
+        }
+        if (deleted) {
+            cache.put(studentID, null);
+        } else {
+            cache.invalidate(studentID);
+        }
+        return deleted;
+    }
+
+    @Override
+    void bulkChunkCommitted(List<Integer> ids, boolean deleted) {
+        for (int id : ids) {
+            if (deleted) {
+                cache.put(id, null);
+            } else {
+                cache.invalidate(id);
+            }
+        }
+    }
+
+    @Override
+    public BatchResult addStudents(Collection<Student> students, int chunkSize) {
+        try {
+            return super.addStudents(students, chunkSize);
+        } finally {
+            invalidateAll(students);
+        }
+    }
+
+    @Override
+    public BatchResult updateStudents(Collection<Student> students, int chunkSize) {
+        try {
+            return super.updateStudents(students, chunkSize);
+        } finally {
+            invalidateAll(students);
+        }
+    }
+
+    private void invalidateAll(Collection<Student> students) {
+        for (Student student : students) {
+            cache.invalidate(student.getStudentID());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.nimbus.partc;
+
+/**
+ * Model Class: DepartmentStats
+ * Student count and marks aggregates for one department
+ */
+public class DepartmentStats {
+    private final String department;
+    private final long count;
+    private final double averageMarks;
+    private final double minMarks;
+    private final double maxMarks;
+
+    public DepartmentStats(String department, long count, double averageMarks, double minMarks, double maxMarks) {
+        this.department = department;
+        this.count = count;
+        this.averageMarks = averageMarks;
+        this.minMarks = minMarks;
+        this.maxMarks = maxMarks;
+    }
+
+    // Getters
+    public String getDepartment() {
+        return department;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getAverageMarks() {
+        return averageMarks;
+    }
+
+    public double getMinMarks() {
+        return minMarks;
+    }
+
+    public double getMaxMarks() {
+        return maxMarks;
+    }
+
+    @Override
+    public String toString() {
+        return "DepartmentStats{" +
+                "department='" + department + '\'' +
+                ", count=" + count +
+                ", averageMarks=" + averageMarks +
+                ", minMarks=" + minMarks +
+                ", maxMarks=" + maxMarks +
+                '}';
+    }
+}
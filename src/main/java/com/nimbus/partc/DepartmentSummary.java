@@ -0,0 +1,215 @@
+package com.nimbus.partc;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-process per-department aggregate kept current by StudentController writes
+ *
+ * Loaded once with the GROUP BY report, then adjusted on every committed
+ * insert, update and delete, so reading it costs O(departments) and never
+ * touches the Student table. Count and sum are exact under any change; a
+ * minimum or maximum that is removed cannot be recomputed from the delta,
+ * so that department is flagged and re-read with one filtered query the
+ * next time the summary is read. A bulk change reloads everything lazily.
+ *
+ * Callbacks arrive after the commit, so a query can already include a
+ * write whose delta has not been applied yet; applying it afterwards would
+ * count it twice. The controller brackets every write with beginWrite and
+ * endWrite, so a query that overlaps a write in flight, or any change
+ * event, is not trusted: its department (or the whole summary) stays
+ * stale and is read again, up to MAX_READS times per call and otherwise on
+ * the next call. A query that fails changes nothing: the reload or re-read
+ * stays pending and the error goes to the caller.
+ */
+public class DepartmentSummary implements StudentChangeListener {
+    // Rounds of queries one getStats call runs while writes keep racing with them
+    private static final int MAX_READS = 3;
+
+    private final StudentController controller;
+    private final Map<String, Aggregate> departments = new TreeMap<>();
+    private boolean reloadAll = true;
+    // Bumped by every change event and every beginWrite; tells a load whether writes raced with its query
+    private long changes;
+    // Writes between beginWrite and endWrite; their callbacks may still be on the way
+    private int inFlight;
+
+    private DepartmentSummary(StudentController controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * Create a summary and register it with the controller
+     */
+    public static DepartmentSummary attach(StudentController controller) {
+        DepartmentSummary summary = new DepartmentSummary(controller);
+        controller.addChangeListener(summary);
+        return summary;
+    }
+
+    /**
+     * @return current stats per department, in department order
+     * @throws SQLException if a reload or re-read query fails; it is retried on the next call
+     */
+    public List<DepartmentStats> getStats() throws SQLException {
+        for (int read = 0; read < MAX_READS && readPending(); read++) {
+            // Keep going while writes race with the queries; the last round's result is used either way
+        }
+
+        synchronized (this) {
+            List<DepartmentStats> stats = new ArrayList<>(departments.size());
+            for (Map.Entry<String, Aggregate> entry : departments.entrySet()) {
+                Aggregate agg = entry.getValue();
+                stats.add(new DepartmentStats(entry.getKey(), agg.count, agg.sum / agg.count, agg.min, agg.max));
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * Run the reload or the re-reads that are pending, if any
+     * @return true if a query ran and overlapped a write, so another round is pending
+     */
+    private boolean readPending() throws SQLException {
+        boolean reload;
+        List<String> stale = new ArrayList<>();
+        long seen;
+        boolean busy;
+        synchronized (this) {
+            reload = reloadAll;
+            seen = changes;
+            busy = inFlight > 0;
+            if (!reload) {
+                for (Map.Entry<String, Aggregate> entry : departments.entrySet()) {
+                    if (entry.getValue().extremesStale) {
+                        stale.add(entry.getKey());
+                    }
+                }
+            }
+        }
+        if (!reload && stale.isEmpty()) {
+            return false;
+        }
+
+        // Queries run without the lock so writers are never held up by a report
+        if (reload) {
+            List<DepartmentStats> loaded = controller.getDepartmentStatsChecked();
+            synchronized (this) {
+                boolean raced = busy || changes != seen;
+                departments.clear();
+                for (DepartmentStats s : loaded) {
+                    departments.put(s.getDepartment(), Aggregate.of(s));
+                }
+                reloadAll = raced;
+                return raced;
+            }
+        }
+        Map<String, DepartmentStats> refreshed = new TreeMap<>();
+        for (String department : stale) {
+            // A failure throws before anything is applied, so the stale flags stay set
+            refreshed.put(department, controller.getDepartmentStatsChecked(department));
+        }
+        synchronized (this) {
+            boolean raced = busy || changes != seen;
+            for (Map.Entry<String, DepartmentStats> entry : refreshed.entrySet()) {
+                DepartmentStats s = entry.getValue();
+                if (s == null) {
+                    departments.remove(entry.getKey());
+                } else {
+                    Aggregate agg = Aggregate.of(s);
+                    agg.extremesStale = raced;
+                    departments.put(entry.getKey(), agg);
+                }
+            }
+            return raced;
+        }
+    }
+
+    @Override
+    public synchronized void beginWrite() {
+        changes++;
+        inFlight++;
+    }
+
+    @Override
+    public synchronized void endWrite() {
+        inFlight--;
+    }
+
+    @Override
+    public synchronized void onInsert(Student student) {
+        changes++;
+        add(student);
+    }
+
+    @Override
+    public synchronized void onUpdate(Student before, Student after) {
+        changes++;
+        remove(before);
+        add(after);
+    }
+
+    @Override
+    public synchronized void onDelete(Student before) {
+        changes++;
+        remove(before);
+    }
+
+    @Override
+    public synchronized void onBulkChange() {
+        changes++;
+        reloadAll = true;
+    }
+
+    private void add(Student student) {
+        Aggregate agg = departments.computeIfAbsent(key(student), k -> new Aggregate());
+        double marks = student.getMarks();
+        if (agg.count == 0) {
+            agg.min = marks;
+            agg.max = marks;
+        } else {
+            agg.min = Math.min(agg.min, marks);
+            agg.max = Math.max(agg.max, marks);
+        }
+        agg.count++;
+        agg.sum += marks;
+    }
+
+    private void remove(Student student) {
+        Aggregate agg = departments.get(key(student));
+        if (agg == null) {
+            return;
+        }
+        agg.count--;
+        agg.sum -= student.getMarks();
+        if (agg.count <= 0) {
+            departments.remove(key(student));
+        } else if (student.getMarks() <= agg.min || student.getMarks() >= agg.max) {
+            agg.extremesStale = true;
+        }
+    }
+
+    private static String key(Student student) {
+        return student.getDepartment() == null ? "" : student.getDepartment();
+    }
+
+    private static final class Aggregate {
+        private long count;
+        private double sum;
+        private double min;
+        private double max;
+        private boolean extremesStale;
+
+        private static Aggregate of(DepartmentStats s) {
+            Aggregate agg = new Aggregate();
+            agg.count = s.getCount();
+            agg.sum = s.getAverageMarks() * s.getCount();
+            agg.min = s.getMinMarks();
+            agg.max = s.getMaxMarks();
+            return agg;
+        }
+    }
+}
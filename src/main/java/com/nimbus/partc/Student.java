@@ -11,6 +11,8 @@ public class Student {
     private String name;
     private String department;
     private double marks;
+    // Optimistic concurrency token; bumped by every UPDATE
+    private int version;
 
     // Default Constructor
     public Student() {
@@ -24,6 +26,17 @@ public class Student {
         this.marks = marks;
     }
 
+    // Parameterized Constructor with the row version read from the database
+    public Student(int studentID, String name, String department, double marks, int version) {
+        this(studentID, name, department, marks);
+        this.version = version;
+    }
+
+    // Copy Constructor
+    public Student(Student other) {
+        this(other.studentID, other.name, other.department, other.marks, other.version);
+    }
+
     // Getters and Setters
     public int getStudentID() {
         return studentID;
@@ -57,6 +70,14 @@ public class Student {
         this.marks = marks;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     // toString method for displaying student information
     @Override
     public String toString() {
@@ -65,6 +86,7 @@ public class Student {
                 ", Name='" + name + '\'' +
                 ", Department='" + department + '\'' +
                 ", Marks=" + marks +
+                ", Version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,236 @@
+package com.nimbus.partc;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU cache of students with a time-to-live per entry
+ *
+ * Missing IDs are cached too (negative entries, with their own shorter TTL)
+ * so repeated lookups of an absent student do not hit the database.
+ * Entries and lookups are copies, so callers cannot mutate cached state.
+ *
+ * A load that raced with a write is discarded: callers take a token with
+ * beginLoad() before querying and the result is only stored if no write
+ * happened to the cache in the meantime.
+ */
+public class StudentCache {
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final LinkedHashMap<Integer, Entry> entries;
+    private long writeGeneration;
+
+    // Counters
+    private long hits;
+    private long negativeHits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    /**
+     * @param maxEntries maximum number of cached IDs (present or missing)
+     * @param ttlMillis lifetime of a cached student
+     * @param negativeTtlMillis lifetime of a cached "not found"
+     */
+    public StudentCache(int maxEntries, long ttlMillis, long negativeTtlMillis) {
+        if (maxEntries <= 0 || ttlMillis <= 0 || negativeTtlMillis < 0) {
+            throw new IllegalArgumentException("Cache size and TTLs must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() > StudentCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Look up a student
+     * @return a Lookup describing a hit (present or missing) or a miss
+     */
+    public synchronized Lookup get(int studentID) {
+        Entry entry = entries.get(studentID);
+        if (entry == null) {
+            misses++;
+            return Lookup.MISS;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(studentID);
+            expirations++;
+            misses++;
+            return Lookup.MISS;
+        }
+        if (entry.student == null) {
+            negativeHits++;
+            return Lookup.NOT_FOUND;
+        }
+        hits++;
+        return new Lookup(true, copy(entry.student));
+    }
+
+    /**
+     * Start a read-through load
+     * @return token to pass to putLoaded
+     */
+    public synchronized long beginLoad() {
+        return writeGeneration;
+    }
+
+    /**
+     * Store the result of a load unless a write happened since beginLoad
+     * @param student loaded student, or null if the ID does not exist
+     */
+    public synchronized void putLoaded(int studentID, Student student, long token) {
+        if (token == writeGeneration) {
+            store(studentID, student);
+        }
+    }
+
+    /**
+     * Write-through: store the value a successful write just made current
+     * @param student the new row, or null if the ID was deleted
+     */
+    public synchronized void put(int studentID, Student student) {
+        writeGeneration++;
+        store(studentID, student);
+    }
+
+    /**
+     * Forget one ID after a write whose outcome is unknown
+     */
+    public synchronized void invalidate(int studentID) {
+        writeGeneration++;
+        entries.remove(studentID);
+    }
+
+    /**
+     * Forget everything
+     */
+    public synchronized void invalidateAll() {
+        writeGeneration++;
+        entries.clear();
+    }
+
+    private void store(int studentID, Student student) {
+        if (student == null && negativeTtlMillis == 0) {
+            entries.remove(studentID);
+            return;
+        }
+        long ttl = student == null ? negativeTtlMillis : ttlMillis;
+        entries.put(studentID, new Entry(student == null ? null : copy(student), System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * Drop expired entries now instead of waiting for them to be looked up
+     * @return number of entries removed
+     */
+    public synchronized int purgeExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().expiresAt <= now) {
+                it.remove();
+                removed++;
+            }
+        }
+        expirations += removed;
+        return removed;
+    }
+
+    private static Student copy(Student s) {
+        return new Student(s);
+    }
+
+    // Counters
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getNegativeHits() {
+        return negativeHits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getExpirations() {
+        return expirations;
+    }
+
+    public synchronized double getHitRatio() {
+        long lookups = hits + negativeHits + misses;
+        return lookups == 0 ? 0 : (double) (hits + negativeHits) / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "StudentCache{" +
+                "size=" + entries.size() +
+                ", hits=" + hits +
+                ", negativeHits=" + negativeHits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", expirations=" + expirations +
+                String.format(", hitRatio=%.2f", getHitRatio()) +
+                '}';
+    }
+
+    /**
+     * Outcome of a cache lookup
+     */
+    public static final class Lookup {
+        static final Lookup MISS = new Lookup(false, null);
+        static final Lookup NOT_FOUND = new Lookup(true, null);
+
+        private final boolean hit;
+        private final Student student;
+
+        private Lookup(boolean hit, Student student) {
+            this.hit = hit;
+            this.student = student;
+        }
+
+        /**
+         * @return true if the cache knows the answer (the student or that it does not exist)
+         */
+        public boolean isHit() {
+            return hit;
+        }
+
+        /**
+         * @return the cached student, or null for a miss or a cached "not found"
+         */
+        public Student getStudent() {
+            return student;
+        }
+    }
+
+    private static final class Entry {
+        private final Student student;
+        private final long expiresAt;
+
+        private Entry(Student student, long expiresAt) {
+            this.student = student;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.nimbus.partc;
+
+/**
+ * Callback for committed Student writes made through a StudentController
+ * Listeners are called after the transaction commits, on the writing thread.
+ * A StudentController brackets each write with beginWrite before its commit
+ * and endWrite after its callbacks, so a listener that reloads from the
+ * database can tell when a write its query may include is still unreported.
+ */
+public interface StudentChangeListener {
+
+    /**
+     * A write is about to commit; always followed by endWrite on the same thread,
+     * after the write's callbacks have run or the write has failed
+     */
+    default void beginWrite() {
+    }
+
+    default void endWrite() {
+    }
+
+    void onInsert(Student student);
+
+    /**
+     * @param before the row as it was read (and locked) inside the updating transaction
+     * @param after the row as written
+     */
+    void onUpdate(Student before, Student after);
+
+    void onDelete(Student before);
+
+    /**
+     * Rows changed without their previous values being known (batched updates);
+     * listeners holding derived state should rebuild it
+     */
+    default void onBulkChange() {
+    }
+}
@@ -0,0 +1,396 @@
+package com.nimbus.partc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Columnar, primitive-backed snapshot of the Student table for analytics
+ *
+ * Each column is one array: int[] StudentIDs, double[] marks, int[]
+ * department codes into a small dictionary, and optionally all names
+ * packed into one char[] arena with an offset per row. Aggregations are
+ * tight loops over these arrays, split into chunks that run in parallel
+ * on the common fork/join pool. A snapshot takes roughly 16 bytes per row
+ * (plus name characters), against well over 100 for a List of Students.
+ *
+ * Snapshots are immutable once built.
+ */
+public class StudentColumnarSnapshot {
+    // Rows per parallel work unit
+    private static final int CHUNK = 1 << 15;
+
+    private final int size;
+    private final int[] ids;
+    private final double[] marks;
+    private final int[] departmentCodes;
+    private final String[] departments;
+    // Optional name arena: name i is nameChars[nameOffsets[i] .. nameOffsets[i + 1])
+    private final char[] nameChars;
+    private final int[] nameOffsets;
+
+    private StudentColumnarSnapshot(Builder b) {
+        this.size = b.size;
+        this.ids = Arrays.copyOf(b.ids, b.size);
+        this.marks = Arrays.copyOf(b.marks, b.size);
+        this.departmentCodes = Arrays.copyOf(b.departmentCodes, b.size);
+        this.departments = b.dictionary.toArray(new String[0]);
+        if (b.withNames) {
+            this.nameChars = Arrays.copyOf(b.nameChars, b.nameLength);
+            this.nameOffsets = Arrays.copyOf(b.nameOffsets, b.size + 1);
+        } else {
+            this.nameChars = null;
+            this.nameOffsets = null;
+        }
+    }
+
+    /**
+     * Load the Student table through a controller's DataSource, streaming rows straight into the arrays
+     * @param withNames true to keep student names in the arena
+     */
+    public static StudentColumnarSnapshot load(StudentController controller, boolean withNames) throws SQLException {
+        return load(controller.getDataSource(), withNames);
+    }
+
+    public static StudentColumnarSnapshot load(DataSource dataSource, boolean withNames) throws SQLException {
+        String sql = withNames
+                ? "SELECT StudentID, Department, Marks, Name FROM Student"
+                : "SELECT StudentID, Department, Marks FROM Student";
+        Builder builder = new Builder(withNames);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Stream rows from MySQL rather than buffering the whole table in the driver
+            if (conn.getMetaData().getDriverName().contains("MySQL")) {
+                pstmt.setFetchSize(Integer.MIN_VALUE);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    builder.add(rs.getInt(1), rs.getString(2), rs.getDouble(3), withNames ? rs.getString(4) : null);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Build a snapshot from students already in memory
+     */
+    public static StudentColumnarSnapshot of(Collection<Student> students, boolean withNames) {
+        Builder builder = new Builder(withNames);
+        for (Student s : students) {
+            builder.add(s.getStudentID(), s.getDepartment(), s.getMarks(), s.getName());
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<String> getDepartments() {
+        return List.of(departments);
+    }
+
+    public boolean hasNames() {
+        return nameChars != null;
+    }
+
+    /**
+     * @return the name of row i, or null if names were not loaded
+     */
+    public String nameAt(int row) {
+        if (nameChars == null) {
+            return null;
+        }
+        return new String(nameChars, nameOffsets[row], nameOffsets[row + 1] - nameOffsets[row]);
+    }
+
+    public Student studentAt(int row) {
+        return new Student(ids[row], nameAt(row), departments[departmentCodes[row]], marks[row]);
+    }
+
+    private int chunkCount() {
+        return (size + CHUNK - 1) / CHUNK;
+    }
+
+    /**
+     * @return average marks per department, in dictionary order
+     */
+    public Map<String, Double> averageMarksByDepartment() {
+        int d = departments.length;
+        // Per chunk: sums in [0, d), counts in [d, 2d)
+        double[] totals = IntStream.range(0, chunkCount()).parallel()
+                .mapToObj(chunk -> {
+                    double[] local = new double[2 * d];
+                    int from = chunk * CHUNK;
+                    int to = Math.min(size, from + CHUNK);
+                    for (int i = from; i < to; i++) {
+                        int code = departmentCodes[i];
+                        local[code] += marks[i];
+                        local[d + code] += 1;
+                    }
+                    return local;
+                })
+                .reduce(new double[2 * d], StudentColumnarSnapshot::add);
+        Map<String, Double> averages = new LinkedHashMap<>();
+        for (int code = 0; code < d; code++) {
+            averages.put(departments[code], totals[d + code] == 0 ? 0 : totals[code] / totals[d + code]);
+        }
+        return averages;
+    }
+
+    /**
+     * @return the n students with the highest marks, best first
+     */
+    public List<Student> topByMarks(int n) {
+        if (n <= 0 || size == 0) {
+            return new ArrayList<>();
+        }
+        int k = Math.min(n, size);
+        int[] best = IntStream.range(0, chunkCount()).parallel()
+                .mapToObj(chunk -> {
+                    RowHeap heap = new RowHeap(k);
+                    int from = chunk * CHUNK;
+                    int to = Math.min(size, from + CHUNK);
+                    for (int i = from; i < to; i++) {
+                        heap.offer(i);
+                    }
+                    return heap;
+                })
+                .reduce((a, b) -> a.merge(b))
+                .map(RowHeap::sortedDescending)
+                .orElse(new int[0]);
+        List<Student> result = new ArrayList<>(best.length);
+        for (int row : best) {
+            result.add(studentAt(row));
+        }
+        return result;
+    }
+
+    /**
+     * Histogram of marks in equal-width bins over [min, max); values outside are clamped into the end bins
+     */
+    public long[] marksHistogram(double min, double max, int bins) {
+        if (bins <= 0 || !(max > min)) {
+            throw new IllegalArgumentException("Need bins > 0 and max > min");
+        }
+        double scale = bins / (max - min);
+        return IntStream.range(0, chunkCount()).parallel()
+                .mapToObj(chunk -> {
+                    long[] local = new long[bins];
+                    int from = chunk * CHUNK;
+                    int to = Math.min(size, from + CHUNK);
+                    for (int i = from; i < to; i++) {
+                        int bin = (int) ((marks[i] - min) * scale);
+                        local[bin < 0 ? 0 : (bin >= bins ? bins - 1 : bin)]++;
+                    }
+                    return local;
+                })
+                .reduce(new long[bins], StudentColumnarSnapshot::add);
+    }
+
+    /**
+     * @return approximate heap bytes held by the column arrays
+     */
+    public long estimatedBytes() {
+        long bytes = 16L * 4 + (long) size * (4 + 8 + 4);
+        if (nameChars != null) {
+            bytes += 2L * nameChars.length + 4L * nameOffsets.length;
+        }
+        for (String department : departments) {
+            bytes += 40 + 2L * department.length();
+        }
+        return bytes;
+    }
+
+    private static double[] add(double[] a, double[] b) {
+        double[] out = new double[a.length];
+        for (int i = 0; i < a.length; i++) {
+            out[i] = a[i] + b[i];
+        }
+        return out;
+    }
+
+    private static long[] add(long[] a, long[] b) {
+        long[] out = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            out[i] = a[i] + b[i];
+        }
+        return out;
+    }
+
+    /**
+     * Bounded min-heap of row numbers ordered by marks; keeps the k best rows seen
+     */
+    private final class RowHeap {
+        private final int[] rows;
+        private int count;
+
+        private RowHeap(int capacity) {
+            this.rows = new int[capacity];
+        }
+
+        private boolean less(int a, int b) {
+            return marks[a] < marks[b] || (marks[a] == marks[b] && ids[a] > ids[b]);
+        }
+
+        private void offer(int row) {
+            if (count < rows.length) {
+                rows[count] = row;
+                siftUp(count++);
+            } else if (less(rows[0], row)) {
+                rows[0] = row;
+                siftDown(0);
+            }
+        }
+
+        private RowHeap merge(RowHeap other) {
+            for (int i = 0; i < other.count; i++) {
+                offer(other.rows[i]);
+            }
+            return this;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!less(rows[i], rows[parent])) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                int smallest = i;
+                if (left < count && less(rows[left], rows[smallest])) {
+                    smallest = left;
+                }
+                if (left + 1 < count && less(rows[left + 1], rows[smallest])) {
+                    smallest = left + 1;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int t = rows[a];
+            rows[a] = rows[b];
+            rows[b] = t;
+        }
+
+        private int[] sortedDescending() {
+            int[] out = new int[count];
+            for (int i = count - 1; i >= 0; i--) {
+                out[i] = rows[0];
+                rows[0] = rows[--count];
+                siftDown(0);
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Appends rows into growable primitive columns
+     */
+    private static final class Builder {
+        private final boolean withNames;
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private int size;
+        private int[] ids = new int[1024];
+        private double[] marks = new double[1024];
+        private int[] departmentCodes = new int[1024];
+        private char[] nameChars;
+        private int[] nameOffsets;
+        private int nameLength;
+
+        private Builder(boolean withNames) {
+            this.withNames = withNames;
+            if (withNames) {
+                nameChars = new char[16 * 1024];
+                nameOffsets = new int[1025];
+            }
+        }
+
+        private void add(int id, String department, double mark, String name) {
+            if (size == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                marks = Arrays.copyOf(marks, capacity);
+                departmentCodes = Arrays.copyOf(departmentCodes, capacity);
+                if (withNames) {
+                    nameOffsets = Arrays.copyOf(nameOffsets, capacity + 1);
+                }
+            }
+            ids[size] = id;
+            marks[size] = mark;
+            String key = department == null ? "" : department;
+            Integer code = codes.get(key);
+            if (code == null) {
+                code = dictionary.size();
+                codes.put(key, code);
+                dictionary.add(key);
+            }
+            departmentCodes[size] = code;
+            if (withNames) {
+                String n = name == null ? "" : name;
+                if (nameLength + n.length() > nameChars.length) {
+                    nameChars = Arrays.copyOf(nameChars, Math.max(nameChars.length * 2, nameLength + n.length()));
+                }
+                n.getChars(0, n.length(), nameChars, nameLength);
+                nameLength += n.length();
+                nameOffsets[size + 1] = nameLength;
+            }
+            size++;
+        }
+
+        private StudentColumnarSnapshot build() {
+            return new StudentColumnarSnapshot(this);
+        }
+    }
+
+    /**
+     * Print a department report from a fresh snapshot
+     */
+    public static void main(String[] args) throws SQLException {
+        try (StudentController controller = new StudentController()) {
+            long start = System.nanoTime();
+            StudentColumnarSnapshot snapshot = load(controller, true);
+            System.out.printf("Loaded %d students in %.1f ms (~%d KB)%n", snapshot.size(),
+                    (System.nanoTime() - start) / 1e6, snapshot.estimatedBytes() / 1024);
+
+            System.out.println("\nAverage marks by department:");
+            snapshot.averageMarksByDepartment().forEach((dept, avg) -> System.out.printf("  %-20s %8.2f%n", dept, avg));
+
+            System.out.println("\nTop 10 by marks:");
+            for (Student s : snapshot.topByMarks(10)) {
+                System.out.printf("  %-12d %-25s %-20s %8.2f%n", s.getStudentID(), s.getName(), s.getDepartment(), s.getMarks());
+            }
+
+            System.out.println("\nMarks histogram (0-100, 10 bins):");
+            long[] histogram = snapshot.marksHistogram(0, 100, 10);
+            for (int i = 0; i < histogram.length; i++) {
+                System.out.printf("  %3d-%-3d %10d%n", i * 10, (i + 1) * 10, histogram[i]);
+            }
+        }
+    }
+}
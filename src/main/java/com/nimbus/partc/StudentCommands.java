@@ -0,0 +1,96 @@
+package com.nimbus.partc;
+
+import com.nimbus.cli.BatchCommandRunner;
+import com.nimbus.cli.EntityCommands;
+import com.nimbus.jdbc.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Student table bindings for the batch command mode
+ * Command fields: create|update,StudentID,Name,Department,Marks
+ */
+public final class StudentCommands implements EntityCommands<Student> {
+    public static final StudentCommands INSTANCE = new StudentCommands();
+
+    private StudentCommands() {
+    }
+
+    @Override
+    public String idName() {
+        return "StudentID";
+    }
+
+    @Override
+    public String insertSql() {
+        return StudentController.INSERT_SQL;
+    }
+
+    @Override
+    public String updateSql() {
+        return StudentController.UPDATE_SQL;
+    }
+
+    @Override
+    public String deleteSql() {
+        return StudentController.DELETE_SQL;
+    }
+
+    @Override
+    public String tombstoneSql() {
+        return StudentController.TOMBSTONE_SQL;
+    }
+
+    @Override
+    public String selectByIdSql() {
+        return StudentController.SELECT_BY_ID_SQL;
+    }
+
+    @Override
+    public String selectAllSql() {
+        return StudentController.SELECT_ALL_SQL;
+    }
+
+    @Override
+    public RowMapper<Student> mapper() {
+        return StudentRowMapper.INSTANCE;
+    }
+
+    @Override
+    public Student parse(List<String> fields) {
+        return StudentCsvImporter.parse(fields);
+    }
+
+    @Override
+    public int idOf(Student row) {
+        return row.getStudentID();
+    }
+
+    @Override
+    public void bindInsert(PreparedStatement ps, Student s) throws SQLException {
+        ps.setInt(1, s.getStudentID());
+        ps.setString(2, s.getName());
+        ps.setString(3, s.getDepartment());
+        ps.setDouble(4, s.getMarks());
+    }
+
+    @Override
+    public void bindUpdate(PreparedStatement ps, Student s) throws SQLException {
+        ps.setString(1, s.getName());
+        ps.setString(2, s.getDepartment());
+        ps.setDouble(3, s.getMarks());
+        ps.setInt(4, s.getStudentID());
+    }
+
+    @Override
+    public void appendJson(StringBuilder json, Student s) {
+        json.append("{\"StudentID\":").append(s.getStudentID())
+                .append(",\"Name\":").append(BatchCommandRunner.quote(s.getName()))
+                .append(",\"Department\":").append(BatchCommandRunner.quote(s.getDepartment()))
+                .append(",\"Marks\":").append(s.getMarks())
+                .append(",\"Version\":").append(s.getVersion())
+                .append('}');
+    }
+}
@@ -1,24 +1,179 @@
 package com.nimbus.partc;
 
+import com.nimbus.jdbc.BulkWriteConfig;
+import com.nimbus.jdbc.ChunkedBulkWrite;
+import com.nimbus.jdbc.InstrumentedDataSource;
+import com.nimbus.jdbc.PoolStats;
+import com.nimbus.jdbc.PooledDataSource;
+import com.nimbus.jdbc.RoutingDataSource;
+import com.nimbus.jdbc.SqlPredicate;
+
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.UnaryOperator;
 
 /**
  * Controller Class: StudentController
  * Handles all JDBC database operations for Student Management System
  * Part of MVC Architecture - CONTROLLER layer
  * Uses PreparedStatement for all CRUD operations
+ * Connections are borrowed from a DataSource (an instrumented PooledDataSource by default)
+ * Lookups by ID, full listings and pages may be served by replicas listed in -Dnimbus.replicas
  */
-public class StudentController {
+public class StudentController implements AutoCloseable {
     // Database connection details
-    private static final String URL = "jdbc:mysql://localhost:3306/nimbusdb";
+    // rewriteBatchedStatements lets Connector/J turn INSERT batches into multi-row INSERTs
+    private static final String URL = "jdbc:mysql://localhost:3306/nimbusdb?rewriteBatchedStatements=true";
     private static final String USER = "root";
     private static final String PASSWORD = "1234";
 
-    // Method to establish database connection
+    // SQL Statements; reads select an explicit projection mapped by column index
+    static final String SELECT_BY_ID_SQL =
+            "SELECT " + StudentRowMapper.COLUMNS.columnList() + " FROM Student WHERE StudentID = ?";
+    static final String SELECT_ALL_SQL =
+            "SELECT " + StudentRowMapper.COLUMNS.columnList() + " FROM Student";
+    // Every write stamps UpdatedAt so StudentReplica can poll for changed rows
+    static final String INSERT_SQL =
+            "INSERT INTO Student (StudentID, Name, Department, Marks, UpdatedAt)"
+            + " VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP(6))";
+    // Every update bumps Version so optimistic writers notice it
+    static final String UPDATE_SQL =
+            "UPDATE Student SET Name = ?, Department = ?, Marks = ?, Version = Version + 1,"
+            + " UpdatedAt = CURRENT_TIMESTAMP(6) WHERE StudentID = ?";
+    private static final String UPDATE_IF_VERSION_SQL =
+            "UPDATE Student SET Name = ?, Department = ?, Marks = ?, Version = Version + 1,"
+            + " UpdatedAt = CURRENT_TIMESTAMP(6) WHERE StudentID = ? AND Version = ?";
+    static final String DELETE_SQL = "DELETE FROM Student WHERE StudentID = ?";
+    // Written in the same transaction as DELETE_SQL; one row per deleted ID
+    static final String TOMBSTONE_SQL =
+            "INSERT INTO StudentTombstone (StudentID, DeletedAt) VALUES (?, CURRENT_TIMESTAMP(6))"
+            + " ON DUPLICATE KEY UPDATE DeletedAt = VALUES(DeletedAt)";
+    private static final String PURGE_TOMBSTONES_SQL = "DELETE FROM StudentTombstone WHERE DeletedAt < ?";
+
+    // Change capture queries used by StudentReplica
+    static final String CHANGED_SINCE_SQL =
+            "SELECT " + StudentRowMapper.COLUMNS.columnList() + ", UpdatedAt FROM Student"
+            + " WHERE UpdatedAt > ? ORDER BY UpdatedAt";
+    static final String SELECT_ALL_WITH_STAMP_SQL =
+            "SELECT " + StudentRowMapper.COLUMNS.columnList() + ", UpdatedAt FROM Student";
+    static final String TOMBSTONES_SINCE_SQL =
+            "SELECT StudentID, DeletedAt FROM StudentTombstone WHERE DeletedAt > ?";
+    static final String DATABASE_TIME_SQL = "SELECT CURRENT_TIMESTAMP(6)";
+    // Reads the row a change listener needs to see before it is overwritten
+    private static final String LOCK_BY_ID_SQL = SELECT_BY_ID_SQL + " FOR UPDATE";
+    // Rows of one bulk-delete chunk, read for listeners before they are deleted
+    private static final String SELECT_ID_RANGE_SQL =
+            "SELECT " + StudentRowMapper.COLUMNS.columnList() + " FROM Student WHERE StudentID BETWEEN ? AND ?";
+    // Appended to every bulk SET clause, as in UPDATE_SQL
+    private static final String BULK_UPDATE_STAMP = ", Version = Version + 1, UpdatedAt = CURRENT_TIMESTAMP(6)";
+
+    // Report queries; aggregation happens in the database
+    private static final String DEPARTMENT_STATS_SQL =
+            "SELECT Department, COUNT(*), AVG(Marks), MIN(Marks), MAX(Marks) FROM Student"
+            + " GROUP BY Department ORDER BY Department";
+    private static final String DEPARTMENT_STATS_ONE_SQL =
+            "SELECT Department, COUNT(*), AVG(Marks), MIN(Marks), MAX(Marks) FROM Student"
+            + " WHERE Department = ? GROUP BY Department";
+    private static final String TOP_BY_DEPARTMENT_SQL =
+            "SELECT " + StudentRowMapper.COLUMNS.columnList() + " FROM ("
+            + "SELECT " + StudentRowMapper.COLUMNS.columnList() + ", ROW_NUMBER() OVER ("
+            + "PARTITION BY Department ORDER BY Marks DESC, StudentID) AS DeptRank FROM Student) ranked"
+            + " WHERE DeptRank <= ? ORDER BY Department, DeptRank";
+    private static final String MARKS_DISTRIBUTION_SQL =
+            "SELECT FLOOR(Marks / ?) AS Bucket, COUNT(*) FROM Student GROUP BY Bucket ORDER BY Bucket";
+
+    // Keyset pages, forward/backward, with and without a department filter
+    static final String PAGE_AFTER_SQL = pageSql(true, false);
+    static final String PAGE_AFTER_BY_DEPARTMENT_SQL = pageSql(true, true);
+    static final String PAGE_BEFORE_SQL = pageSql(false, false);
+    static final String PAGE_BEFORE_BY_DEPARTMENT_SQL = pageSql(false, true);
+
+    // Rows per executeBatch/commit when no chunk size is given
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    // Source of database connections
+    private final DataSource dataSource;
+    // True only for the pool the no-arg constructor creates; a caller's DataSource may be shared
+    private final boolean ownsDataSource;
+
+    // Notified after each committed write
+    private final List<StudentChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Default Constructor: pooled, instrumented connections to the default database
+    public StudentController() {
+        this(new InstrumentedDataSource(
+                RoutingDataSource.withReplicasFrom(new PooledDataSource(URL, USER, PASSWORD), USER, PASSWORD)), true);
+    }
+
+    // DataSource Constructor: use a caller-supplied (usually pooled) DataSource; the caller closes it
+    public StudentController(DataSource dataSource) {
+        this(dataSource, false);
+    }
+
+    private StudentController(DataSource dataSource, boolean ownsDataSource) {
+        this.dataSource = dataSource;
+        this.ownsDataSource = ownsDataSource;
+    }
+
+    // Method to borrow a database connection; closing it returns it to the pool
     private Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        return dataSource.getConnection();
+    }
+
+    // Connection for a read that a replica may serve (see RoutingDataSource)
+    private Connection getReadConnection() throws SQLException {
+        return RoutingDataSource.readConnection(dataSource);
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Pool statistics for sizing the pool against real traffic
+     * @return current statistics, or null if the DataSource is not backed by a PooledDataSource
+     */
+    public PoolStats getPoolStats() {
+        PooledDataSource pool = PooledDataSource.unwrapFrom(dataSource);
+        return pool != null ? pool.getStats() : null;
+    }
+
+    /**
+     * Register a listener for committed writes.
+     * While any listener is registered, updates and deletes first read the
+     * current row with SELECT ... FOR UPDATE in the same transaction.
+     */
+    public void addChangeListener(StudentChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(StudentChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Release the pool if this controller created it (no-arg constructor);
+     * a DataSource passed in is left open for its other users
+     */
+    @Override
+    public void close() {
+        if (ownsDataSource && dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dataSource).close();
+            } catch (Exception e) {
+                System.out.println("Error closing data source: " + e.getMessage());
+            }
+        }
     }
 
     /**
@@ -27,51 +182,79 @@ public class StudentController {
      * @return true if insertion is successful, false otherwise
      */
     public boolean addStudent(Student student) {
-        String sql = "INSERT INTO Student (StudentID, Name, Department, Marks) VALUES (?, ?, ?, ?)";
-        
+        try {
+            return addStudentChecked(student);
+        } catch (SQLException e) {
+            System.out.println("Error adding student: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * CREATE Operation that reports database errors to the caller instead of printing them
+     * @return true if a row was inserted
+     * @throws SQLException if the insert fails, e.g. on a duplicate StudentID
+     */
+    public boolean addStudentChecked(Student student) throws SQLException {
+        List<StudentChangeListener> notified = beginWrite();
         try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
             
             // Set parameters using PreparedStatement
-            pstmt.setInt(1, student.getStudentID());
-            pstmt.setString(2, student.getName());
-            pstmt.setString(3, student.getDepartment());
-            pstmt.setDouble(4, student.getMarks());
+            bindInsert(pstmt, student);
             
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                // New rows start at the column default, Version 0
+                fireInsert(withVersion(student, 0));
+            }
             return rowsAffected > 0;
-            
-        } catch (SQLException e) {
-            System.out.println("Error adding student: " + e.getMessage());
-            return false;
+        } finally {
+            endWrite(notified);
         }
     }
 
     /**
      * READ Operation: Get a student by StudentID
      * @param studentID ID of the student to retrieve
-     * @return Student object if found, null otherwise
+     * @return Student object if found, null otherwise (also null, after printing the error, if the query fails)
      */
     public Student getStudentById(int studentID) {
-        String sql = "SELECT * FROM Student WHERE StudentID = ?";
-        
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try {
+            return getStudentByIdChecked(studentID);
+        } catch (SQLException e) {
+            System.out.println("Error retrieving student: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * READ Operation that reports database errors to the caller instead of printing them
+     * @return Student object if found, null otherwise
+     * @throws SQLException if the query fails
+     */
+    public Student getStudentByIdChecked(int studentID) throws SQLException {
+        return findStudent(studentID, true);
+    }
+
+    /**
+     * READ Operation that always sees the latest committed row, even when reads are routed to replicas
+     * @throws SQLException if the query fails
+     */
+    Student getStudentByIdFromPrimary(int studentID) throws SQLException {
+        return findStudent(studentID, false);
+    }
+
+    private Student findStudent(int studentID, boolean replicaAllowed) throws SQLException {
+        try (Connection conn = replicaAllowed ? getReadConnection() : getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
             
             pstmt.setInt(1, studentID);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                return new Student(
-                    rs.getInt("StudentID"),
-                    rs.getString("Name"),
-                    rs.getString("Department"),
-                    rs.getDouble("Marks")
-                );
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return StudentRowMapper.INSTANCE.map(rs);
+                }
             }
-            
-        } catch (SQLException e) {
-            System.out.println("Error retrieving student: " + e.getMessage());
         }
         return null;
     }
@@ -81,52 +264,289 @@ public class StudentController {
      * @return List of all Student objects
      */
     public List<Student> getAllStudents() {
+        try {
+            return findAllStudents(true);
+        } catch (SQLException e) {
+            System.out.println("Error retrieving students: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * READ Operation that always sees the latest committed rows, even when reads are routed to replicas
+     * @throws SQLException if the query fails, so callers can tell an outage from an empty table
+     */
+    List<Student> getAllStudentsFromPrimary() throws SQLException {
+        return findAllStudents(false);
+    }
+
+    private List<Student> findAllStudents(boolean replicaAllowed) throws SQLException {
         List<Student> students = new ArrayList<>();
-        String sql = "SELECT * FROM Student";
         
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql);
+        try (Connection conn = replicaAllowed ? getReadConnection() : getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SELECT_ALL_SQL);
              ResultSet rs = pstmt.executeQuery()) {
             
-            while (rs.next()) {
-                Student student = new Student(
-                    rs.getInt("StudentID"),
-                    rs.getString("Name"),
-                    rs.getString("Department"),
-                    rs.getDouble("Marks")
-                );
-                students.add(student);
-            }
+            StudentRowMapper.INSTANCE.mapAll(rs, students);
             
+        }
+        return students;
+    }
+
+    /**
+     * READ Operation: Get the page of students that follows a StudentID
+     * Seeks with "StudentID > ?" on the primary key, so every page costs the
+     * same no matter how deep the caller has scrolled (no OFFSET scan).
+     * @param afterId last StudentID of the previous page, or StudentPage.BEFORE_FIRST for the first page
+     * @param department department to filter by, or null/blank for all departments
+     * @param pageSize maximum number of students on the page
+     * @return the page, with flags telling whether more rows exist on either side
+     */
+    public StudentPage getStudentPageAfter(int afterId, String department, int pageSize) {
+        List<Student> students = fetchPage(afterId, department, pageSize, true);
+        boolean hasNext = students.size() > pageSize;
+        if (hasNext) {
+            students.remove(students.size() - 1);
+        }
+        return new StudentPage(students, afterId != StudentPage.BEFORE_FIRST, hasNext);
+    }
+
+    /**
+     * READ Operation: Get the page of students that precedes a StudentID
+     * @param beforeId first StudentID of the current page, or StudentPage.AFTER_LAST for the last page
+     * @param department department to filter by, or null/blank for all departments
+     * @param pageSize maximum number of students on the page
+     * @return the page in ascending StudentID order
+     */
+    public StudentPage getStudentPageBefore(int beforeId, String department, int pageSize) {
+        List<Student> students = fetchPage(beforeId, department, pageSize, false);
+        boolean hasPrevious = students.size() > pageSize;
+        if (hasPrevious) {
+            students.remove(students.size() - 1);
+        }
+        Collections.reverse(students);
+        return new StudentPage(students, hasPrevious, beforeId != StudentPage.AFTER_LAST);
+    }
+
+    /**
+     * Fetch pageSize + 1 rows past the seek key; the extra row only signals that another page exists
+     */
+    private List<Student> fetchPage(int seekId, String department, int pageSize, boolean forward) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive: " + pageSize);
+        }
+        boolean filtered = department != null && !department.isBlank();
+        String sql = forward
+                ? (filtered ? PAGE_AFTER_BY_DEPARTMENT_SQL : PAGE_AFTER_SQL)
+                : (filtered ? PAGE_BEFORE_BY_DEPARTMENT_SQL : PAGE_BEFORE_SQL);
+        List<Student> students = new ArrayList<>(pageSize + 1);
+
+        try (Connection conn = getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            pstmt.setInt(index++, seekId);
+            if (filtered) {
+                pstmt.setString(index++, department.trim());
+            }
+            pstmt.setInt(index, pageSize + 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                StudentRowMapper.INSTANCE.mapAll(rs, students);
+            }
+
         } catch (SQLException e) {
-            System.out.println("Error retrieving students: " + e.getMessage());
+            System.out.println("Error retrieving student page: " + e.getMessage());
         }
         return students;
     }
 
+    private static String pageSql(boolean forward, boolean filtered) {
+        return "SELECT " + StudentRowMapper.COLUMNS.columnList() + " FROM Student WHERE StudentID "
+                + (forward ? ">" : "<") + " ?"
+                + (filtered ? " AND Department = ?" : "")
+                + " ORDER BY StudentID " + (forward ? "ASC" : "DESC") + " LIMIT ?";
+    }
+
     /**
      * UPDATE Operation: Update an existing student's information
      * @param student Student object with updated information
      * @return true if update is successful, false otherwise
      */
     public boolean updateStudent(Student student) {
-        String sql = "UPDATE Student SET Name = ?, Department = ?, Marks = ? WHERE StudentID = ?";
-        
+        try {
+            return updateStudentChecked(student);
+        } catch (SQLException e) {
+            System.out.println("Error updating student: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * UPDATE Operation that reports database errors to the caller instead of printing them
+     * @return true if the student existed and was updated
+     * @throws SQLException if the update fails
+     */
+    public boolean updateStudentChecked(Student student) throws SQLException {
+        if (!listeners.isEmpty()) {
+            return updateAndNotify(student);
+        }
         try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(UPDATE_SQL)) {
             
             // Set parameters using PreparedStatement
-            pstmt.setString(1, student.getName());
-            pstmt.setString(2, student.getDepartment());
-            pstmt.setDouble(3, student.getMarks());
-            pstmt.setInt(4, student.getStudentID());
+            bindUpdate(pstmt, student);
             
             int rowsAffected = pstmt.executeUpdate();
             return rowsAffected > 0;
-            
+        }
+    }
+
+    private boolean updateAndNotify(Student student) throws SQLException {
+        List<StudentChangeListener> notified = beginWrite();
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                Student before = lockStudent(conn, student.getStudentID());
+                if (before == null) {
+                    conn.rollback();
+                    return false;
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(UPDATE_SQL)) {
+                    bindUpdate(pstmt, student);
+                    pstmt.executeUpdate();
+                }
+                conn.commit();
+                // UPDATE_SQL bumped the locked row's version, whatever version the caller's copy had
+                fireUpdate(before, withVersion(student, before.getVersion() + 1));
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } finally {
+            endWrite(notified);
+        }
+    }
+
+    /**
+     * UPDATE Operation, optimistic: write only if the row is still at student.getVersion()
+     * @param student new values plus the version they were based on
+     * @return UPDATED with the new version, CONFLICT with the current row, NOT_FOUND or FAILED
+     */
+    public UpdateResult updateStudentIfVersion(Student student) {
+        if (!listeners.isEmpty()) {
+            return updateIfVersionAndNotify(student);
+        }
+        try (Connection conn = getConnection()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(UPDATE_IF_VERSION_SQL)) {
+                bindUpdate(pstmt, student);
+                pstmt.setInt(5, student.getVersion());
+                if (pstmt.executeUpdate() > 0) {
+                    return UpdateResult.updated(nextVersion(student));
+                }
+            }
+            // Lost the race or the row is gone; report what is there now
+            Student current = loadStudent(conn, student.getStudentID(), SELECT_BY_ID_SQL);
+            return current == null ? UpdateResult.notFound(student.getStudentID()) : UpdateResult.conflict(current);
+
         } catch (SQLException e) {
             System.out.println("Error updating student: " + e.getMessage());
-            return false;
+            return UpdateResult.failed(e.getMessage());
+        }
+    }
+
+    private UpdateResult updateIfVersionAndNotify(Student student) {
+        List<StudentChangeListener> notified = beginWrite();
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                Student before = lockStudent(conn, student.getStudentID());
+                if (before == null) {
+                    conn.rollback();
+                    return UpdateResult.notFound(student.getStudentID());
+                }
+                if (before.getVersion() != student.getVersion()) {
+                    conn.rollback();
+                    return UpdateResult.conflict(before);
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(UPDATE_SQL)) {
+                    bindUpdate(pstmt, student);
+                    pstmt.executeUpdate();
+                }
+                conn.commit();
+                Student written = nextVersion(student);
+                fireUpdate(before, written);
+                return UpdateResult.updated(written);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.out.println("Error updating student: " + e.getMessage());
+            return UpdateResult.failed(e.getMessage());
+        } finally {
+            endWrite(notified);
+        }
+    }
+
+    private static Student nextVersion(Student student) {
+        return withVersion(student, student.getVersion() + 1);
+    }
+
+    /**
+     * Copy of student carrying the version its row has in the database, for listeners and results
+     */
+    private static Student withVersion(Student student, int version) {
+        Student written = new Student(student);
+        written.setVersion(version);
+        return written;
+    }
+
+    /**
+     * UPDATE Operation, optimistic with retry: re-apply an edit through a merge policy after each conflict
+     * @param base the row the edit started from (its version is the one checked)
+     * @param mine the edited row
+     * @param policy how to re-apply the edit onto a newer row
+     * @param maxAttempts total write attempts before the conflict is returned
+     */
+    public UpdateResult updateStudent(Student base, Student mine, StudentMergePolicy policy, int maxAttempts) {
+        Student candidate = new Student(mine);
+        candidate.setVersion(base.getVersion());
+        for (int attempt = 1; ; attempt++) {
+            UpdateResult result = updateStudentIfVersion(candidate).withAttempts(attempt);
+            if (result.getStatus() != UpdateResult.Status.CONFLICT || attempt >= maxAttempts) {
+                return result;
+            }
+            Student current = result.getStudent();
+            Student merged = policy.merge(base, mine, current);
+            if (merged == null) {
+                return result;
+            }
+            candidate = new Student(merged);
+            candidate.setStudentID(current.getStudentID());
+            candidate.setVersion(current.getVersion());
+        }
+    }
+
+    /**
+     * UPDATE Operation, optimistic read-modify-write: apply a change to the current row, retrying on conflict
+     * @param change builds the new row from a copy of the current one; may run once per attempt
+     * @param maxAttempts total write attempts before the conflict is returned
+     */
+    public UpdateResult updateStudent(int studentID, UnaryOperator<Student> change, int maxAttempts) {
+        Student current = getStudentById(studentID);
+        if (current == null) {
+            return UpdateResult.notFound(studentID);
+        }
+        for (int attempt = 1; ; attempt++) {
+            Student candidate = new Student(change.apply(new Student(current)));
+            candidate.setStudentID(studentID);
+            candidate.setVersion(current.getVersion());
+            UpdateResult result = updateStudentIfVersion(candidate).withAttempts(attempt);
+            if (result.getStatus() != UpdateResult.Status.CONFLICT || attempt >= maxAttempts) {
+                return result;
+            }
+            current = result.getStudent();
         }
     }
 
@@ -136,18 +556,546 @@ public class StudentController {
      * @return true if deletion is successful, false otherwise
      */
     public boolean deleteStudent(int studentID) {
-        String sql = "DELETE FROM Student WHERE StudentID = ?";
-        
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, studentID);
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-            
+        try {
+            return deleteStudentChecked(studentID);
         } catch (SQLException e) {
             System.out.println("Error deleting student: " + e.getMessage());
             return false;
         }
     }
+
+    /**
+     * DELETE Operation that reports database errors to the caller instead of printing them
+     * @return true if the student existed and was deleted
+     * @throws SQLException if the delete fails
+     */
+    public boolean deleteStudentChecked(int studentID) throws SQLException {
+        if (!listeners.isEmpty()) {
+            return deleteAndNotify(studentID);
+        }
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                boolean deleted = delete(conn, studentID);
+                conn.commit();
+                return deleted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Delete the row and record its tombstone; the caller owns the transaction
+     * @return true if a row was deleted
+     */
+    private static boolean delete(Connection conn, int studentID) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(DELETE_SQL)) {
+            pstmt.setInt(1, studentID);
+            if (pstmt.executeUpdate() == 0) {
+                return false;
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(TOMBSTONE_SQL)) {
+            pstmt.setInt(1, studentID);
+            pstmt.executeUpdate();
+        }
+        return true;
+    }
+
+    /**
+     * Drop tombstones older than the given age.
+     * A StudentReplica whose last sync is older than this must do a full reload.
+     * @return number of tombstones removed, or -1 on error
+     */
+    public int purgeTombstones(long olderThanMillis) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(PURGE_TOMBSTONES_SQL)) {
+            pstmt.setTimestamp(1, new Timestamp(System.currentTimeMillis() - olderThanMillis));
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.out.println("Error purging tombstones: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Bulk DELETE Operation: delete every student matching a predicate in key-ordered chunks,
+     * one transaction per chunk (see ChunkedBulkWrite for chunking, throttling and resume).
+     * Each deleted ID gets its tombstone in the chunk's transaction; listeners get onDelete per row.
+     * @param where e.g. SqlPredicate.eq("Department", "Physics") or SqlPredicate.lessThan("Marks", 35)
+     * @return totals, or null if a chunk failed (earlier chunks stay committed; a checkpoint resumes the run)
+     */
+    public ChunkedBulkWrite.Progress deleteStudentsWhere(SqlPredicate where, BulkWriteConfig config) {
+        ChunkedBulkWrite op = ChunkedBulkWrite.delete("Student", "StudentID", where, config)
+                .setChunkHook(new ChunkedBulkWrite.ChunkHook() {
+                    private List<Student> before = List.of();
+
+                    @Override
+                    public void beforeWrite(Connection conn, List<Integer> ids) throws SQLException {
+                        before = listeners.isEmpty() ? List.of() : loadIds(conn, ids);
+                        try (PreparedStatement pstmt = conn.prepareStatement(TOMBSTONE_SQL)) {
+                            for (int id : ids) {
+                                pstmt.setInt(1, id);
+                                pstmt.addBatch();
+                            }
+                            pstmt.executeBatch();
+                        }
+                    }
+
+                    @Override
+                    public void afterCommit(List<Integer> ids) {
+                        bulkChunkCommitted(ids, true);
+                        before.forEach(StudentController.this::fireDelete);
+                    }
+                });
+        List<StudentChangeListener> notified = beginWrite();
+        try {
+            return runBulk(op, "deleting students");
+        } finally {
+            endWrite(notified);
+        }
+    }
+
+    /**
+     * Bulk UPDATE Operation: apply a SET clause to every student matching a predicate in
+     * key-ordered chunks, one transaction per chunk. Version and UpdatedAt are bumped as
+     * in updateStudent; listeners get one onBulkChange at the end.
+     * @param setClause assignments with ? placeholders, e.g. "Marks = LEAST(Marks + ?, 100)"
+     * @param setParams values for the placeholders
+     * @return totals, or null if a chunk failed (earlier chunks stay committed; a checkpoint resumes the run)
+     */
+    public ChunkedBulkWrite.Progress updateStudentsWhere(String setClause, List<?> setParams, SqlPredicate where,
+                                                         BulkWriteConfig config) {
+        ChunkedBulkWrite op = ChunkedBulkWrite.update("Student", "StudentID", setClause + BULK_UPDATE_STAMP,
+                setParams, where, config).setChunkHook(new ChunkedBulkWrite.ChunkHook() {
+                    @Override
+                    public void afterCommit(List<Integer> ids) {
+                        bulkChunkCommitted(ids, false);
+                    }
+                });
+        List<StudentChangeListener> notified = beginWrite();
+        try {
+            ChunkedBulkWrite.Progress progress = runBulk(op, "updating students");
+            // Derived state may be stale after any committed chunk, even if a later one failed
+            fireBulkChange();
+            return progress;
+        } finally {
+            endWrite(notified);
+        }
+    }
+
+    private ChunkedBulkWrite.Progress runBulk(ChunkedBulkWrite op, String what) {
+        try (Connection conn = getConnection()) {
+            return op.run(conn);
+        } catch (SQLException | IllegalStateException e) {
+            System.out.println("Error " + what + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Called after each committed bulk chunk, before listeners; subclasses drop cached rows
+     */
+    void bulkChunkCommitted(List<Integer> ids, boolean deleted) {
+    }
+
+    /**
+     * Read the locked rows of one bulk chunk; the IDs are ascending
+     */
+    private static List<Student> loadIds(Connection conn, List<Integer> ids) throws SQLException {
+        Set<Integer> wanted = new HashSet<>(ids);
+        List<Student> students = new ArrayList<>(ids.size());
+        try (PreparedStatement pstmt = conn.prepareStatement(SELECT_ID_RANGE_SQL)) {
+            pstmt.setInt(1, ids.get(0));
+            pstmt.setInt(2, ids.get(ids.size() - 1));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Student student = StudentRowMapper.INSTANCE.map(rs);
+                    if (wanted.contains(student.getStudentID())) {
+                        students.add(student);
+                    }
+                }
+            }
+        }
+        return students;
+    }
+
+    private boolean deleteAndNotify(int studentID) throws SQLException {
+        List<StudentChangeListener> notified = beginWrite();
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                Student before = lockStudent(conn, studentID);
+                if (before == null) {
+                    conn.rollback();
+                    return false;
+                }
+                delete(conn, studentID);
+                conn.commit();
+                fireDelete(before);
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } finally {
+            endWrite(notified);
+        }
+    }
+
+    private static Student lockStudent(Connection conn, int studentID) throws SQLException {
+        return loadStudent(conn, studentID, LOCK_BY_ID_SQL);
+    }
+
+    private static Student loadStudent(Connection conn, int studentID, String sql) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, studentID);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? StudentRowMapper.INSTANCE.map(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * REPORT: student count and average/min/max marks per department
+     * @return one entry per department, ordered by department (empty, after printing the error, if the query fails)
+     */
+    public List<DepartmentStats> getDepartmentStats() {
+        try {
+            return getDepartmentStatsChecked();
+        } catch (SQLException e) {
+            System.out.println("Error retrieving department stats: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * REPORT that reports database errors to the caller instead of printing them
+     * @return one entry per department, ordered by department
+     * @throws SQLException if the query fails
+     */
+    public List<DepartmentStats> getDepartmentStatsChecked() throws SQLException {
+        List<DepartmentStats> stats = new ArrayList<>();
+
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(DEPARTMENT_STATS_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                stats.add(mapDepartmentStats(rs));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * REPORT: count and average/min/max marks for one department
+     * @return the stats, or null if the department has no students or (after printing the error) the query fails
+     */
+    public DepartmentStats getDepartmentStats(String department) {
+        try {
+            return getDepartmentStatsChecked(department);
+        } catch (SQLException e) {
+            System.out.println("Error retrieving department stats: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * REPORT for one department that reports database errors to the caller instead of printing them
+     * @return the stats, or null if the department has no students
+     * @throws SQLException if the query fails
+     */
+    public DepartmentStats getDepartmentStatsChecked(String department) throws SQLException {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(DEPARTMENT_STATS_ONE_SQL)) {
+
+            pstmt.setString(1, department);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapDepartmentStats(rs);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static DepartmentStats mapDepartmentStats(ResultSet rs) throws SQLException {
+        return new DepartmentStats(rs.getString(1), rs.getLong(2), rs.getDouble(3), rs.getDouble(4), rs.getDouble(5));
+    }
+
+    /**
+     * REPORT: the n highest-marked students of every department (ties broken by StudentID)
+     * @return students per department, best first
+     */
+    public Map<String, List<Student>> getTopStudentsByDepartment(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive: " + n);
+        }
+        Map<String, List<Student>> top = new LinkedHashMap<>();
+
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(TOP_BY_DEPARTMENT_SQL)) {
+
+            pstmt.setInt(1, n);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Student student = StudentRowMapper.INSTANCE.map(rs);
+                    top.computeIfAbsent(student.getDepartment(), d -> new ArrayList<>(n)).add(student);
+                }
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error retrieving top students: " + e.getMessage());
+        }
+        return top;
+    }
+
+    /**
+     * REPORT: number of students per marks bucket of the given width
+     * @param bucketWidth width of each bucket, e.g. 10 for 0-10, 10-20, ...
+     * @return lower bound of each non-empty bucket mapped to its student count, ascending
+     */
+    public Map<Double, Long> getMarksDistribution(double bucketWidth) {
+        if (!(bucketWidth > 0)) {
+            throw new IllegalArgumentException("bucketWidth must be positive: " + bucketWidth);
+        }
+        Map<Double, Long> distribution = new LinkedHashMap<>();
+
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(MARKS_DISTRIBUTION_SQL)) {
+
+            pstmt.setDouble(1, bucketWidth);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    distribution.put(rs.getLong(1) * bucketWidth, rs.getLong(2));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error retrieving marks distribution: " + e.getMessage());
+        }
+        return distribution;
+    }
+
+    /**
+     * Batched CREATE Operation: insert many students with the default chunk size
+     * @param students students to insert
+     * @return rows inserted and rows that failed
+     */
+    public BatchResult addStudents(Collection<Student> students) {
+        return addStudents(students, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Batched CREATE Operation: insert students in chunks, one executeBatch and one commit per chunk
+     * @param students students to insert
+     * @param chunkSize rows per batch/transaction
+     * @return rows inserted and rows that failed
+     */
+    public BatchResult addStudents(Collection<Student> students, int chunkSize) {
+        return executeInChunks(INSERT_SQL, students, chunkSize, true);
+    }
+
+    /**
+     * Batched UPDATE Operation: update many students with the default chunk size
+     * @param students students carrying the new values
+     * @return rows updated and rows that failed or did not exist
+     */
+    public BatchResult updateStudents(Collection<Student> students) {
+        return updateStudents(students, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Batched UPDATE Operation: update students in chunks, one executeBatch and one commit per chunk
+     * @param students students carrying the new values
+     * @param chunkSize rows per batch/transaction
+     * @return rows updated and rows that failed or did not exist
+     */
+    public BatchResult updateStudents(Collection<Student> students, int chunkSize) {
+        return executeInChunks(UPDATE_SQL, students, chunkSize, false);
+    }
+
+    /**
+     * Run one statement per student as JDBC batches committed chunk by chunk.
+     * If a chunk fails it is rolled back and replayed row by row so that only
+     * the offending rows are reported and the rest of the chunk still lands.
+     */
+    private BatchResult executeInChunks(String sql, Collection<Student> students, int chunkSize, boolean insert) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        BatchResult result = new BatchResult();
+        if (students.isEmpty()) {
+            return result;
+        }
+
+        List<StudentChangeListener> notified = beginWrite();
+        try {
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                conn.setAutoCommit(false);
+                List<Student> chunk = new ArrayList<>(Math.min(chunkSize, students.size()));
+                Iterator<Student> it = students.iterator();
+                while (it.hasNext()) {
+                    chunk.add(it.next());
+                    if (chunk.size() == chunkSize || !it.hasNext()) {
+                        executeChunk(conn, pstmt, chunk, insert, result);
+                        chunk.clear();
+                    }
+                }
+            } catch (SQLException e) {
+                System.out.println("Error running student batch: " + e.getMessage());
+                result.addFailure(null, e.getMessage());
+            }
+            // Batched updates do not read the rows they replace
+            if (!insert && result.getSucceeded() > 0) {
+                fireBulkChange();
+            }
+        } finally {
+            endWrite(notified);
+        }
+        return result;
+    }
+
+    private void executeChunk(Connection conn, PreparedStatement pstmt, List<Student> chunk,
+                              boolean insert, BatchResult result) throws SQLException {
+        try {
+            for (Student student : chunk) {
+                bind(pstmt, student, insert);
+                pstmt.addBatch();
+            }
+            int[] counts = pstmt.executeBatch();
+            conn.commit();
+            for (int i = 0; i < chunk.size(); i++) {
+                // Rewritten multi-row inserts report SUCCESS_NO_INFO instead of per-row counts
+                int count = i < counts.length ? counts[i] : Statement.SUCCESS_NO_INFO;
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    result.addSuccess();
+                    if (insert) {
+                        fireInsert(withVersion(chunk.get(i), 0));
+                    }
+                } else {
+                    result.addFailure(chunk.get(i), "No student found with StudentID: " + chunk.get(i).getStudentID());
+                }
+            }
+        } catch (BatchUpdateException e) {
+            pstmt.clearBatch();
+            conn.rollback();
+            replayRowByRow(conn, pstmt, chunk, insert, result);
+        }
+    }
+
+    private void replayRowByRow(Connection conn, PreparedStatement pstmt, List<Student> chunk,
+                                boolean insert, BatchResult result) throws SQLException {
+        List<Student> written = new ArrayList<>(chunk.size());
+        for (Student student : chunk) {
+            try {
+                bind(pstmt, student, insert);
+                if (pstmt.executeUpdate() > 0) {
+                    result.addSuccess();
+                    written.add(student);
+                } else {
+                    result.addFailure(student, "No student found with StudentID: " + student.getStudentID());
+                }
+            } catch (SQLException e) {
+                result.addFailure(student, e.getMessage());
+            }
+        }
+        conn.commit();
+        if (insert) {
+            written.forEach(student -> fireInsert(withVersion(student, 0)));
+        }
+    }
+
+    private static void bind(PreparedStatement pstmt, Student student, boolean insert) throws SQLException {
+        if (insert) {
+            bindInsert(pstmt, student);
+        } else {
+            bindUpdate(pstmt, student);
+        }
+    }
+
+    private static void bindInsert(PreparedStatement pstmt, Student student) throws SQLException {
+        pstmt.setInt(1, student.getStudentID());
+        pstmt.setString(2, student.getName());
+        pstmt.setString(3, student.getDepartment());
+        pstmt.setDouble(4, student.getMarks());
+    }
+
+    private static void bindUpdate(PreparedStatement pstmt, Student student) throws SQLException {
+        pstmt.setString(1, student.getName());
+        pstmt.setString(2, student.getDepartment());
+        pstmt.setDouble(3, student.getMarks());
+        pstmt.setInt(4, student.getStudentID());
+    }
+
+    /**
+     * Tell listeners a write is about to commit
+     * @return the listeners told, which endWrite must be given so every beginWrite gets its endWrite
+     */
+    private List<StudentChangeListener> beginWrite() {
+        List<StudentChangeListener> notified = List.copyOf(listeners);
+        for (StudentChangeListener listener : notified) {
+            try {
+                listener.beginWrite();
+            } catch (RuntimeException e) {
+                System.out.println("Error notifying student listener: " + e.getMessage());
+            }
+        }
+        return notified;
+    }
+
+    private static void endWrite(List<StudentChangeListener> notified) {
+        for (StudentChangeListener listener : notified) {
+            try {
+                listener.endWrite();
+            } catch (RuntimeException e) {
+                System.out.println("Error notifying student listener: " + e.getMessage());
+            }
+        }
+    }
+
+    // Listener notification; a failing listener must not fail the committed write
+    private void fireInsert(Student student) {
+        for (StudentChangeListener listener : listeners) {
+            try {
+                listener.onInsert(student);
+            } catch (RuntimeException e) {
+                System.out.println("Error notifying student listener: " + e.getMessage());
+            }
+        }
+    }
+
+    private void fireUpdate(Student before, Student after) {
+        for (StudentChangeListener listener : listeners) {
+            try {
+                listener.onUpdate(before, after);
+            } catch (RuntimeException e) {
+                System.out.println("Error notifying student listener: " + e.getMessage());
+            }
+        }
+    }
+
+    private void fireDelete(Student before) {
+        for (StudentChangeListener listener : listeners) {
+            try {
+                listener.onDelete(before);
+            } catch (RuntimeException e) {
+                System.out.println("Error notifying student listener: " + e.getMessage());
+            }
+        }
+    }
+
+    private void fireBulkChange() {
+        for (StudentChangeListener listener : listeners) {
+            try {
+                listener.onBulkChange();
+            } catch (RuntimeException e) {
+                System.out.println("Error notifying student listener: " + e.getMessage());
+            }
+        }
+    }
 }
@@ -0,0 +1,223 @@
+package com.nimbus.partc;
+
+import com.nimbus.io.Csv;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming CSV loader for the Student table
+ * Reads one line at a time and feeds fixed-size chunks to
+ * StudentController.addStudents, so memory use does not grow with file size.
+ *
+ * Expected columns: StudentID,Name,Department,Marks
+ * A first line starting with "StudentID" is treated as a header and skipped.
+ */
+public class StudentCsvImporter {
+    private final StudentController controller;
+    private final int chunkSize;
+
+    public StudentCsvImporter(StudentController controller) {
+        this(controller, StudentController.DEFAULT_BATCH_SIZE);
+    }
+
+    public StudentCsvImporter(StudentController controller, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.controller = controller;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Import a CSV file
+     * @param file path of the CSV file (UTF-8)
+     * @return counts, throughput and failed rows
+     */
+    public ImportReport importFile(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(reader);
+        }
+    }
+
+    /**
+     * Import CSV rows from any reader; the reader is not closed
+     * @param source CSV text
+     * @return counts, throughput and failed rows
+     */
+    public ImportReport importFrom(Reader source) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader
+                ? (BufferedReader) source : new BufferedReader(source, 1 << 16);
+        ImportReport report = new ImportReport();
+        List<Student> chunk = new ArrayList<>(chunkSize);
+        Map<Student, Long> lineOf = new IdentityHashMap<>(chunkSize * 2);
+
+        long lineNo = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank() || (lineNo == 1 && line.regionMatches(true, 0, "StudentID", 0, 9))) {
+                continue;
+            }
+            report.rowsRead++;
+            Student student;
+            try {
+                student = parse(line);
+            } catch (IllegalArgumentException e) {
+                report.failures.add(new FailedRow(lineNo, line, e.getMessage()));
+                continue;
+            }
+            chunk.add(student);
+            lineOf.put(student, lineNo);
+            if (chunk.size() == chunkSize) {
+                flush(chunk, lineOf, report);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            flush(chunk, lineOf, report);
+        }
+        report.elapsedNanos = System.nanoTime() - report.startNanos;
+        return report;
+    }
+
+    private void flush(List<Student> chunk, Map<Student, Long> lineOf, ImportReport report) {
+        BatchResult result = controller.addStudents(chunk, chunkSize);
+        report.rowsImported += result.getSucceeded();
+        for (BatchResult.Failure failure : result.getFailures()) {
+            Student student = failure.getStudent();
+            long lineNo = student == null ? -1 : lineOf.getOrDefault(student, -1L);
+            report.failures.add(new FailedRow(lineNo, student == null ? null : student.toString(),
+                    failure.getReason()));
+        }
+        chunk.clear();
+        lineOf.clear();
+    }
+
+    /**
+     * Parse one CSV line into a Student
+     * @throws IllegalArgumentException if the line does not have four valid fields
+     */
+    static Student parse(String line) {
+        return parse(Csv.split(line));
+    }
+
+    /**
+     * Build a Student from StudentID, Name, Department and Marks fields
+     * @throws IllegalArgumentException if there are not four valid fields
+     */
+    static Student parse(List<String> fields) {
+        if (fields.size() != 4) {
+            throw new IllegalArgumentException("Expected 4 fields but found " + fields.size());
+        }
+        try {
+            int id = Integer.parseInt(fields.get(0).trim());
+            double marks = Double.parseDouble(fields.get(3).trim());
+            return new Student(id, fields.get(1).trim(), fields.get(2).trim(), marks);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Summary of one import run
+     */
+    public static class ImportReport {
+        private final long startNanos = System.nanoTime();
+        private long elapsedNanos;
+        private long rowsRead;
+        private long rowsImported;
+        private final List<FailedRow> failures = new ArrayList<>();
+
+        public long getRowsRead() {
+            return rowsRead;
+        }
+
+        public long getRowsImported() {
+            return rowsImported;
+        }
+
+        public long getRowsFailed() {
+            return rowsRead - rowsImported;
+        }
+
+        public List<FailedRow> getFailures() {
+            return Collections.unmodifiableList(failures);
+        }
+
+        public double getElapsedSeconds() {
+            return elapsedNanos / 1e9;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rowsImported / getElapsedSeconds();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Read %d rows, imported %d, failed %d in %.2f s (%.0f rows/sec)",
+                    rowsRead, rowsImported, getRowsFailed(), getElapsedSeconds(), getRowsPerSecond());
+        }
+    }
+
+    /**
+     * A CSV row that was not imported
+     * Line number is -1 when a whole chunk failed without reaching individual rows
+     */
+    public static class FailedRow {
+        private final long lineNumber;
+        private final String content;
+        private final String reason;
+
+        public FailedRow(long lineNumber, String content, String reason) {
+            this.lineNumber = lineNumber;
+            this.content = content;
+            this.reason = reason;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + lineNumber + ": " + reason + (content == null ? "" : " [" + content + "]");
+        }
+    }
+
+    /**
+     * Import a CSV file from the command line
+     * Usage: StudentCsvImporter <file.csv> [chunkSize]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: StudentCsvImporter <file.csv> [chunkSize]");
+            return;
+        }
+        int chunkSize = args.length > 1 ? Integer.parseInt(args[1]) : StudentController.DEFAULT_BATCH_SIZE;
+        try (StudentController controller = new StudentController()) {
+            ImportReport report = new StudentCsvImporter(controller, chunkSize).importFile(Paths.get(args[0]));
+            System.out.println(report);
+            for (FailedRow failure : report.getFailures()) {
+                System.out.println("  " + failure);
+            }
+        }
+    }
+}
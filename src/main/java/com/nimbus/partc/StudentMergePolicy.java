@@ -0,0 +1,58 @@
+package com.nimbus.partc;
+
+import java.util.Objects;
+
+/**
+ * Decides how a Student edit that lost an optimistic update race is re-applied
+ */
+@FunctionalInterface
+public interface StudentMergePolicy {
+
+    /**
+     * @param base the row the edit started from
+     * @param mine the edited row
+     * @param current the row as it is now in the database
+     * @return the row to write on top of current, or null to give up and report the conflict
+     */
+    Student merge(Student base, Student mine, Student current);
+
+    /**
+     * Report every conflict to the caller
+     */
+    StudentMergePolicy NEVER = (base, mine, current) -> null;
+
+    /**
+     * Overwrite whatever the other writer did
+     */
+    StudentMergePolicy MINE_WINS = (base, mine, current) -> new Student(mine);
+
+    /**
+     * Three-way merge per column: apply the columns this edit changed onto the
+     * current row; give up if the other writer changed one of them to a different value
+     */
+    StudentMergePolicy FIELD_LEVEL = (base, mine, current) -> {
+        Student merged = new Student(current);
+        if (!Objects.equals(base.getName(), mine.getName())) {
+            if (!Objects.equals(base.getName(), current.getName())
+                    && !Objects.equals(mine.getName(), current.getName())) {
+                return null;
+            }
+            merged.setName(mine.getName());
+        }
+        if (!Objects.equals(base.getDepartment(), mine.getDepartment())) {
+            if (!Objects.equals(base.getDepartment(), current.getDepartment())
+                    && !Objects.equals(mine.getDepartment(), current.getDepartment())) {
+                return null;
+            }
+            merged.setDepartment(mine.getDepartment());
+        }
+        if (Double.compare(base.getMarks(), mine.getMarks()) != 0) {
+            if (Double.compare(base.getMarks(), current.getMarks()) != 0
+                    && Double.compare(mine.getMarks(), current.getMarks()) != 0) {
+                return null;
+            }
+            merged.setMarks(mine.getMarks());
+        }
+        return merged;
+    };
+}
@@ -0,0 +1,56 @@
+package com.nimbus.partc;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of students in StudentID order, produced by keyset pagination
+ * The first and last IDs are the seek keys for the previous and next pages
+ */
+public class StudentPage {
+    // Seek key that starts before every StudentID
+    public static final int BEFORE_FIRST = Integer.MIN_VALUE;
+    // Seek key that starts after every StudentID
+    public static final int AFTER_LAST = Integer.MAX_VALUE;
+
+    private final List<Student> students;
+    private final boolean hasPrevious;
+    private final boolean hasNext;
+
+    public StudentPage(List<Student> students, boolean hasPrevious, boolean hasNext) {
+        this.students = Collections.unmodifiableList(students);
+        this.hasPrevious = hasPrevious;
+        this.hasNext = hasNext;
+    }
+
+    // Getters
+    public List<Student> getStudents() {
+        return students;
+    }
+
+    public boolean isEmpty() {
+        return students.isEmpty();
+    }
+
+    public boolean hasPrevious() {
+        return hasPrevious;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    /**
+     * @return StudentID of the first row, the seek key for the previous page
+     */
+    public int getFirstId() {
+        return students.isEmpty() ? AFTER_LAST : students.get(0).getStudentID();
+    }
+
+    /**
+     * @return StudentID of the last row, the seek key for the next page
+     */
+    public int getLastId() {
+        return students.isEmpty() ? BEFORE_FIRST : students.get(students.size() - 1).getStudentID();
+    }
+}
@@ -0,0 +1,613 @@
+package com.nimbus.partc;
+
+import com.nimbus.jdbc.LatencyHistogram;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory copy of the Student table kept current by polling for changes
+ *
+ * The first sync loads every row. Later syncs read only the rows whose
+ * UpdatedAt is newer than the previous sync, plus the StudentTombstone rows
+ * of students deleted since then. A write is stamped when its statement runs
+ * but only becomes visible at commit, so each poll reaches back an overlap
+ * window before the previous sync; a transaction that stays open longer than
+ * the window can be missed. Rows read again inside the window are recognised
+ * by their timestamp and skipped. If the last sync is older than the
+ * tombstone retention, the replica reloads in full instead.
+ *
+ * A replica can also start from a StudentSnapshotFile instead of a full
+ * load: lookups are answered from the mapped file straight away, and the
+ * first sync reads only what changed since the snapshot was taken. Changes
+ * are then held in memory on top of the file, deletes of snapshot rows as
+ * markers. writeSnapshot() saves the merged state for the next start.
+ *
+ * Reads never touch the database. Listeners registered here are told about
+ * every change the replica applies, whoever made it.
+ */
+public class StudentReplica implements AutoCloseable {
+    public static final long DEFAULT_OVERLAP_MILLIS = 5_000;
+    public static final long DEFAULT_FULL_RELOAD_AFTER_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    private final DataSource dataSource;
+    private final long overlapMillis;
+    private final long fullReloadAfterMillis;
+
+    // Rows loaded or changed since the base snapshot; a null student marks a deleted snapshot row
+    private final Map<Integer, Row> rows = new ConcurrentHashMap<>();
+    private volatile StudentSnapshotFile base;
+    private volatile int size;
+    private final List<StudentChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Sync state, guarded by syncLock
+    private final Object syncLock = new Object();
+    private Timestamp highWater;
+    // Deletes still inside the overlap window, so an older copy of the row read again is not resurrected
+    private final Map<Integer, Timestamp> recentDeletes = new HashMap<>();
+    private ScheduledExecutorService poller;
+
+    // Metrics; written only while holding syncLock
+    private final LatencyHistogram pollLatency = new LatencyHistogram();
+    private volatile long lastSyncMillis = -1;
+    private volatile long polls;
+    private volatile long fullLoads;
+    private volatile long failures;
+    private volatile long rowsFetched;
+    private volatile long rowsApplied;
+    private volatile int lastPollRows;
+    private volatile String lastError;
+
+    public StudentReplica(StudentController controller) {
+        this(controller.getDataSource(), DEFAULT_OVERLAP_MILLIS, DEFAULT_FULL_RELOAD_AFTER_MILLIS);
+    }
+
+    /**
+     * @param overlapMillis how far each poll reaches back before the previous sync; must exceed the longest write transaction
+     * @param fullReloadAfterMillis reload everything if the last sync is older than this; keep it below the tombstone retention
+     */
+    public StudentReplica(DataSource dataSource, long overlapMillis, long fullReloadAfterMillis) {
+        if (overlapMillis < 0 || fullReloadAfterMillis <= overlapMillis) {
+            throw new IllegalArgumentException("Need 0 <= overlapMillis < fullReloadAfterMillis: "
+                    + overlapMillis + ", " + fullReloadAfterMillis);
+        }
+        this.dataSource = dataSource;
+        this.overlapMillis = overlapMillis;
+        this.fullReloadAfterMillis = fullReloadAfterMillis;
+    }
+
+    /**
+     * Start from a snapshot file; the first sync polls only changes made after it was taken
+     */
+    public static StudentReplica fromSnapshot(StudentSnapshotFile snapshot, DataSource dataSource) {
+        return fromSnapshot(snapshot, dataSource, DEFAULT_OVERLAP_MILLIS, DEFAULT_FULL_RELOAD_AFTER_MILLIS);
+    }
+
+    public static StudentReplica fromSnapshot(StudentSnapshotFile snapshot, DataSource dataSource,
+                                              long overlapMillis, long fullReloadAfterMillis) {
+        StudentReplica replica = new StudentReplica(dataSource, overlapMillis, fullReloadAfterMillis);
+        synchronized (replica.syncLock) {
+            replica.base = snapshot;
+            replica.size = snapshot.size();
+            replica.highWater = snapshot.getSnapshotTime();
+            // Lag reports the snapshot's age until the first sync; a snapshot that is too old is reloaded
+            replica.lastSyncMillis = replica.highWater.getTime();
+        }
+        return replica;
+    }
+
+    public void addChangeListener(StudentChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(StudentChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Sync every periodMillis on a background thread until close()
+     */
+    public void start(long periodMillis) {
+        synchronized (syncLock) {
+            if (poller != null) {
+                throw new IllegalStateException("Replica is already polling");
+            }
+            poller = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "nimbus-student-replica");
+                t.setDaemon(true);
+                return t;
+            });
+            poller.scheduleWithFixedDelay(this::syncQuietly, 0, periodMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (SQLException e) {
+            System.out.println("Error syncing student replica: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Bring the replica up to date: a full load the first time, changed rows after that
+     * @return number of changes applied
+     */
+    public int sync() throws SQLException {
+        synchronized (syncLock) {
+            long startMillis = System.currentTimeMillis();
+            long start = System.nanoTime();
+            try {
+                int applied;
+                if (highWater == null || startMillis - lastSyncMillis > fullReloadAfterMillis) {
+                    applied = loadAll();
+                    fullLoads++;
+                } else {
+                    applied = poll();
+                }
+                polls++;
+                rowsApplied += applied;
+                lastSyncMillis = startMillis;
+                lastError = null;
+                return applied;
+            } catch (SQLException e) {
+                failures++;
+                lastError = e.getMessage();
+                throw e;
+            } finally {
+                pollLatency.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private int loadAll() throws SQLException {
+        Map<Integer, Row> loaded = new HashMap<>();
+        Timestamp now;
+        try (Connection conn = dataSource.getConnection()) {
+            // One transaction so the clock read and the rows come from the same snapshot
+            conn.setAutoCommit(false);
+            now = databaseTime(conn);
+            try (PreparedStatement pstmt = conn.prepareStatement(StudentController.SELECT_ALL_WITH_STAMP_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                // Stream rows from MySQL rather than buffering the whole table in the driver
+                if (conn.getMetaData().getDriverName().contains("MySQL")) {
+                    pstmt.setFetchSize(Integer.MIN_VALUE);
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Row row = readRow(rs);
+                        loaded.put(row.student.getStudentID(), row);
+                    }
+                }
+            }
+            conn.commit();
+        }
+        rows.keySet().retainAll(loaded.keySet());
+        rows.putAll(loaded);
+        base = null;
+        size = loaded.size();
+        recentDeletes.clear();
+        highWater = now;
+        lastPollRows = loaded.size();
+        rowsFetched += loaded.size();
+        fireBulkChange();
+        return loaded.size();
+    }
+
+    private int poll() throws SQLException {
+        Timestamp since = new Timestamp(highWater.getTime() - overlapMillis);
+        List<Row> changed = new ArrayList<>();
+        Map<Integer, Timestamp> deleted = new LinkedHashMap<>();
+        Timestamp now;
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            now = databaseTime(conn);
+            try (PreparedStatement pstmt = conn.prepareStatement(StudentController.CHANGED_SINCE_SQL)) {
+                pstmt.setTimestamp(1, since);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        changed.add(readRow(rs));
+                    }
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(StudentController.TOMBSTONES_SINCE_SQL)) {
+                pstmt.setTimestamp(1, since);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        deleted.put(rs.getInt(1), rs.getTimestamp(2));
+                    }
+                }
+            }
+            conn.commit();
+        }
+
+        int applied = 0;
+        for (Map.Entry<Integer, Timestamp> tombstone : deleted.entrySet()) {
+            if (applyDelete(tombstone.getKey(), tombstone.getValue())) {
+                applied++;
+            }
+        }
+        for (Row row : changed) {
+            if (applyRow(row)) {
+                applied++;
+            }
+        }
+
+        highWater = now;
+        // Nothing older than the next poll's window can be read again
+        Timestamp nextSince = new Timestamp(now.getTime() - overlapMillis);
+        recentDeletes.values().removeIf(deletedAt -> deletedAt.before(nextSince));
+        lastPollRows = changed.size() + deleted.size();
+        rowsFetched += lastPollRows;
+        return applied;
+    }
+
+    private boolean applyDelete(int studentID, Timestamp deletedAt) {
+        recentDeletes.merge(studentID, deletedAt, (a, b) -> a.after(b) ? a : b);
+        Row current = currentRow(studentID);
+        // A row stamped after the tombstone was inserted again after the delete
+        if (current == null || current.student == null || current.updatedAt.after(deletedAt)) {
+            return false;
+        }
+        StudentSnapshotFile snapshot = base;
+        if (snapshot != null && snapshot.indexOf(studentID) >= 0) {
+            rows.put(studentID, new Row(studentID, deletedAt));
+        } else {
+            rows.remove(studentID);
+        }
+        size--;
+        fireDelete(current.student);
+        return true;
+    }
+
+    private boolean applyRow(Row row) {
+        int id = row.student.getStudentID();
+        Row current = currentRow(id);
+        if (current != null && !row.updatedAt.after(current.updatedAt)) {
+            return false;
+        }
+        Timestamp deletedAt = recentDeletes.get(id);
+        if (deletedAt != null && !row.updatedAt.after(deletedAt)) {
+            return false;
+        }
+        rows.put(id, row);
+        if (current == null || current.student == null) {
+            size++;
+            fireInsert(row.student);
+        } else {
+            fireUpdate(current.student, row.student);
+        }
+        return true;
+    }
+
+    /**
+     * @return the in-memory row, else the snapshot row, else null
+     */
+    private Row currentRow(int studentID) {
+        Row row = rows.get(studentID);
+        StudentSnapshotFile snapshot = base;
+        if (row != null || snapshot == null) {
+            return row;
+        }
+        int index = snapshot.indexOf(studentID);
+        return index < 0 ? null : new Row(snapshot.studentAt(index), snapshot.updatedAt(index));
+    }
+
+    static Timestamp databaseTime(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(StudentController.DATABASE_TIME_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            rs.next();
+            return rs.getTimestamp(1);
+        }
+    }
+
+    private static Row readRow(ResultSet rs) throws SQLException {
+        Student student = StudentRowMapper.INSTANCE.map(rs);
+        return new Row(student, rs.getTimestamp(StudentRowMapper.COLUMNS.size() + 1));
+    }
+
+    // Reads; callers get copies so the replica cannot be changed from outside
+
+    /**
+     * @return the student, or null if the replica has no row with this ID
+     */
+    public Student get(int studentID) {
+        Row row = rows.get(studentID);
+        if (row != null) {
+            return row.student == null ? null : new Student(row.student);
+        }
+        // Decoded from the mapped file, so already a fresh object
+        StudentSnapshotFile snapshot = base;
+        return snapshot == null ? null : snapshot.getStudentById(studentID);
+    }
+
+    /**
+     * @return every student in StudentID order
+     */
+    public List<Student> getAll() {
+        List<Student> all = new ArrayList<>(size);
+        StudentSnapshotFile snapshot = base;
+        if (snapshot != null) {
+            for (int i = 0; i < snapshot.size(); i++) {
+                if (!rows.containsKey(snapshot.idAt(i))) {
+                    all.add(snapshot.studentAt(i));
+                }
+            }
+        }
+        for (Row row : rows.values()) {
+            if (row.student != null) {
+                all.add(new Student(row.student));
+            }
+        }
+        all.sort(Comparator.comparingInt(Student::getStudentID));
+        return all;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Save the replica as a snapshot file that a later process can start from
+     * @return number of rows written
+     * @throws IllegalStateException if the replica has never synced
+     */
+    public int writeSnapshot(Path file) throws IOException {
+        synchronized (syncLock) {
+            if (highWater == null) {
+                throw new IllegalStateException("Replica has not synced yet");
+            }
+            StudentSnapshotFile snapshot = base;
+            int baseRows = snapshot == null ? 0 : snapshot.size();
+            Iterator<Row> changed = new TreeMap<>(rows).values().iterator();
+            Row next = nextRow(changed);
+            try (StudentSnapshotFile.Writer writer = new StudentSnapshotFile.Writer(file)) {
+                // Merge the in-memory rows into the snapshot rows, both in StudentID order
+                for (int i = 0; i < baseRows; i++) {
+                    int id = snapshot.idAt(i);
+                    // Inserted since the snapshot
+                    while (next != null && next.id() < id) {
+                        write(writer, next);
+                        next = nextRow(changed);
+                    }
+                    if (next != null && next.id() == id) {
+                        // Changed or deleted since the snapshot
+                        write(writer, next);
+                        next = nextRow(changed);
+                    } else {
+                        writer.add(snapshot.studentAt(i), snapshot.updatedAt(i));
+                    }
+                }
+                while (next != null) {
+                    write(writer, next);
+                    next = nextRow(changed);
+                }
+                return writer.finish(highWater);
+            }
+        }
+    }
+
+    private static Row nextRow(Iterator<Row> rows) {
+        return rows.hasNext() ? rows.next() : null;
+    }
+
+    private static void write(StudentSnapshotFile.Writer writer, Row row) throws IOException {
+        if (row.student != null) {
+            writer.add(row.student, row.updatedAt);
+        }
+    }
+
+    /**
+     * @return milliseconds since the last successful sync started, or -1 before the first sync
+     */
+    public long getLagMillis() {
+        long last = lastSyncMillis;
+        return last < 0 ? -1 : System.currentTimeMillis() - last;
+    }
+
+    public Stats getStats() {
+        return new Stats(size, getLagMillis(), polls, fullLoads, failures, lastPollRows, rowsFetched,
+                rowsApplied, pollLatency.getPercentileNanos(0.5) / 1_000,
+                pollLatency.getPercentileNanos(0.99) / 1_000, lastError);
+    }
+
+    /**
+     * Stop background polling; the replica keeps its rows
+     */
+    @Override
+    public void close() {
+        synchronized (syncLock) {
+            if (poller != null) {
+                poller.shutdownNow();
+                poller = null;
+            }
+        }
+    }
+
+    private void fireInsert(Student student) {
+        for (StudentChangeListener listener : listeners) {
+            try {
+                listener.onInsert(student);
+            } catch (RuntimeException e) {
+                System.out.println("Error notifying replica listener: " + e.getMessage());
+            }
+        }
+    }
+
+    private void fireUpdate(Student before, Student after) {
+        for (StudentChangeListener listener : listeners) {
+            try {
+                listener.onUpdate(before, after);
+            } catch (RuntimeException e) {
+                System.out.println("Error notifying replica listener: " + e.getMessage());
+            }
+        }
+    }
+
+    private void fireDelete(Student before) {
+        for (StudentChangeListener listener : listeners) {
+            try {
+                listener.onDelete(before);
+            } catch (RuntimeException e) {
+                System.out.println("Error notifying replica listener: " + e.getMessage());
+            }
+        }
+    }
+
+    private void fireBulkChange() {
+        for (StudentChangeListener listener : listeners) {
+            try {
+                listener.onBulkChange();
+            } catch (RuntimeException e) {
+                System.out.println("Error notifying replica listener: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A replicated row and the UpdatedAt it was read with
+     */
+    private static final class Row {
+        private final int id;
+        private final Student student;
+        private final Timestamp updatedAt;
+
+        private Row(Student student, Timestamp updatedAt) {
+            this.id = student.getStudentID();
+            this.student = student;
+            this.updatedAt = updatedAt;
+        }
+
+        /**
+         * Marker for a snapshot row deleted since the snapshot was taken
+         */
+        private Row(int id, Timestamp deletedAt) {
+            this.id = id;
+            this.student = null;
+            this.updatedAt = deletedAt;
+        }
+
+        private int id() {
+            return id;
+        }
+    }
+
+    /**
+     * Point-in-time replica metrics
+     */
+    public static class Stats {
+        private final int rows;
+        private final long lagMillis;
+        private final long polls;
+        private final long fullLoads;
+        private final long failures;
+        private final int lastPollRows;
+        private final long rowsFetched;
+        private final long rowsApplied;
+        private final long pollP50Micros;
+        private final long pollP99Micros;
+        private final String lastError;
+
+        Stats(int rows, long lagMillis, long polls, long fullLoads, long failures, int lastPollRows,
+              long rowsFetched, long rowsApplied, long pollP50Micros, long pollP99Micros, String lastError) {
+            this.rows = rows;
+            this.lagMillis = lagMillis;
+            this.polls = polls;
+            this.fullLoads = fullLoads;
+            this.failures = failures;
+            this.lastPollRows = lastPollRows;
+            this.rowsFetched = rowsFetched;
+            this.rowsApplied = rowsApplied;
+            this.pollP50Micros = pollP50Micros;
+            this.pollP99Micros = pollP99Micros;
+            this.lastError = lastError;
+        }
+
+        // Getters
+        public int getRows() {
+            return rows;
+        }
+
+        public long getLagMillis() {
+            return lagMillis;
+        }
+
+        public long getPolls() {
+            return polls;
+        }
+
+        public long getFullLoads() {
+            return fullLoads;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return changed rows plus tombstones read by the most recent sync
+         */
+        public int getLastPollRows() {
+            return lastPollRows;
+        }
+
+        public long getRowsFetched() {
+            return rowsFetched;
+        }
+
+        public long getRowsApplied() {
+            return rowsApplied;
+        }
+
+        public double getRowsPerPoll() {
+            return polls == 0 ? 0 : (double) rowsFetched / polls;
+        }
+
+        public long getPollP50Micros() {
+            return pollP50Micros;
+        }
+
+        public long getPollP99Micros() {
+            return pollP99Micros;
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+
+        @Override
+        public String toString() {
+            return "ReplicaStats{rows=" + rows +
+                    ", lagMillis=" + lagMillis +
+                    ", polls=" + polls +
+                    ", fullLoads=" + fullLoads +
+                    ", failures=" + failures +
+                    ", lastPollRows=" + lastPollRows +
+                    ", rowsPerPoll=" + String.format("%.1f", getRowsPerPoll()) +
+                    ", rowsApplied=" + rowsApplied +
+                    ", pollP50Micros=" + pollP50Micros +
+                    ", pollP99Micros=" + pollP99Micros +
+                    (lastError == null ? "" : ", lastError='" + lastError + '\'') +
+                    '}';
+        }
+    }
+}
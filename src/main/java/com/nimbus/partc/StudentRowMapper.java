@@ -0,0 +1,31 @@
+package com.nimbus.partc;
+
+import com.nimbus.jdbc.Projection;
+import com.nimbus.jdbc.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps Student rows by column index
+ * Every Student query selects COLUMNS, so positions are fixed at class load.
+ */
+public final class StudentRowMapper implements RowMapper<Student> {
+    public static final Projection COLUMNS = Projection.of("StudentID", "Name", "Department", "Marks", "Version");
+    public static final StudentRowMapper INSTANCE = new StudentRowMapper();
+
+    private static final int STUDENT_ID = COLUMNS.index("StudentID");
+    private static final int NAME = COLUMNS.index("Name");
+    private static final int DEPARTMENT = COLUMNS.index("Department");
+    private static final int MARKS = COLUMNS.index("Marks");
+    private static final int VERSION = COLUMNS.index("Version");
+
+    private StudentRowMapper() {
+    }
+
+    @Override
+    public Student map(ResultSet rs) throws SQLException {
+        return new Student(rs.getInt(STUDENT_ID), rs.getString(NAME), rs.getString(DEPARTMENT), rs.getDouble(MARKS),
+                rs.getInt(VERSION));
+    }
+}
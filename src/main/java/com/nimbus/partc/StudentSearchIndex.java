@@ -0,0 +1,429 @@
+package com.nimbus.partc;
+
+import com.nimbus.jdbc.UncheckedSQLException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process secondary indexes for searching students by name prefix and department
+ *
+ * Names are indexed case-insensitively in a sorted map, so a prefix search
+ * is one O(log n) seek followed by a scan of the matches only. Departments
+ * (also case-insensitive) map to posting lists of StudentIDs kept sorted.
+ * Name results come back ordered by name, then StudentID; department
+ * results by StudentID. The rows themselves are held here too, so a
+ * search never touches the database.
+ *
+ * The index is loaded on first use and kept current through
+ * StudentChangeListener callbacks from a StudentController or
+ * StudentReplica. Callbacks run after commit on each writer's thread, so
+ * they can arrive out of commit order, and changes that arrive while a
+ * load is running are replayed on top of the loaded rows even if the load
+ * already saw them. Each row therefore keeps its Version: an insert or
+ * update no newer than the indexed row is dropped, and a deleted ID keeps
+ * a tombstone with the deleted version for TOMBSTONE_MILLIS, so a late
+ * insert or update cannot bring the row back. A reinsert starts again at
+ * Version 0 and cannot be told apart from a late insert by version alone,
+ * so an insert over a tombstone, or a delete of a different version than
+ * the indexed one, is applied and the index reloads on the next search.
+ * A bulk change reloads lazily. Searches take a shared read lock and
+ * run concurrently; writes take the write lock for a few map updates.
+ *
+ * A load whose query fails leaves the index unloaded and throws
+ * UncheckedSQLException from the search; the next search tries again.
+ */
+public class StudentSearchIndex implements StudentChangeListener {
+
+    // Longest a change callback may trail the delete of its row, including the replay of a long load
+    static final long TOMBSTONE_MILLIS = 60_000;
+
+    @FunctionalInterface
+    private interface Source {
+        List<Student> load() throws SQLException;
+    }
+
+    private final Source source;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // One load at a time; searches that arrive meanwhile wait for it
+    private final Object loadLock = new Object();
+
+    // Guarded by lock
+    private final Map<Integer, Student> rows = new HashMap<>();
+    private final TreeMap<String, IdList> byName = new TreeMap<>();
+    private final Map<String, IdList> byDepartment = new HashMap<>();
+    private boolean loaded;
+    // Bumped by onBulkChange; a load that overlapped one is not trusted
+    private long bulkChanges;
+    // Changes seen while a load runs; null when no load is running
+    private List<Student[]> replay;
+    // Deleted version per StudentID, oldest first, dropped after TOMBSTONE_MILLIS
+    private final LinkedHashMap<Integer, Tombstone> recentDeletes = new LinkedHashMap<>();
+
+    private StudentSearchIndex(Source source) {
+        this.source = source;
+    }
+
+    /**
+     * Create an index over the controller's table and register it for the controller's writes
+     */
+    public static StudentSearchIndex attach(StudentController controller) {
+        // The primary, so the load cannot miss a write already reported to listeners
+        StudentSearchIndex index = new StudentSearchIndex(controller::getAllStudentsFromPrimary);
+        controller.addChangeListener(index);
+        return index;
+    }
+
+    /**
+     * Create an index over a replica's rows, kept current by its polling
+     */
+    public static StudentSearchIndex attach(StudentReplica replica) {
+        StudentSearchIndex index = new StudentSearchIndex(replica::getAll);
+        replica.addChangeListener(index);
+        return index;
+    }
+
+    /**
+     * Students whose name starts with prefix, ignoring case
+     * @param limit maximum results
+     * @return matches ordered by name, then StudentID
+     */
+    public List<Student> findByNamePrefix(String prefix, int limit) {
+        return search(prefix, null, limit);
+    }
+
+    /**
+     * Students whose name equals name, ignoring case
+     * @return matches ordered by StudentID
+     */
+    public List<Student> findByName(String name) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            IdList ids = byName.get(normalize(name));
+            return ids == null ? new ArrayList<>() : collect(ids, null, Integer.MAX_VALUE, new ArrayList<>());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Students in a department, ignoring case
+     * @param limit maximum results
+     * @return matches ordered by StudentID
+     */
+    public List<Student> findByDepartment(String department, int limit) {
+        return search(null, department, limit);
+    }
+
+    /**
+     * Students matching a name prefix and/or a department
+     * @param namePrefix prefix to match, or null/blank for any name
+     * @param department department to match, or null/blank for any department
+     * @param limit maximum results
+     * @return matches ordered by name then StudentID, or by StudentID when only the department is given
+     * @throws UncheckedSQLException if the index has to load and the query fails
+     */
+    public List<Student> search(String namePrefix, String department, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive: " + limit);
+        }
+        String prefix = namePrefix == null || namePrefix.isBlank() ? null : normalize(namePrefix);
+        String dept = department == null || department.isBlank() ? null : normalize(department);
+        if (prefix == null && dept == null) {
+            throw new IllegalArgumentException("Give a name prefix, a department or both");
+        }
+        ensureLoaded();
+        List<Student> results = new ArrayList<>(Math.min(limit, 64));
+        lock.readLock().lock();
+        try {
+            if (prefix == null) {
+                IdList ids = byDepartment.get(dept);
+                return ids == null ? results : collect(ids, null, limit, results);
+            }
+            for (Map.Entry<String, IdList> entry : byName.tailMap(prefix, true).entrySet()) {
+                if (!entry.getKey().startsWith(prefix) || results.size() >= limit) {
+                    break;
+                }
+                collect(entry.getValue(), dept, limit, results);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of indexed students
+     */
+    public int size() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Student> collect(IdList ids, String dept, int limit, List<Student> results) {
+        for (int i = 0; i < ids.size && results.size() < limit; i++) {
+            Student student = rows.get(ids.ids[i]);
+            if (dept == null || normalize(student.getDepartment()).equals(dept)) {
+                results.add(new Student(student));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Load the rows if this is the first search or a bulk change made the index stale
+     */
+    private void ensureLoaded() {
+        if (isLoaded()) {
+            return;
+        }
+        synchronized (loadLock) {
+            if (isLoaded()) {
+                return;
+            }
+            load();
+        }
+    }
+
+    private boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void load() {
+        long bulkSeen;
+        lock.writeLock().lock();
+        try {
+            bulkSeen = bulkChanges;
+            replay = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // The query runs without the lock so writers are not held up; their changes are replayed
+        List<Student> students;
+        try {
+            students = new ArrayList<>(source.load());
+        } catch (SQLException | RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                replay = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (e instanceof SQLException) {
+                throw new UncheckedSQLException("Error loading the search index", (SQLException) e);
+            }
+            throw (RuntimeException) e;
+        }
+        // In ID order every posting-list insert is an append
+        students.sort(Comparator.comparingInt(Student::getStudentID));
+        lock.writeLock().lock();
+        try {
+            rows.clear();
+            byName.clear();
+            byDepartment.clear();
+            for (Student student : students) {
+                put(student);
+            }
+            for (Student[] change : replay) {
+                apply(change[0], change[1]);
+            }
+            replay = null;
+            loaded = bulkChanges == bulkSeen;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Change events; before and after are null for an insert and a delete respectively
+    @Override
+    public void onInsert(Student student) {
+        change(null, student);
+    }
+
+    @Override
+    public void onUpdate(Student before, Student after) {
+        change(before, after);
+    }
+
+    @Override
+    public void onDelete(Student before) {
+        change(before, null);
+    }
+
+    @Override
+    public void onBulkChange() {
+        lock.writeLock().lock();
+        try {
+            markStale();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reload on the next search; a load running now is not trusted either. Caller holds the write lock
+     */
+    private void markStale() {
+        loaded = false;
+        bulkChanges++;
+    }
+
+    private void change(Student before, Student after) {
+        Student copy = after == null ? null : new Student(after);
+        lock.writeLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(new Student[]{before, copy});
+            }
+            apply(before, copy);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Make the index agree with the change unless the index already holds a newer version of the row;
+     * replaying a change the loaded rows already contain is a no-op
+     */
+    private void apply(Student before, Student after) {
+        expireTombstones();
+        if (after == null) {
+            applyDelete(before);
+            return;
+        }
+        int id = after.getStudentID();
+        Tombstone deleted = recentDeletes.get(id);
+        if (deleted != null) {
+            if (after.getVersion() <= deleted.version) {
+                if (before != null) {
+                    // An update the delete already superseded
+                    return;
+                }
+                // A late insert from before the delete, or the row inserted again
+                markStale();
+            }
+            recentDeletes.remove(id);
+        } else {
+            Student current = rows.get(id);
+            if (current != null && current.getVersion() >= after.getVersion()) {
+                return;
+            }
+        }
+        remove(id);
+        put(after);
+    }
+
+    private void applyDelete(Student before) {
+        int id = before.getStudentID();
+        Student current = rows.get(id);
+        if (current != null && current.getVersion() != before.getVersion()) {
+            // Either updates still on their way, or a delete from before the row was inserted again
+            markStale();
+        }
+        recentDeletes.remove(id);
+        recentDeletes.put(id, new Tombstone(before.getVersion(),
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TOMBSTONE_MILLIS)));
+        remove(id);
+    }
+
+    private void expireTombstones() {
+        long now = System.nanoTime();
+        Iterator<Tombstone> it = recentDeletes.values().iterator();
+        while (it.hasNext() && it.next().expiresNanos - now <= 0) {
+            it.remove();
+        }
+    }
+
+    private void put(Student student) {
+        rows.put(student.getStudentID(), student);
+        byName.computeIfAbsent(normalize(student.getName()), k -> new IdList()).add(student.getStudentID());
+        byDepartment.computeIfAbsent(normalize(student.getDepartment()), k -> new IdList())
+                .add(student.getStudentID());
+    }
+
+    private void remove(int studentID) {
+        Student old = rows.remove(studentID);
+        if (old == null) {
+            return;
+        }
+        removeId(byName, normalize(old.getName()), studentID);
+        removeId(byDepartment, normalize(old.getDepartment()), studentID);
+    }
+
+    private static void removeId(Map<String, IdList> index, String key, int studentID) {
+        IdList ids = index.get(key);
+        if (ids != null && ids.remove(studentID) && ids.size == 0) {
+            index.remove(key);
+        }
+    }
+
+    private static String normalize(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Tombstone {
+        private final int version;
+        private final long expiresNanos;
+
+        private Tombstone(int version, long expiresNanos) {
+            this.version = version;
+            this.expiresNanos = expiresNanos;
+        }
+    }
+
+    /**
+     * Sorted, duplicate-free StudentIDs in a growable int array
+     * Inserts shift the tail, which for a department of a few hundred
+     * thousand IDs is one short memory copy.
+     */
+    private static final class IdList {
+        private int[] ids = new int[2];
+        private int size;
+
+        private void add(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        private boolean remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.nimbus.partc;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-only Student table image in a memory-mapped file
+ *
+ * Layout (little-endian): a 64-byte header, fixed-width 40-byte records
+ * sorted by StudentID, then a heap of UTF-8 names and departments that the
+ * records point into (each department is stored once). The header holds
+ * the database time the snapshot was taken, so a StudentReplica can start
+ * from it and poll only what changed since.
+ *
+ * open() maps the file and checks the header without reading any rows, so
+ * it costs the same for ten rows or ten million. Lookups binary-search the
+ * mapped ID column and decode only the matching record; the operating
+ * system pages the file in on demand.
+ *
+ * Header: magic "NSTU", format version, record count, record size,
+ *         heap offset, heap size, snapshot time (epoch microseconds)
+ * Record: StudentID, Version, Marks, UpdatedAt (epoch microseconds),
+ *         name offset/length, department offset/length
+ */
+public final class StudentSnapshotFile implements AutoCloseable {
+    private static final int MAGIC = 0x5554534E; // "NSTU" read little-endian
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 40;
+    private static final int BUFFER_SIZE = 1 << 22;
+
+    // Record field offsets
+    private static final int ID = 0;
+    private static final int VERSION = 4;
+    private static final int MARKS = 8;
+    private static final int UPDATED_AT = 16;
+    private static final int NAME_OFFSET = 24;
+    private static final int NAME_LENGTH = 28;
+    private static final int DEPARTMENT_OFFSET = 32;
+    private static final int DEPARTMENT_LENGTH = 36;
+
+    private static final String SELECT_ORDERED_SQL = StudentController.SELECT_ALL_WITH_STAMP_SQL + " ORDER BY StudentID";
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer records;
+    private final ByteBuffer heap;
+    private final int count;
+    private final long snapshotMicros;
+
+    private StudentSnapshotFile(Path file, FileChannel channel, ByteBuffer records, ByteBuffer heap, int count,
+                                long snapshotMicros) {
+        this.file = file;
+        this.channel = channel;
+        this.records = records;
+        this.heap = heap;
+        this.count = count;
+        this.snapshotMicros = snapshotMicros;
+    }
+
+    /**
+     * Map a snapshot file; no rows are read until they are looked up
+     * @throws IOException if the file is missing, truncated or not a snapshot
+     */
+    public static StudentSnapshotFile open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a Student snapshot (too short): " + file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION
+                    || header.getInt(12) != RECORD_SIZE) {
+                throw new IOException("Not a Student snapshot (bad header): " + file);
+            }
+            int count = header.getInt(8);
+            long heapOffset = header.getLong(16);
+            long heapSize = header.getLong(24);
+            long snapshotMicros = header.getLong(32);
+            long recordBytes = (long) count * RECORD_SIZE;
+            if (count < 0 || heapOffset != HEADER_SIZE + recordBytes || heapOffset + heapSize != channel.size()) {
+                throw new IOException("Snapshot is truncated or corrupt: " + file);
+            }
+            if (recordBytes > Integer.MAX_VALUE || heapSize > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot sections larger than 2 GB are not supported: " + file);
+            }
+            MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, recordBytes);
+            MappedByteBuffer heap = channel.map(FileChannel.MapMode.READ_ONLY, heapOffset, heapSize);
+            return new StudentSnapshotFile(file, channel, records.order(ByteOrder.LITTLE_ENDIAN), heap, count,
+                    snapshotMicros);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Write the whole Student table to a snapshot file
+     * Rows are streamed in StudentID order; the file is replaced atomically when complete.
+     * @return number of rows written
+     */
+    public static int write(DataSource dataSource, Path file) throws IOException, SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            // One transaction so the snapshot time and the rows come from the same read view
+            conn.setAutoCommit(false);
+            Timestamp snapshotTime = StudentReplica.databaseTime(conn);
+            try (Writer writer = new Writer(file);
+                 PreparedStatement pstmt = conn.prepareStatement(SELECT_ORDERED_SQL,
+                         ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                // Stream rows from MySQL rather than buffering the whole table in the driver
+                if (conn.getMetaData().getDriverName().contains("MySQL")) {
+                    pstmt.setFetchSize(Integer.MIN_VALUE);
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    int stampColumn = StudentRowMapper.COLUMNS.size() + 1;
+                    while (rs.next()) {
+                        writer.add(StudentRowMapper.INSTANCE.map(rs), rs.getTimestamp(stampColumn));
+                    }
+                }
+                conn.commit();
+                return writer.finish(snapshotTime);
+            }
+        }
+    }
+
+    /**
+     * @return the student with this ID, decoded from the mapped file, or null if absent
+     */
+    public Student getStudentById(int studentID) {
+        int row = indexOf(studentID);
+        return row < 0 ? null : studentAt(row);
+    }
+
+    /**
+     * Binary search over the mapped ID column
+     * @return record index, or -1 if the ID is not in the snapshot
+     */
+    int indexOf(int studentID) {
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int id = records.getInt(mid * RECORD_SIZE + ID);
+            if (id < studentID) {
+                lo = mid + 1;
+            } else if (id > studentID) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    int idAt(int row) {
+        return records.getInt(row * RECORD_SIZE + ID);
+    }
+
+    Student studentAt(int row) {
+        int base = row * RECORD_SIZE;
+        return new Student(records.getInt(base + ID),
+                string(records.getInt(base + NAME_OFFSET), records.getInt(base + NAME_LENGTH)),
+                string(records.getInt(base + DEPARTMENT_OFFSET), records.getInt(base + DEPARTMENT_LENGTH)),
+                records.getDouble(base + MARKS),
+                records.getInt(base + VERSION));
+    }
+
+    Timestamp updatedAt(int row) {
+        return toTimestamp(records.getLong(row * RECORD_SIZE + UPDATED_AT));
+    }
+
+    private String string(int offset, int length) {
+        byte[] bytes = new byte[length];
+        heap.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return database time when the snapshot was taken
+     */
+    public Timestamp getSnapshotTime() {
+        return toTimestamp(snapshotMicros);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Close the file channel; the mapping stays valid until it is garbage collected
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    static long toMicros(Timestamp ts) {
+        return Math.floorDiv(ts.getTime(), 1_000L) * 1_000_000L + ts.getNanos() / 1_000;
+    }
+
+    static Timestamp toTimestamp(long micros) {
+        Timestamp ts = new Timestamp(Math.floorDiv(micros, 1_000_000L) * 1_000L);
+        ts.setNanos((int) Math.floorMod(micros, 1_000_000L) * 1_000);
+        return ts;
+    }
+
+    /**
+     * Streams rows into a new snapshot file
+     * Records go to the target, strings to a sibling heap file appended on finish();
+     * the target is written under a temporary name and moved into place at the end.
+     */
+    static final class Writer implements AutoCloseable {
+        private final Path target;
+        private final Path recordsFile;
+        private final Path heapFile;
+        private final FileChannel recordsOut;
+        private final FileChannel heapOut;
+        private final ByteBuffer recordBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private final ByteBuffer heapBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        // Departments repeat, so each is written to the heap once
+        private final Map<String, long[]> departments = new HashMap<>();
+        private long heapSize;
+        private int count;
+        private int lastId;
+        private boolean finished;
+
+        Writer(Path target) throws IOException {
+            this.target = target;
+            this.recordsFile = target.resolveSibling(target.getFileName() + ".tmp");
+            this.heapFile = target.resolveSibling(target.getFileName() + ".heap.tmp");
+            this.recordsOut = FileChannel.open(recordsFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            this.heapOut = FileChannel.open(heapFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            recordBuffer.put(new byte[HEADER_SIZE]);
+        }
+
+        /**
+         * Append a row; rows must arrive in ascending StudentID order
+         */
+        void add(Student student, Timestamp updatedAt) throws IOException {
+            if (count > 0 && student.getStudentID() <= lastId) {
+                throw new IllegalArgumentException("Rows must be in ascending StudentID order: "
+                        + student.getStudentID() + " after " + lastId);
+            }
+            long[] name = putString(student.getName());
+            long[] department = departments.get(student.getDepartment());
+            if (department == null) {
+                department = putString(student.getDepartment());
+                departments.put(student.getDepartment(), department);
+            }
+            if (recordBuffer.remaining() < RECORD_SIZE) {
+                drain(recordBuffer, recordsOut);
+            }
+            recordBuffer.putInt(student.getStudentID())
+                    .putInt(student.getVersion())
+                    .putDouble(student.getMarks())
+                    .putLong(toMicros(updatedAt))
+                    .putInt((int) name[0]).putInt((int) name[1])
+                    .putInt((int) department[0]).putInt((int) department[1]);
+            lastId = student.getStudentID();
+            count++;
+        }
+
+        private long[] putString(String s) throws IOException {
+            byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+            long offset = heapSize;
+            if (offset + bytes.length > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot string heap would exceed 2 GB");
+            }
+            if (heapBuffer.remaining() < bytes.length) {
+                drain(heapBuffer, heapOut);
+            }
+            if (bytes.length > heapBuffer.capacity()) {
+                ByteBuffer big = ByteBuffer.wrap(bytes);
+                while (big.hasRemaining()) {
+                    heapOut.write(big);
+                }
+            } else {
+                heapBuffer.put(bytes);
+            }
+            heapSize += bytes.length;
+            return new long[]{offset, bytes.length};
+        }
+
+        /**
+         * Write the header, append the heap and move the file into place
+         * @return number of rows written
+         */
+        int finish(Timestamp snapshotTime) throws IOException {
+            drain(recordBuffer, recordsOut);
+            drain(heapBuffer, heapOut);
+            long heapOffset = HEADER_SIZE + (long) count * RECORD_SIZE;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(count).putInt(RECORD_SIZE)
+                    .putLong(heapOffset).putLong(heapSize).putLong(toMicros(snapshotTime));
+            header.clear();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += recordsOut.write(header, position);
+            }
+            heapOut.force(false);
+            try (FileChannel in = FileChannel.open(heapFile, StandardOpenOption.READ)) {
+                long size = in.size();
+                long copied = 0;
+                while (copied < size) {
+                    copied += in.transferTo(copied, size - copied, recordsOut);
+                }
+            }
+            recordsOut.force(true);
+            recordsOut.close();
+            Files.move(recordsFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            finished = true;
+            return count;
+        }
+
+        /**
+         * Close the channels and remove temporary files; a finished snapshot stays in place
+         */
+        @Override
+        public void close() throws IOException {
+            recordsOut.close();
+            heapOut.close();
+            Files.deleteIfExists(heapFile);
+            if (!finished) {
+                Files.deleteIfExists(recordsFile);
+            }
+        }
+
+        private static void drain(ByteBuffer buffer, FileChannel out) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Write a snapshot, or open one and time the first lookup
+     * Usage: StudentSnapshotFile write <file>
+     *        StudentSnapshotFile open <file> <StudentID> [--catch-up]
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: StudentSnapshotFile write <file> | open <file> <StudentID> [--catch-up]");
+            return;
+        }
+        Path file = Paths.get(args[1]);
+        if (args[0].equals("write")) {
+            try (StudentController controller = new StudentController()) {
+                long start = System.nanoTime();
+                int rows = write(controller.getDataSource(), file);
+                System.out.printf("Wrote %d rows (%d bytes) in %.1f ms%n", rows, Files.size(file),
+                        (System.nanoTime() - start) / 1e6);
+            }
+            return;
+        }
+        int id = Integer.parseInt(args[2]);
+        long start = System.nanoTime();
+        try (StudentSnapshotFile snapshot = open(file)) {
+            Student student = snapshot.getStudentById(id);
+            System.out.printf("Opened %d rows from %s and looked up %d in %.2f ms: %s%n", snapshot.size(),
+                    snapshot.getSnapshotTime(), id, (System.nanoTime() - start) / 1e6, student);
+            if (args.length > 3 && args[3].equals("--catch-up")) {
+                try (StudentController controller = new StudentController();
+                     StudentReplica replica = StudentReplica.fromSnapshot(snapshot, controller.getDataSource())) {
+                    int applied = replica.sync();
+                    System.out.println("Caught up " + applied + " change(s): " + replica.get(id));
+                    System.out.println(replica.getStats());
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,15 @@
 package com.nimbus.partc;
 
+import com.nimbus.cli.BatchCommandRunner;
+import com.nimbus.jdbc.SqlMetrics;
+import com.nimbus.jdbc.UncheckedSQLException;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -9,12 +18,28 @@ import java.util.Scanner;
  * Part of MVC Architecture - VIEW layer
  */
 public class StudentView {
+    // Rows shown per page in "View All Students"
+    private static final int PAGE_SIZE = 20;
+    
+    // Write attempts for an edit that keeps losing to concurrent updates
+    private static final int UPDATE_ATTEMPTS = 3;
+    
+    // Students listed per department in the report
+    private static final int REPORT_TOP_N = 3;
+    
     private StudentController controller;
+    private DepartmentSummary summary;
+    private StudentSearchIndex searchIndex;
     private Scanner scanner;
 
     // Constructor
     public StudentView() {
-        this.controller = new StudentController();
+        // Repeated existence checks in update/delete flows are answered from the cache
+        this.controller = new CachingStudentController();
+        // Department totals follow the writes made from this menu instead of re-scanning the table
+        this.summary = DepartmentSummary.attach(controller);
+        // Name and department search without scanning the table
+        this.searchIndex = StudentSearchIndex.attach(controller);
         this.scanner = new Scanner(System.in);
     }
 
@@ -32,7 +57,9 @@ public class StudentView {
             System.out.println("3. View Student by ID");
             System.out.println("4. Update Student");
             System.out.println("5. Delete Student");
-            System.out.println("6. Exit");
+            System.out.println("6. Department Report");
+            System.out.println("7. Search Students");
+            System.out.println("8. Exit");
             System.out.println("========================================");
             System.out.print("Enter your choice: ");
             
@@ -56,14 +83,28 @@ public class StudentView {
                     deleteStudent();
                     break;
                 case 6:
+                    departmentReport();
+                    break;
+                case 7:
+                    searchStudents();
+                    break;
+                case 8:
                     System.out.println("\nExiting Student Management System...");
                     System.out.println("Thank you for using the application!");
                     break;
                 default:
                     System.out.println("\nInvalid choice! Please try again.");
             }
-        } while (choice != 6);
+        } while (choice != 8);
         
+        if (controller.getPoolStats() != null) {
+            System.out.println("Connection pool: " + controller.getPoolStats());
+        }
+        if (controller instanceof CachingStudentController) {
+            System.out.println("Student cache: " + ((CachingStudentController) controller).getCache());
+        }
+        System.out.print(SqlMetrics.shared().dump());
+        controller.close();
         scanner.close();
     }
 
@@ -97,32 +138,78 @@ public class StudentView {
     }
 
     /**
-     * View all students from the database
+     * View all students one page at a time with next/previous navigation
+     * Only the current page is held in memory
      */
     private void viewAllStudents() {
         System.out.println("\n--- All Students ---");
         
-        List<Student> students = controller.getAllStudents();
+        System.out.print("Filter by Department (leave blank for all): ");
+        String department = scanner.nextLine().trim();
         
-        if (students.isEmpty()) {
+        StudentPage page = controller.getStudentPageAfter(StudentPage.BEFORE_FIRST, department, PAGE_SIZE);
+        if (page.isEmpty()) {
             System.out.println("No students found in the database.");
-        } else {
-            System.out.println("\n" + String.format("%-12s %-25s %-20s %-10s", 
-                "Student ID", "Name", "Department", "Marks"));
-            System.out.println("------------------------------------------------------------------------");
+            return;
+        }
+        
+        int pageNumber = 1;
+        while (true) {
+            printPage(page, pageNumber);
             
-            for (Student student : students) {
-                System.out.println(String.format("%-12d %-25s %-20s %-10.2f",
-                    student.getStudentID(),
-                    student.getName(),
-                    student.getDepartment(),
-                    student.getMarks()));
+            System.out.print("[N]ext, [P]revious, [Q]uit: ");
+            String action = scanner.nextLine().trim().toUpperCase();
+            if (action.startsWith("N")) {
+                if (!page.hasNext()) {
+                    System.out.println("\nAlready on the last page.");
+                    continue;
+                }
+                page = controller.getStudentPageAfter(page.getLastId(), department, PAGE_SIZE);
+                pageNumber++;
+            } else if (action.startsWith("P")) {
+                if (!page.hasPrevious()) {
+                    System.out.println("\nAlready on the first page.");
+                    continue;
+                }
+                StudentPage previous = controller.getStudentPageBefore(page.getFirstId(), department, PAGE_SIZE);
+                if (previous.isEmpty()) {
+                    System.out.println("\nAlready on the first page.");
+                    continue;
+                }
+                page = previous;
+                pageNumber--;
+            } else if (action.startsWith("Q")) {
+                return;
+            } else {
+                System.out.println("\nInvalid choice! Please try again.");
+            }
+            if (page.isEmpty()) {
+                System.out.println("\nNo more students.");
+                return;
             }
-            
-            System.out.println("------------------------------------------------------------------------");
-            System.out.println("Total Students: " + students.size());
         }
     }
+    
+    /**
+     * Print one page of students as a table
+     */
+    private void printPage(StudentPage page, int pageNumber) {
+        System.out.println("\n" + String.format("%-12s %-25s %-20s %-10s", 
+            "Student ID", "Name", "Department", "Marks"));
+        System.out.println("------------------------------------------------------------------------");
+        
+        for (Student student : page.getStudents()) {
+            System.out.println(String.format("%-12d %-25s %-20s %-10.2f",
+                student.getStudentID(),
+                student.getName(),
+                student.getDepartment(),
+                student.getMarks()));
+        }
+        
+        System.out.println("------------------------------------------------------------------------");
+        System.out.println("Page " + pageNumber + " (" + page.getStudents().size() + " students)"
+            + (page.hasNext() ? "" : " - last page"));
+    }
 
     /**
      * View a specific student by ID
@@ -181,10 +268,19 @@ public class StudentView {
         
         Student updatedStudent = new Student(studentID, name, department, marks);
         
-        if (controller.updateStudent(updatedStudent)) {
-            System.out.println("\n✓ Student updated successfully!");
-        } else {
-            System.out.println("\n✗ Failed to update student.");
+        // Only written if nobody changed the row meanwhile; edits to other columns are merged in
+        UpdateResult result = controller.updateStudent(existingStudent, updatedStudent,
+            StudentMergePolicy.FIELD_LEVEL, UPDATE_ATTEMPTS);
+        switch (result.getStatus()) {
+            case UPDATED:
+                System.out.println("\n✓ Student updated successfully!");
+                break;
+            case CONFLICT:
+                System.out.println("\n✗ Update not saved: the student was changed by someone else.");
+                System.out.println("Current Details: " + result.getStudent());
+                break;
+            default:
+                System.out.println("\n✗ Failed to update student.");
         }
     }
 
@@ -220,10 +316,105 @@ public class StudentView {
         }
     }
 
+    /**
+     * Search by name prefix and/or department using the in-memory indexes
+     */
+    private void searchStudents() {
+        System.out.println("\n--- Search Students ---");
+        
+        System.out.print("Name starts with (leave blank for any): ");
+        String prefix = scanner.nextLine().trim();
+        System.out.print("Department (leave blank for any): ");
+        String department = scanner.nextLine().trim();
+        if (prefix.isEmpty() && department.isEmpty()) {
+            System.out.println("\n✗ Enter a name prefix, a department or both.");
+            return;
+        }
+        
+        List<Student> students;
+        try {
+            students = searchIndex.search(prefix, department, PAGE_SIZE);
+        } catch (UncheckedSQLException e) {
+            System.out.println("Error searching students: " + e.getCause().getMessage());
+            return;
+        }
+        if (students.isEmpty()) {
+            System.out.println("No matching students found.");
+            return;
+        }
+        System.out.println("\n" + String.format("%-12s %-25s %-20s %-10s",
+            "Student ID", "Name", "Department", "Marks"));
+        System.out.println("------------------------------------------------------------------------");
+        for (Student student : students) {
+            System.out.println(String.format("%-12d %-25s %-20s %-10.2f",
+                student.getStudentID(),
+                student.getName(),
+                student.getDepartment(),
+                student.getMarks()));
+        }
+        System.out.println("------------------------------------------------------------------------");
+        System.out.println(students.size() + " student(s)"
+            + (students.size() == PAGE_SIZE ? " - first " + PAGE_SIZE + " shown, narrow the search for more" : ""));
+    }
+
+    /**
+     * Show per-department totals, the top students of each department and the marks distribution
+     */
+    private void departmentReport() {
+        System.out.println("\n--- Department Report ---");
+        
+        List<DepartmentStats> stats;
+        try {
+            stats = summary.getStats();
+        } catch (SQLException e) {
+            System.out.println("Error retrieving department stats: " + e.getMessage());
+            return;
+        }
+        if (stats.isEmpty()) {
+            System.out.println("No students found in the database.");
+            return;
+        }
+        
+        System.out.println("\n" + String.format("%-20s %8s %10s %10s %10s",
+            "Department", "Students", "Average", "Min", "Max"));
+        System.out.println("------------------------------------------------------------------------");
+        for (DepartmentStats s : stats) {
+            System.out.println(String.format("%-20s %8d %10.2f %10.2f %10.2f",
+                s.getDepartment(), s.getCount(), s.getAverageMarks(), s.getMinMarks(), s.getMaxMarks()));
+        }
+        
+        System.out.println("\nTop " + REPORT_TOP_N + " per department:");
+        for (Map.Entry<String, List<Student>> entry : controller.getTopStudentsByDepartment(REPORT_TOP_N).entrySet()) {
+            System.out.println("  " + entry.getKey());
+            for (Student student : entry.getValue()) {
+                System.out.println(String.format("    %-12d %-25s %-10.2f",
+                    student.getStudentID(), student.getName(), student.getMarks()));
+            }
+        }
+        
+        System.out.println("\nMarks distribution:");
+        for (Map.Entry<Double, Long> entry : controller.getMarksDistribution(10).entrySet()) {
+            System.out.println(String.format("  %5.0f - %-5.0f %8d",
+                entry.getKey(), entry.getKey() + 10, entry.getValue()));
+        }
+    }
+
     /**
      * Main method to run the Student Management System
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            // Headless: --batch <file|-> [--batch-size N] [--commit-every N]; stdout carries only JSON results
+            try (StudentController controller = new StudentController();
+                 Connection conn = controller.getDataSource().getConnection()) {
+                BatchCommandRunner.runCommandLine(args, conn, StudentCommands.INSTANCE);
+            } catch (IOException | SQLException | IllegalArgumentException e) {
+                System.err.println("Batch failed: " + e.getMessage());
+                // Non-zero exit status for calling scripts, after resources are closed
+                System.exit(1);
+            }
+            return;
+        }
         StudentView view = new StudentView();
         view.displayMenu();
     }
@@ -0,0 +1,79 @@
+package com.nimbus.partc;
+
+/**
+ * Outcome of a version-checked Student update
+ */
+public class UpdateResult {
+
+    public enum Status {
+        // The row was written; getStudent() carries the new version
+        UPDATED,
+        // Someone else updated the row first; getStudent() is the current row
+        CONFLICT,
+        // No row with that StudentID
+        NOT_FOUND,
+        // Database error; see getMessage()
+        FAILED
+    }
+
+    private final Status status;
+    private final Student student;
+    private final int attempts;
+    private final String message;
+
+    private UpdateResult(Status status, Student student, int attempts, String message) {
+        this.status = status;
+        this.student = student;
+        this.attempts = attempts;
+        this.message = message;
+    }
+
+    static UpdateResult updated(Student written) {
+        return new UpdateResult(Status.UPDATED, written, 1, null);
+    }
+
+    static UpdateResult conflict(Student current) {
+        return new UpdateResult(Status.CONFLICT, current, 1, "StudentID " + current.getStudentID()
+                + " was changed by someone else (now at version " + current.getVersion() + ")");
+    }
+
+    static UpdateResult notFound(int studentID) {
+        return new UpdateResult(Status.NOT_FOUND, null, 1, "No student found with StudentID: " + studentID);
+    }
+
+    static UpdateResult failed(String message) {
+        return new UpdateResult(Status.FAILED, null, 1, message);
+    }
+
+    UpdateResult withAttempts(int attempts) {
+        return new UpdateResult(status, student, attempts, message);
+    }
+
+    // Getters
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isUpdated() {
+        return status == Status.UPDATED;
+    }
+
+    public Student getStudent() {
+        return student;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "UpdateResult{status=" + status + ", attempts=" + attempts
+                + (student == null ? "" : ", student=" + student)
+                + (message == null ? "" : ", message='" + message + '\'') + '}';
+    }
+}
@@ -0,0 +1,355 @@
+package com.nimbus.schema;
+
+import com.nimbus.jdbc.BulkWriteConfig;
+import com.nimbus.jdbc.ChunkedBulkWrite;
+import com.nimbus.jdbc.SqlPredicate;
+import com.nimbus.parta.EmployeeExporter;
+import com.nimbus.parta.EmployeeStreamReader;
+import com.nimbus.partb.ProductInventorySync;
+import com.nimbus.partb.ProductStatements;
+import com.nimbus.partc.StudentController;
+import com.nimbus.partc.StudentSnapshotFile;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs EXPLAIN on the SQL the application sends and reports statements the
+ * schema does not serve with an index
+ *
+ * The statements are found by reflection: every static final String field
+ * named *_SQL in the Part A, B and C classes that talk to the database,
+ * plus the per-chunk statements of the bulk deletes and updates in
+ * partb.Main and StudentController. INSERTs are skipped; they have no plan
+ * to speak of. Parameters are bound with sample values of the type of the
+ * column they are compared with, so the optimizer sees the same types as
+ * in production.
+ *
+ * MySQL (EXPLAIN rows):
+ *   type ALL without a usable index   FAIL  full table scan
+ *   Using filesort                    FAIL  sort not served by an index
+ *   type ALL with a usable index      WARN  optimizer chose a scan, often just a small table
+ *   type index, Using temporary       WARN  full index scan, temporary table
+ * H2 (PLAN text): tableScan is a FAIL; an ORDER BY the plan does not mark
+ * "index sorted" is a WARN, since H2 does not say how it sorts.
+ *
+ * Reports, full exports and snapshots read the whole table on purpose;
+ * their findings are listed as EXPECTED and never fail the check.
+ */
+public class QueryPlanChecker {
+
+    public enum Severity {
+        OK, EXPECTED, WARN, FAIL
+    }
+
+    private static final List<Class<?>> SQL_SOURCES = List.of(
+            StudentController.class, StudentSnapshotFile.class,
+            ProductStatements.class, ProductInventorySync.class,
+            EmployeeStreamReader.class, EmployeeExporter.class);
+
+    // Statements that read every row by design
+    private static final Set<String> FULL_READS = Set.of(
+            "StudentController.SELECT_ALL_SQL",
+            "StudentController.SELECT_ALL_WITH_STAMP_SQL",
+            "StudentController.DEPARTMENT_STATS_SQL",
+            "StudentController.TOP_BY_DEPARTMENT_SQL",
+            "StudentController.MARKS_DISTRIBUTION_SQL",
+            "StudentSnapshotFile.SELECT_ORDERED_SQL",
+            "ProductStatements.SELECT_ALL_SQL",
+            "EmployeeStreamReader.SELECT_ALL_SQL",
+            "EmployeeExporter.KEY_RANGE_SQL");
+
+    // The last column compared with a placeholder: "Col = ?", "Col > ?", "Col BETWEEN ?", "Col BETWEEN ? AND ?"
+    private static final Pattern COMPARED_COLUMN = Pattern.compile(
+            "(\\w+)\\s*(?:=|<>|<=|>=|<|>|\\s+BETWEEN\\s+\\?\\s+AND|\\s+BETWEEN)\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\*\\s*([\\w.]+)\\.tableScan");
+    private static final Pattern ORDER_BY = Pattern.compile("\\bORDER\\s+BY\\b", Pattern.CASE_INSENSITIVE);
+
+    private final Connection con;
+    // Lower-case column name to its java.sql.Types code
+    private final Map<String, Integer> columnTypes = new HashMap<>();
+
+    public QueryPlanChecker(Connection con) throws SQLException {
+        this.con = con;
+        DatabaseMetaData meta = con.getMetaData();
+        try (ResultSet rs = meta.getColumns(con.getCatalog(), con.getSchema(), "%", "%")) {
+            while (rs.next()) {
+                columnTypes.putIfAbsent(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT), rs.getInt("DATA_TYPE"));
+            }
+        }
+    }
+
+    /**
+     * @return name to SQL of every statement the check covers
+     */
+    public static Map<String, String> statements() {
+        Map<String, String> statements = new LinkedHashMap<>();
+        for (Class<?> source : SQL_SOURCES) {
+            for (Field field : source.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) || field.getType() != String.class
+                        || !field.getName().endsWith("_SQL")) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                    statements.put(source.getSimpleName() + "." + field.getName(), (String) field.get(null));
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    throw new IllegalStateException("Cannot read " + source.getSimpleName() + "." + field.getName(), e);
+                }
+            }
+        }
+        // Bulk writes as partb.Main and StudentController build them
+        BulkWriteConfig config = new BulkWriteConfig();
+        SqlPredicate priceRange = SqlPredicate.between("Price", 0, 0);
+        addBulk(statements, "partb.Main --bulk delete",
+                ChunkedBulkWrite.delete("Product", "ProductID", priceRange, config));
+        addBulk(statements, "partb.Main --bulk reprice",
+                ChunkedBulkWrite.update("Product", "ProductID", "Price = ROUND(Price * ?, 2)", List.of(1), priceRange,
+                        config));
+        addBulk(statements, "StudentController.deleteStudentsWhere(Department)",
+                ChunkedBulkWrite.delete("Student", "StudentID", SqlPredicate.eq("Department", ""), config));
+        statements.values().removeIf(sql -> sql.trim().regionMatches(true, 0, "INSERT", 0, 6));
+        return statements;
+    }
+
+    private static void addBulk(Map<String, String> statements, String name, ChunkedBulkWrite op) {
+        List<String> sql = op.getStatements();
+        statements.put(name + " keys", sql.get(0));
+        statements.put(name + " write", sql.get(1));
+    }
+
+    /**
+     * Check every statement from statements()
+     */
+    public Report checkAll() {
+        Report report = new Report();
+        for (Map.Entry<String, String> statement : statements().entrySet()) {
+            report.results.add(check(statement.getKey(), statement.getValue()));
+        }
+        return report;
+    }
+
+    /**
+     * EXPLAIN one statement
+     * @param name label for the report; names listed as full reads are never worse than EXPECTED
+     */
+    public Result check(String name, String sql) {
+        Result result = new Result(name, sql);
+        try (PreparedStatement ps = con.prepareStatement("EXPLAIN " + sql)) {
+            bindSamples(ps, sql);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (hasColumn(rs.getMetaData(), "type")) {
+                    readMySqlPlan(rs, result);
+                } else {
+                    readPlanText(rs, sql, result);
+                }
+            }
+        } catch (SQLException e) {
+            result.add(Severity.FAIL, "EXPLAIN failed: " + e.getMessage());
+        }
+        if (FULL_READS.contains(name) && result.severity.compareTo(Severity.EXPECTED) > 0) {
+            result.severity = Severity.EXPECTED;
+        }
+        return result;
+    }
+
+    private void bindSamples(PreparedStatement ps, String sql) throws SQLException {
+        int index = 1;
+        for (int pos = sql.indexOf('?'); pos >= 0; pos = sql.indexOf('?', pos + 1)) {
+            Matcher m = COMPARED_COLUMN.matcher(sql.substring(0, pos));
+            Integer type = m.find() ? columnTypes.get(m.group(1).toLowerCase(Locale.ROOT)) : null;
+            ps.setObject(index++, sample(type));
+        }
+    }
+
+    private static Object sample(Integer type) {
+        if (type == null) {
+            // LIMIT, arithmetic and anything else not compared with a column
+            return 1;
+        }
+        switch (type) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+                return "x";
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+            case Types.DATE:
+                return new Timestamp(System.currentTimeMillis());
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.REAL:
+                return 1.0;
+            default:
+                return 1;
+        }
+    }
+
+    private static boolean hasColumn(ResultSetMetaData md, String label) throws SQLException {
+        for (int i = 1; i <= md.getColumnCount(); i++) {
+            if (md.getColumnLabel(i).equalsIgnoreCase(label)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void readMySqlPlan(ResultSet rs, Result result) throws SQLException {
+        while (rs.next()) {
+            String table = rs.getString("table");
+            String type = rs.getString("type");
+            String possibleKeys = rs.getString("possible_keys");
+            String extra = rs.getString("Extra");
+            result.plan.add(table + ": type=" + type + ", key=" + rs.getString("key") + ", rows="
+                    + rs.getString("rows") + (extra != null ? ", " + extra : ""));
+            // Derived tables are scans of a temporary result, judged by the rows that built them
+            boolean derived = table != null && table.startsWith("<");
+            if ("ALL".equalsIgnoreCase(type) && !derived) {
+                if (possibleKeys == null) {
+                    result.add(Severity.FAIL, "full scan of " + table + ", no usable index");
+                } else {
+                    result.add(Severity.WARN, "full scan of " + table + " although " + possibleKeys
+                            + " could serve it");
+                }
+            } else if ("index".equalsIgnoreCase(type)) {
+                result.add(Severity.WARN, "full index scan of " + table);
+            }
+            if (extra != null && extra.contains("Using filesort")) {
+                result.add(Severity.FAIL, "filesort on " + table);
+            }
+            if (extra != null && extra.contains("Using temporary")) {
+                result.add(Severity.WARN, "temporary table for " + table);
+            }
+        }
+    }
+
+    private static void readPlanText(ResultSet rs, String sql, Result result) throws SQLException {
+        StringBuilder text = new StringBuilder();
+        while (rs.next()) {
+            text.append(rs.getString(1)).append('\n');
+        }
+        // H2 spreads the plan over many lines; one is easier to read in the report
+        String plan = text.toString().replaceAll("\\s+", " ").trim();
+        result.plan.add(plan);
+        Matcher scan = TABLE_SCAN.matcher(plan);
+        while (scan.find()) {
+            result.add(Severity.FAIL, "full scan of " + scan.group(1));
+        }
+        if (ORDER_BY.matcher(sql).find() && !plan.contains("index sorted")) {
+            result.add(Severity.WARN, "ORDER BY not served by an index");
+        }
+    }
+
+    /**
+     * Plan and findings for one statement
+     */
+    public static class Result {
+        private final String name;
+        private final String sql;
+        private final List<String> plan = new ArrayList<>();
+        private final List<String> findings = new ArrayList<>();
+        private Severity severity = Severity.OK;
+
+        private Result(String name, String sql) {
+            this.name = name;
+            this.sql = sql;
+        }
+
+        private void add(Severity found, String finding) {
+            findings.add(found + ": " + finding);
+            if (found.compareTo(severity) > 0) {
+                severity = found;
+            }
+        }
+
+        // Getters
+        public String getName() {
+            return name;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public Severity getSeverity() {
+            return severity;
+        }
+
+        public List<String> getPlan() {
+            return Collections.unmodifiableList(plan);
+        }
+
+        public List<String> getFindings() {
+            return Collections.unmodifiableList(findings);
+        }
+    }
+
+    /**
+     * Results of checkAll()
+     */
+    public static class Report {
+        private final List<Result> results = new ArrayList<>();
+
+        public List<Result> getResults() {
+            return Collections.unmodifiableList(results);
+        }
+
+        public boolean hasFailures() {
+            return count(Severity.FAIL) > 0;
+        }
+
+        public int count(Severity severity) {
+            int count = 0;
+            for (Result result : results) {
+                if (result.severity == severity) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (Result result : results) {
+                sb.append(String.format("%-8s %s%n", result.severity, result.name));
+                if (result.severity != Severity.OK) {
+                    sb.append("         ").append(result.sql).append(System.lineSeparator());
+                    for (String line : result.plan) {
+                        sb.append("         plan: ").append(line).append(System.lineSeparator());
+                    }
+                    for (String finding : result.findings) {
+                        sb.append("         ").append(finding).append(System.lineSeparator());
+                    }
+                }
+            }
+            sb.append(String.format("%d statements: %d OK, %d expected full reads, %d warnings, %d failures%n",
+                    results.size(), count(Severity.OK), count(Severity.EXPECTED), count(Severity.WARN),
+                    count(Severity.FAIL)));
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.nimbus.schema;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Creates or migrates the nimbusdb schema
+ *
+ * Every step checks the database metadata first, so running it against an
+ * up-to-date schema changes nothing and running it against an older one
+ * adds only what is missing: tables, the Version and UpdatedAt columns of
+ * Student, and the secondary indexes the query paths rely on. An index
+ * counts as present if one with the same name exists or another index
+ * starts with the same columns. Existing rows, columns and indexes are
+ * never dropped or altered.
+ *
+ * Indexes and the queries they serve:
+ *   Student(Department, StudentID)  department pages, per-department stats
+ *   Student(Name)                   name lookups
+ *   Student(UpdatedAt)              StudentReplica change polling
+ *   StudentTombstone(DeletedAt)     tombstone polling and purging
+ *   Product(Price)                  bulk delete/reprice by price range
+ *
+ * Usage: SchemaBootstrap [--dry-run] [--check-plans] [jdbcUrl user password]
+ * --dry-run prints the DDL instead of running it; --check-plans runs
+ * QueryPlanChecker afterwards and exits non-zero if it finds a problem.
+ */
+public class SchemaBootstrap {
+
+    // Default database, as in the Part A/B/C tools
+    private static final String URL = "jdbc:mysql://localhost:3306/nimbusdb";
+    private static final String USER = "root";
+    private static final String PASSWORD = "1234";
+
+    private static final List<Table> TABLES = List.of(
+            new Table("Employee", "CREATE TABLE Employee (EmpID INT PRIMARY KEY, Name VARCHAR(100) NOT NULL, "
+                    + "Salary DECIMAL(12,2) NOT NULL)"),
+            new Table("Product", "CREATE TABLE Product (ProductID INT PRIMARY KEY, ProductName VARCHAR(100) NOT NULL, "
+                    + "Price DECIMAL(10,2) NOT NULL, Quantity INT NOT NULL)"),
+            new Table("Student", "CREATE TABLE Student (StudentID INT PRIMARY KEY, Name VARCHAR(100) NOT NULL, "
+                    + "Department VARCHAR(50) NOT NULL, Marks DOUBLE NOT NULL, Version INT NOT NULL DEFAULT 0, "
+                    + "UpdatedAt TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6))"),
+            new Table("StudentTombstone", "CREATE TABLE StudentTombstone (StudentID INT PRIMARY KEY, "
+                    + "DeletedAt TIMESTAMP(6) NOT NULL)"),
+            new Table("BulkWriteCheckpoint", "CREATE TABLE BulkWriteCheckpoint (Name VARCHAR(100) PRIMARY KEY, "
+                    + "Operation VARCHAR(1000) NOT NULL, LastKey BIGINT NOT NULL, RowCount BIGINT NOT NULL, "
+                    + "Chunks BIGINT NOT NULL)"));
+
+    // Columns added after the first release; tables created above already have them
+    private static final List<Column> COLUMNS = List.of(
+            new Column("Student", "Version", "INT NOT NULL DEFAULT 0"),
+            new Column("Student", "UpdatedAt", "TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)"));
+
+    private static final List<Index> INDEXES = List.of(
+            new Index("Student", "idx_student_department", "Department, StudentID"),
+            new Index("Student", "idx_student_name", "Name"),
+            new Index("Student", "idx_student_updatedat", "UpdatedAt"),
+            new Index("StudentTombstone", "idx_tombstone_deletedat", "DeletedAt"),
+            new Index("Product", "idx_product_price", "Price"));
+
+    private SchemaBootstrap() {
+    }
+
+    public static void main(String[] args) {
+        boolean dryRun = false;
+        boolean checkPlans = false;
+        List<String> connection = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--dry-run")) {
+                dryRun = true;
+            } else if (arg.equals("--check-plans")) {
+                checkPlans = true;
+            } else {
+                connection.add(arg);
+            }
+        }
+        String url = connection.size() > 0 ? connection.get(0) : URL;
+        String user = connection.size() > 1 ? connection.get(1) : USER;
+        String password = connection.size() > 2 ? connection.get(2) : PASSWORD;
+
+        boolean failed = false;
+        try (Connection con = DriverManager.getConnection(url, user, password)) {
+            List<String> ddl = dryRun ? plan(con) : apply(con);
+            if (ddl.isEmpty()) {
+                System.out.println("Schema is up to date.");
+            }
+            for (String statement : ddl) {
+                System.out.println((dryRun ? "[DRY RUN] " : "") + statement + ";");
+            }
+            if (checkPlans) {
+                QueryPlanChecker.Report report = new QueryPlanChecker(con).checkAll();
+                System.out.print(report);
+                failed = report.hasFailures();
+            }
+        } catch (SQLException e) {
+            System.out.println("Database error: " + e.getMessage());
+            failed = true;
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Create missing tables, columns and indexes
+     * @return the DDL that was run, empty if the schema was already current
+     */
+    public static List<String> apply(Connection con) throws SQLException {
+        List<String> ddl = plan(con);
+        try (Statement st = con.createStatement()) {
+            for (String statement : ddl) {
+                st.execute(statement);
+            }
+        }
+        return ddl;
+    }
+
+    /**
+     * @return the DDL apply() would run, without running it
+     */
+    public static List<String> plan(Connection con) throws SQLException {
+        DatabaseMetaData meta = con.getMetaData();
+        Set<String> tables = tables(con, meta);
+        List<String> ddl = new ArrayList<>();
+        for (Table table : TABLES) {
+            if (!tables.contains(key(table.name))) {
+                ddl.add(table.create);
+            }
+        }
+        for (Column column : COLUMNS) {
+            // A table created above comes with the column already
+            if (tables.contains(key(column.table)) && !columns(con, meta, column.table).contains(key(column.name))) {
+                ddl.add("ALTER TABLE " + column.table + " ADD COLUMN " + column.name + " " + column.definition);
+            }
+        }
+        for (Index index : INDEXES) {
+            if (!tables.contains(key(index.table)) || !covered(indexes(con, meta, index.table), index)) {
+                ddl.add("CREATE INDEX " + index.name + " ON " + index.table + " (" + index.columns + ")");
+            }
+        }
+        return ddl;
+    }
+
+    // Identifier case differs between servers (H2 upper-cases, MySQL keeps it), so compare case-insensitively
+    private static String key(String identifier) {
+        return identifier.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> tables(Connection con, DatabaseMetaData meta) throws SQLException {
+        Set<String> names = new HashSet<>();
+        try (ResultSet rs = meta.getTables(con.getCatalog(), con.getSchema(), "%", new String[]{"TABLE"})) {
+            while (rs.next()) {
+                names.add(key(rs.getString("TABLE_NAME")));
+            }
+        }
+        return names;
+    }
+
+    private static Set<String> columns(Connection con, DatabaseMetaData meta, String table) throws SQLException {
+        Set<String> names = new HashSet<>();
+        try (ResultSet rs = meta.getColumns(con.getCatalog(), con.getSchema(), actualName(con, meta, table), "%")) {
+            while (rs.next()) {
+                names.add(key(rs.getString("COLUMN_NAME")));
+            }
+        }
+        return names;
+    }
+
+    private static boolean covered(Map<String, List<String>> existing, Index index) {
+        if (existing.containsKey(key(index.name))) {
+            return true;
+        }
+        List<String> wanted = new ArrayList<>();
+        for (String column : index.columns.split(",")) {
+            wanted.add(key(column.trim()));
+        }
+        for (List<String> columns : existing.values()) {
+            if (columns.size() >= wanted.size() && columns.subList(0, wanted.size()).equals(wanted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return index name to its columns in order
+     */
+    private static Map<String, List<String>> indexes(Connection con, DatabaseMetaData meta, String table)
+            throws SQLException {
+        Map<String, TreeMap<Integer, String>> byName = new HashMap<>();
+        try (ResultSet rs = meta.getIndexInfo(con.getCatalog(), con.getSchema(), actualName(con, meta, table),
+                false, false)) {
+            while (rs.next()) {
+                String name = rs.getString("INDEX_NAME");
+                String column = rs.getString("COLUMN_NAME");
+                if (name != null && column != null) {
+                    byName.computeIfAbsent(key(name), k -> new TreeMap<>())
+                            .put((int) rs.getShort("ORDINAL_POSITION"), key(column));
+                }
+            }
+        }
+        Map<String, List<String>> indexes = new HashMap<>();
+        byName.forEach((name, columns) -> indexes.put(name, new ArrayList<>(columns.values())));
+        return indexes;
+    }
+
+    /**
+     * Table name as the server stores it, for the metadata calls that match names exactly
+     */
+    private static String actualName(Connection con, DatabaseMetaData meta, String table) throws SQLException {
+        try (ResultSet rs = meta.getTables(con.getCatalog(), con.getSchema(), "%", new String[]{"TABLE"})) {
+            while (rs.next()) {
+                String name = rs.getString("TABLE_NAME");
+                if (name.equalsIgnoreCase(table)) {
+                    return name;
+                }
+            }
+        }
+        return table;
+    }
+
+    private static final class Table {
+        private final String name;
+        private final String create;
+
+        private Table(String name, String create) {
+            this.name = name;
+            this.create = create;
+        }
+    }
+
+    private static final class Column {
+        private final String table;
+        private final String name;
+        private final String definition;
+
+        private Column(String table, String name, String definition) {
+            this.table = table;
+            this.name = name;
+            this.definition = definition;
+        }
+    }
+
+    private static final class Index {
+        private final String table;
+        private final String name;
+        private final String columns;
+
+        private Index(String table, String name, String columns) {
+            this.table = table;
+            this.name = name;
+            this.columns = columns;
+        }
+    }
+}